@@ -0,0 +1,189 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.Plan;
+import data.Vector;
+import func.CostFunction;
+import func.IndexCostFunction;
+import func.PlanCostFunction;
+import func.VarCostFunction;
+
+/**
+ * The searches of {@link Optimization}: the choice among <code>numPlans</code> plans
+ * and the choice among the 2^numChildren combinations of accepted and rejected
+ * subtree responses of <code>numChildren</code> children.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizationBenchmark {
+
+	@Param({ "16", "128", "1024" })
+	public int numPlans;
+
+	@Param({ "100", "1440" })
+	public int planDim;
+
+	@Param({ "2", "4" })
+	public int numChildren;
+
+	private static final int NUM_AGENTS = 1000;
+	private static final double ALPHA = 0.2;
+	private static final double BETA = 0.3;
+
+	private CostFunction<Vector> costFunction;
+	private PlanCostFunction<Vector> localCostFunction;
+	private Optimization optimization;
+	private MultiObjectiveIEPOSAgent<Vector> agent;
+
+	private List<Plan<Vector>> plans;
+	private Vector constant;
+
+	private List<List<Vector>> choicesPerChild;
+	private List<List<Double>> discomfortSumsPerChild;
+	private List<List<Double>> discomfortSumSqrsPerChild;
+	private List<Vector> prevResponses;
+	private List<Vector> responses;
+	private double[] prevDiscomfortSums;
+	private double[] discomfortSums;
+	private double[] prevDiscomfortSumSqrs;
+	private double[] discomfortSumSqrs;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		this.plans = new ArrayList<>();
+		for (int i = 0; i < this.numPlans; i++) {
+			Plan<Vector> plan = new Plan<>(this.randomVector(random, 1.0));
+			plan.setIndex(i);
+			this.plans.add(plan);
+		}
+		this.constant = this.randomVector(random, NUM_AGENTS);
+
+		this.choicesPerChild = new ArrayList<>();
+		this.discomfortSumsPerChild = new ArrayList<>();
+		this.discomfortSumSqrsPerChild = new ArrayList<>();
+		this.prevResponses = new ArrayList<>();
+		this.responses = new ArrayList<>();
+		this.prevDiscomfortSums = new double[this.numChildren];
+		this.discomfortSums = new double[this.numChildren];
+		this.prevDiscomfortSumSqrs = new double[this.numChildren];
+		this.discomfortSumSqrs = new double[this.numChildren];
+		for (int c = 0; c < this.numChildren; c++) {
+			Vector prevResponse = this.randomVector(random, NUM_AGENTS / this.numChildren);
+			Vector response = this.randomVector(random, NUM_AGENTS / this.numChildren);
+			this.prevResponses.add(prevResponse);
+			this.responses.add(response);
+			this.prevDiscomfortSums[c] = random.nextDouble() * NUM_AGENTS;
+			this.discomfortSums[c] = random.nextDouble() * NUM_AGENTS;
+			this.prevDiscomfortSumSqrs[c] = random.nextDouble() * NUM_AGENTS * NUM_AGENTS;
+			this.discomfortSumSqrs[c] = random.nextDouble() * NUM_AGENTS * NUM_AGENTS;
+
+			List<Vector> choices = new ArrayList<>();
+			choices.add(prevResponse);
+			choices.add(response);
+			this.choicesPerChild.add(choices);
+			List<Double> sums = new ArrayList<>();
+			sums.add(this.prevDiscomfortSums[c]);
+			sums.add(this.discomfortSums[c]);
+			this.discomfortSumsPerChild.add(sums);
+			List<Double> sumSqrs = new ArrayList<>();
+			sumSqrs.add(this.prevDiscomfortSumSqrs[c]);
+			sumSqrs.add(this.discomfortSumSqrs[c]);
+			this.discomfortSumSqrsPerChild.add(sumSqrs);
+		}
+
+		this.costFunction = new VarCostFunction();
+		this.localCostFunction = new IndexCostFunction();
+		this.optimization = new Optimization(new Random(0));
+		this.agent = new MultiObjectiveIEPOSAgent<>(1, this.plans, this.costFunction, this.localCostFunction, null, 0);
+		this.agent.iteration = 1;
+	}
+
+	private Vector randomVector(Random random, double scale) {
+		Vector vector = new Vector(this.planDim);
+		for (int i = 0; i < this.planDim; i++) {
+			vector.setValue(i, scale * random.nextGaussian());
+		}
+		return vector;
+	}
+
+	@Benchmark
+	public List<Vector> calcAllCombinations() {
+		return this.optimization.calcAllCombinations(this.choicesPerChild);
+	}
+
+	@Benchmark
+	public List<Double> calcAllDiscomfortCombinations() {
+		return this.optimization.calculateAllCombinationsForDiscomfortScores(this.discomfortSumsPerChild);
+	}
+
+	@Benchmark
+	public double[] calcAllDiscomfortCombinationsPrimitive() {
+		return this.optimization.calculateAllCombinationsForDiscomfortScores(this.prevDiscomfortSums,
+				this.discomfortSums, 0.0);
+	}
+
+	/**
+	 * Plan selection of the original I-EPOS.
+	 */
+	@Benchmark
+	public int argminPlans() {
+		return this.optimization.argmin(this.costFunction, this.plans, this.constant, 0.0);
+	}
+
+	/**
+	 * Plan selection of the multi-objective I-EPOS.
+	 */
+	@Benchmark
+	public int argminPlansMultiObjective() {
+		return this.optimization.argmin(this.costFunction, this.localCostFunction, this.plans, this.constant, ALPHA,
+				BETA, 0.0, 0.0, NUM_AGENTS, this.agent);
+	}
+
+	/**
+	 * Choice among the materialized combinations of the children.
+	 */
+	@Benchmark
+	public int argminCombinations() {
+		List<Vector> responseCombos = this.optimization.calcAllCombinations(this.choicesPerChild);
+		List<Double> discomfortSumCombos = this.optimization
+				.calculateAllCombinationsForDiscomfortScores(this.discomfortSumsPerChild);
+		List<Double> discomfortSumSqrCombos = this.optimization
+				.calculateAllCombinationsForDiscomfortScores(this.discomfortSumSqrsPerChild);
+		return this.optimization.argmin(this.costFunction, responseCombos, discomfortSumCombos,
+				discomfortSumSqrCombos, this.constant, 0.0, 0.0, ALPHA, BETA, NUM_AGENTS);
+	}
+
+	/**
+	 * Choice among the combinations of the children as done by the agents.
+	 */
+	@Benchmark
+	public int argminCombinationsGrayCode() {
+		return this.optimization.argminCombinations(this.costFunction, this.prevResponses, this.responses,
+				this.prevDiscomfortSums, this.discomfortSums, this.prevDiscomfortSumSqrs, this.discomfortSumSqrs,
+				this.constant, 0.0, 0.0, ALPHA, BETA, NUM_AGENTS);
+	}
+
+}
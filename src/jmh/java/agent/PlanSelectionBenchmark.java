@@ -0,0 +1,168 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agent.planselection.MultiObjectiveIeposPlanSelector;
+import agent.planselection.OptimizationFactor;
+import agent.planselection.PlanSelectionOptimizationFunctionCollection;
+import data.Plan;
+import data.Vector;
+import func.CostFunction;
+import func.IndexCostFunction;
+import func.PlanCostFunction;
+import func.VarCostFunction;
+
+/**
+ * Per-agent cost of one plan selection: scoring every possible plan of an agent
+ * against the response of the other agents and picking the best one.
+ *
+ * <code>legacy</code> reproduces the previous scoring path, which cloned the
+ * constant response for every plan and evaluated the objective through a map of
+ * boxed factors. <code>fused</code> is {@link Optimization#argmin(CostFunction,
+ * PlanCostFunction, List, data.DataType, double, double, double, double, int,
+ * MultiObjectiveIEPOSAgent)} as used by the plan selector, and <code>selectPlan</code>
+ * the complete {@link MultiObjectiveIeposPlanSelector#selectPlan(MultiObjectiveIEPOSAgent)}
+ * of an agent in the middle of a run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanSelectionBenchmark {
+
+	@Param({ "16", "128", "1024" })
+	public int numPlans;
+
+	@Param({ "100" })
+	public int planDim;
+
+	@Param({ "0.2" })
+	public double alpha;
+
+	@Param({ "0.3" })
+	public double beta;
+
+	private static final int NUM_AGENTS = 1000;
+
+	private List<Plan<Vector>> plans;
+	private Vector constant;
+	private CostFunction<Vector> costFunction;
+	private PlanCostFunction<Vector> localCostFunction;
+	private MultiObjectiveIEPOSAgent<Vector> agent;
+	private MultiObjectiveIeposPlanSelector<Vector> planSelector;
+	private Optimization optimization;
+	private Random random;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random generator = new Random(42);
+		this.plans = new ArrayList<>();
+		for (int i = 0; i < this.numPlans; i++) {
+			Vector value = new Vector(this.planDim);
+			for (int d = 0; d < this.planDim; d++) {
+				value.setValue(d, generator.nextGaussian());
+			}
+			Plan<Vector> plan = new Plan<>(value);
+			plan.setIndex(i);
+			this.plans.add(plan);
+		}
+		this.constant = new Vector(this.planDim);
+		for (int d = 0; d < this.planDim; d++) {
+			this.constant.setValue(d, NUM_AGENTS * generator.nextGaussian());
+		}
+
+		this.costFunction = new VarCostFunction();
+		this.localCostFunction = new IndexCostFunction();
+		this.agent = new MultiObjectiveIEPOSAgent<>(1, this.plans, this.costFunction, this.localCostFunction, null, 0);
+		this.agent.setUnfairnessWeight(this.alpha);
+		this.agent.setLocalCostWeight(this.beta);
+		this.optimization = new Optimization(new Random(0));
+		this.random = new Random(0);
+
+		// state of an agent in the middle of a run, see MultiObjectiveIEPOSAgent
+		this.agent.iteration = 1;
+		this.agent.numAgents = NUM_AGENTS;
+		this.agent.prevSelectedPlan = this.plans.get(0);
+		this.agent.globalResponse = this.constant.cloneThis();
+		this.agent.globalResponse.add(this.plans.get(0).getValue());
+		this.agent.aggregatedResponse = new Vector(this.planDim);
+		this.agent.prevAggregatedResponse = new Vector(this.planDim);
+		this.planSelector = new MultiObjectiveIeposPlanSelector<>();
+	}
+
+	@Benchmark
+	public int selectPlan() {
+		return this.planSelector.selectPlan(this.agent);
+	}
+
+	@Benchmark
+	public int fused() {
+		return this.optimization.argmin(this.costFunction, this.localCostFunction, this.plans, this.constant,
+				this.alpha, this.beta, 0.0, 0.0, NUM_AGENTS, this.agent);
+	}
+
+	@Benchmark
+	public int legacy() {
+		int size = this.plans.size();
+		double[] costs = new double[size];
+		double[] discomfortSums = new double[size];
+		double[] discomfortSumSqrs = new double[size];
+
+		IntStream.range(0, size).forEach(i -> {
+			Vector combined = this.constant.cloneThis();
+			combined.add(this.plans.get(i).getValue());
+			costs[i] = this.costFunction.calcCost(combined);
+			double score = this.localCostFunction.calcCost(this.plans.get(i));
+			discomfortSums[i] = score;
+			discomfortSumSqrs[i] = score * score;
+		});
+
+		double minCost = Double.POSITIVE_INFINITY;
+		int selected = -1;
+		int numOpt = 0;
+		for (int i = 0; i < size; i++) {
+			HashMap<OptimizationFactor, Object> parameters = new HashMap<OptimizationFactor, Object>();
+			parameters.put(OptimizationFactor.GLOBAL_COST, costs[i]);
+			parameters.put(OptimizationFactor.DISCOMFORT_SUM, discomfortSums[i]);
+			parameters.put(OptimizationFactor.DISCOMFORT_SUM_SQR, discomfortSumSqrs[i]);
+			parameters.put(OptimizationFactor.ALPHA, this.alpha);
+			parameters.put(OptimizationFactor.BETA, this.beta);
+			parameters.put(OptimizationFactor.NUM_AGENTS, (double) NUM_AGENTS);
+			double cost = PlanSelectionOptimizationFunctionCollection.complexFunction1.apply(parameters);
+
+			if (cost < minCost) {
+				minCost = cost;
+				selected = i;
+				numOpt = 1;
+			} else if (cost == minCost) {
+				numOpt++;
+				if (this.random.nextDouble() <= 1.0 / numOpt) {
+					selected = i;
+				}
+			}
+		}
+		return selected;
+	}
+
+}
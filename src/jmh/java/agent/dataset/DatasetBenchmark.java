@@ -0,0 +1,102 @@
+package agent.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import config.Configuration;
+import data.Plan;
+import data.Vector;
+
+/**
+ * Loading the plans of an agent from a generated dataset of <code>numPlans</code>
+ * plans of <code>planDim</code> dimensions per agent, in the text layout of
+ * {@link FileVectorDataset} or in the binary layout of {@link BinaryVectorDataset}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatasetBenchmark {
+
+	@Param({ "16" })
+	public int numPlans;
+
+	@Param({ "100" })
+	public int planDim;
+
+	@Param({ "text", "binary" })
+	public String format;
+
+	private static final int NUM_AGENTS = 100;
+
+	private File datasetDir;
+	private Dataset<Vector> dataset;
+	private int agentId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.datasetDir = Files.createTempDirectory("epos-dataset").toFile();
+		Random random = new Random(42);
+		for (int agent = 0; agent < NUM_AGENTS; agent++) {
+			try (PrintWriter out = new PrintWriter(new File(this.datasetDir, "agent_" + agent + ".plans"))) {
+				for (int plan = 0; plan < this.numPlans; plan++) {
+					StringBuilder line = new StringBuilder();
+					line.append(random.nextDouble()).append(':');
+					for (int i = 0; i < this.planDim; i++) {
+						line.append(i == 0 ? "" : ",").append(random.nextGaussian());
+					}
+					out.println(line);
+				}
+			}
+		}
+
+		String path = this.datasetDir.getPath() + File.separator;
+		if (this.format.equals("binary")) {
+			BinaryVectorDataset.convert(path);
+			this.dataset = new BinaryVectorDataset(path);
+		} else {
+			this.dataset = new FileVectorDataset(path);
+		}
+		Configuration.numPlans = this.numPlans;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.dataset = null;
+		File[] files = this.datasetDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.datasetDir.delete();
+	}
+
+	@Benchmark
+	public List<Plan<Vector>> getPlans() {
+		this.agentId = (this.agentId + 1) % NUM_AGENTS;
+		return this.dataset.getPlans(this.agentId);
+	}
+
+}
@@ -0,0 +1,110 @@
+package data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Arithmetic of {@link Vector} on plans of <code>planDim</code> dimensions,
+ * with the other operand in double or float precision, see {@link FloatVector}.
+ * The <code>simd</code> kernels need the forked JVM to run on Java 17+ with
+ * <code>-jvmArgsAppend --add-modules=jdk.incubator.vector</code>; otherwise their
+ * trials fail instead of measuring the scalar fallback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+	@Param({ "100", "1440" })
+	public int planDim;
+
+	@Param({ "scalar", "simd" })
+	public String kernels;
+
+	@Param({ "double", "float" })
+	public String precision;
+
+	private Vector vector;
+	private Vector other;
+	private Vector third;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		VectorKernels kernels = VectorKernels.forName(this.kernels);
+		if (this.kernels.equals("simd") && kernels == ScalarKernels.INSTANCE) {
+			throw new IllegalStateException("SIMD kernels are not available in this JVM");
+		}
+		Vector.setKernels(kernels);
+		Random random = new Random(42);
+		this.vector = new Vector(this.planDim);
+		this.other = new Vector(this.planDim);
+		this.third = new Vector(this.planDim);
+		for (int i = 0; i < this.planDim; i++) {
+			this.vector.setValue(i, random.nextGaussian());
+			this.other.setValue(i, random.nextGaussian());
+			this.third.setValue(i, random.nextGaussian());
+		}
+		if (this.precision.equals("float")) {
+			this.other = new FloatVector(this.other.getArray());
+		}
+	}
+
+	@Benchmark
+	public Vector add() {
+		this.vector.add(this.other);
+		return this.vector;
+	}
+
+	@Benchmark
+	public Vector subtract() {
+		this.vector.subtract(this.other);
+		return this.vector;
+	}
+
+	@Benchmark
+	public double variance() {
+		return this.vector.variance();
+	}
+
+	@Benchmark
+	public double dot() {
+		return this.vector.dot(this.other);
+	}
+
+	@Benchmark
+	public double addAndVariance() {
+		return this.vector.addAndVariance(this.other);
+	}
+
+	@Benchmark
+	public double varianceWithDelta() {
+		return Vector.variance(this.vector, this.other);
+	}
+
+	@Benchmark
+	public double dotDiff() {
+		return this.vector.dotDiff(this.other, this.third);
+	}
+
+	@Benchmark
+	public double correlationCoefficient() {
+		return this.vector.correlationCoefficient(this.other);
+	}
+
+}
@@ -0,0 +1,157 @@
+package experiment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agent.MultiObjectiveIEPOSAgent;
+import agent.dataset.BinaryVectorDataset;
+import agent.logging.LoggingProvider;
+import config.Configuration;
+import data.Vector;
+
+/**
+ * A complete simulation of <code>numIterations</code> iterations with
+ * <code>numAgents</code> agents in a tree of <code>numChildren</code> children per
+ * node, as run by {@link IEPOSExperiment#main(String[])} for every simulation.
+ *
+ * A Gaussian dataset is generated in binary format under <code>datasets/</code> of
+ * the working directory and removed afterwards. No loggers are enabled, so the
+ * measurement covers the agents and the execution engine only: the ProtoPeer
+ * simulation or the direct in-process engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SimulationBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int numAgents;
+
+	@Param({ "16" })
+	public int numPlans;
+
+	@Param({ "100" })
+	public int planDim;
+
+	@Param({ "2" })
+	public int numChildren;
+
+	@Param({ "40" })
+	public int numIterations;
+
+	@Param({ "protopeer", "direct" })
+	public String engine;
+
+	@Param({ "1" })
+	public int numEngineThreads;
+
+	@Param({ "false" })
+	public boolean populationStore;
+
+	private File datasetDir;
+	private File workDir;
+	private Configuration config;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String dataset = "jmh-" + this.numAgents + "-" + this.numPlans + "-" + this.planDim;
+		this.datasetDir = new File("datasets", dataset);
+		this.datasetDir.mkdirs();
+		Random random = new Random(42);
+		for (int agent = 0; agent < this.numAgents; agent++) {
+			try (PrintWriter out = new PrintWriter(new File(this.datasetDir, "agent_" + agent + ".plans"))) {
+				for (int plan = 0; plan < this.numPlans; plan++) {
+					StringBuilder line = new StringBuilder();
+					line.append(random.nextDouble()).append(':');
+					for (int i = 0; i < this.planDim; i++) {
+						line.append(i == 0 ? "" : ",").append(random.nextGaussian());
+					}
+					out.println(line);
+				}
+			}
+		}
+		BinaryVectorDataset.convert(this.datasetDir.getPath());
+		for (int agent = 0; agent < this.numAgents; agent++) {
+			new File(this.datasetDir, "agent_" + agent + ".plans").delete();
+		}
+		try (PrintWriter out = new PrintWriter(new File(this.datasetDir, dataset + ".target"))) {
+			StringBuilder line = new StringBuilder("0");
+			for (int i = 1; i < this.planDim; i++) {
+				line.append(",0");
+			}
+			out.println(line);
+		}
+
+		this.workDir = Files.createTempDirectory("epos-simulation").toFile();
+		File properties = new File(this.workDir, "epos.properties");
+		try (PrintWriter out = new PrintWriter(properties)) {
+			out.println("dataset=" + dataset);
+			out.println("numSimulations=1");
+			out.println("engine=" + this.engine);
+			out.println("numEngineThreads=" + this.numEngineThreads);
+			out.println("populationStore=" + this.populationStore);
+			out.println("numIterations=" + this.numIterations);
+			out.println("numAgents=" + this.numAgents);
+			out.println("numPlans=" + this.numPlans);
+			out.println("numChildren=" + this.numChildren);
+			out.println("planDim=" + this.planDim);
+			out.println("shuffle=0");
+			out.println("numberOfWeights=2");
+			out.println("weightsString=0.2,0.3");
+			out.println("behaviours=same");
+			out.println("constraint=SOFT");
+			out.println("strategy=never");
+			out.println("strategy.reorganizationSeed=0");
+			out.println("globalCostFunction=VAR");
+			out.println("localCostFunction=INDEX");
+			out.println("logLevel=SEVERE");
+		}
+		this.config = Configuration.fromFile(properties.getPath(), this.workDir.getPath());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationBenchmark.delete(this.datasetDir);
+		SimulationBenchmark.delete(this.workDir);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				SimulationBenchmark.delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@Benchmark
+	public LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> runSimulation() {
+		LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider = IEPOSExperiment
+				.createLoggingProvider(this.config);
+		IEPOSExperiment.runSimulation(this.config, 0, loggingProvider);
+		return loggingProvider;
+	}
+
+}
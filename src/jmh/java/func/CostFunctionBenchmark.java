@@ -0,0 +1,149 @@
+package func;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import config.Configuration;
+import data.Plan;
+import data.Vector;
+import func.IncrementalCostFunction.DeltaCost;
+
+/**
+ * Every cost function of <code>func</code>, selected by its label.
+ * <code>XCORR-SLIDING</code> is XCORR with {@link CrossCorrelationCostFunction#shouldSlide}.
+ *
+ * <code>calcCost</code> evaluates the <code>numPlans</code> plans of an agent as global
+ * responses. <code>candidateCost</code> evaluates them as the candidates of one plan
+ * selection, i.e. the response of the other agents plus a plan, as done by
+ * <code>Optimization</code>: through {@link IncrementalCostFunction}, prepared once
+ * per selection, where available, on the materialized sum otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CostFunctionBenchmark {
+
+	@Param({ "VAR", "STD", "SQR", "DOT", "RSS", "RMSE", "MAX", "XCORR", "XCORR-SLIDING", "INDEX" })
+	public String costFunction;
+
+	@Param({ "100", "1440" })
+	public int planDim;
+
+	@Param({ "16", "128", "1024" })
+	public int numPlans;
+
+	private static final int NUM_AGENTS = 1000;
+
+	private PlanCostFunction<Vector> function;
+	private List<Plan<Vector>> plans;
+	private Vector others;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		Vector goal = new Vector(this.planDim);
+		this.others = new Vector(this.planDim);
+		for (int i = 0; i < this.planDim; i++) {
+			goal.setValue(i, NUM_AGENTS * random.nextGaussian());
+			this.others.setValue(i, NUM_AGENTS * random.nextGaussian());
+		}
+		this.plans = new ArrayList<>();
+		for (int p = 0; p < this.numPlans; p++) {
+			Vector value = new Vector(this.planDim);
+			for (int i = 0; i < this.planDim; i++) {
+				value.setValue(i, random.nextGaussian());
+			}
+			Plan<Vector> plan = new Plan<>(value);
+			plan.setIndex(p);
+			this.plans.add(plan);
+		}
+
+		Configuration.planDim = this.planDim;
+		Configuration.goalSignalSupplier = () -> goal;
+		CrossCorrelationCostFunction.shouldSlide = this.costFunction.equals("XCORR-SLIDING");
+
+		switch (this.costFunction) {
+			case "VAR":
+				this.function = new VarCostFunction();
+				break;
+			case "STD":
+				this.function = new StdDevCostFunction();
+				break;
+			case "SQR":
+				this.function = new SqrDistCostFunction();
+				break;
+			case "DOT":
+				this.function = new DotCostFunction();
+				break;
+			case "RSS":
+				this.function = new RSSCostFunction();
+				break;
+			case "RMSE":
+				this.function = new RMSECostFunction();
+				break;
+			case "MAX":
+				this.function = new MaxCostFunction();
+				break;
+			case "XCORR":
+			case "XCORR-SLIDING":
+				this.function = new CrossCorrelationCostFunction();
+				break;
+			case "INDEX":
+				this.function = new IndexCostFunction();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown cost function " + this.costFunction);
+		}
+		if (this.function instanceof HasGoal) {
+			((HasGoal) this.function).populateGoalSignal();
+		}
+	}
+
+	@Benchmark
+	public double calcCost() {
+		double minCost = Double.POSITIVE_INFINITY;
+		for (Plan<Vector> plan : this.plans) {
+			minCost = Math.min(minCost, this.function.calcCost(plan));
+		}
+		return minCost;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Benchmark
+	public double candidateCost() {
+		double minCost = Double.POSITIVE_INFINITY;
+		if (this.function instanceof IncrementalCostFunction) {
+			DeltaCost<Vector> deltaCost = ((IncrementalCostFunction<Vector>) this.function).prepare(this.others);
+			for (Plan<Vector> plan : this.plans) {
+				minCost = Math.min(minCost, deltaCost.costWithDelta(plan.getValue()));
+			}
+			return minCost;
+		}
+		Vector combined = this.others.cloneNew();
+		for (Plan<Vector> plan : this.plans) {
+			combined.set(this.others);
+			combined.add(plan.getValue());
+			minCost = Math.min(minCost, this.function.calcCost(new Plan<>(combined)));
+		}
+		return minCost;
+	}
+
+}
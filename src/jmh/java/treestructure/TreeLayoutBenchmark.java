@@ -0,0 +1,103 @@
+package treestructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dsutil.generic.RankPriority;
+import dsutil.generic.RankedFingerComparator;
+import dsutil.protopeer.FingerDescriptor;
+import dsutil.protopeer.services.topology.trees.DescriptorType;
+import dsutil.protopeer.services.topology.trees.TreeType;
+import protopeer.Finger;
+import protopeer.network.IntegerNetworkAddress;
+import tree.BalanceType;
+import tree.centralized.server.TreeTopologyGenerator;
+import tree.centralized.server.TreeViewFacilitator;
+
+/**
+ * Generation of the tree of <code>numAgents</code> shuffled agents with
+ * <code>maxChildren</code> children per node, as done by the tree server after
+ * every reorganization: by <code>TreeTopologyGenerator</code>, by sorting the
+ * descriptors into a {@link TreeLayout}, and by the native generator from the
+ * permutation of the agents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TreeLayoutBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int numAgents;
+
+	@Param({ "2", "4" })
+	public int maxChildren;
+
+	private int[] ranks;
+	private Set<FingerDescriptor> peers;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.ranks = new int[this.numAgents];
+		for (int i = 0; i < this.numAgents; i++) {
+			this.ranks[i] = i;
+		}
+		TreeLayout.shuffle(this.ranks, new Random(0));
+
+		this.peers = new LinkedHashSet<>();
+		for (int i = 0; i < this.numAgents; i++) {
+			FingerDescriptor descriptor = new FingerDescriptor(new Finger(new IntegerNetworkAddress(i), null));
+			descriptor.addDescriptor(DescriptorType.RANK, (double) this.ranks[i]);
+			descriptor.addDescriptor(DescriptorType.NODE_DEGREE, this.maxChildren + 1);
+			this.peers.add(descriptor);
+		}
+	}
+
+	@Benchmark
+	public Set<Entry<FingerDescriptor, TreeViewFacilitator>> treeTopologyGenerator() {
+		TreeTopologyGenerator generator = new TreeTopologyGenerator(RankPriority.HIGH_RANK, DescriptorType.RANK,
+				TreeType.SORTED_HtL, BalanceType.WEIGHT_BALANCED);
+		return generator.generateTopology(this.peers);
+	}
+
+	@Benchmark
+	public TreeLayout sortedDescriptors() {
+		List<FingerDescriptor> order = new ArrayList<>(this.peers);
+		Collections.sort(order, new RankedFingerComparator(RankPriority.HIGH_RANK, DescriptorType.RANK));
+		int[] agents = new int[order.size()];
+		int[] capacities = new int[order.size()];
+		for (int vertex = 0; vertex < order.size(); vertex++) {
+			agents[vertex] = (int) ((IntegerNetworkAddress) order.get(vertex).getNetworkAddress()).toLongValue();
+			capacities[vertex] = (Integer) order.get(vertex).getDescriptor(DescriptorType.NODE_DEGREE) - 1;
+		}
+		return TreeLayout.connect(agents, capacities, BalanceType.WEIGHT_BALANCED);
+	}
+
+	@Benchmark
+	public TreeLayout nativeGenerator() {
+		return TreeLayout.generate(this.ranks, this.maxChildren, RankPriority.HIGH_RANK, TreeType.SORTED_HtL,
+				BalanceType.WEIGHT_BALANCED);
+	}
+
+}
@@ -226,12 +226,28 @@ public abstract class Agent<V extends DataType<V>> extends BasePeerlet {
 
     abstract void runPhase();
 
+    /**
+     * Initializes the agent as at the beginning of its active state, for runs
+     * that are not driven by the clock of the peer.
+     */
+    void initActiveState() {
+        initPhase();
+    }
+
     private void scheduleMeasurements() {
         getPeer().getMeasurementLogger().addMeasurementLoggerListener((MeasurementLog log, int epochNumber) -> {
             loggingProvider.log(log, epochNumber, this);
         });
     }
 
+    /**
+     * Logs the agent at the end of the given measurement epoch, for runs that
+     * are not driven by the clock of the peer.
+     */
+    void logMeasurementEpoch(int epochNumber) {
+        loggingProvider.log(getPeer().getMeasurementLogger().getMeasurementLog(), epochNumber, this);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     //																									BY JOVAN: //
 
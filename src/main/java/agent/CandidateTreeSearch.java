@@ -0,0 +1,172 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import agent.logging.AgentLoggingProvider;
+import data.DataType;
+import protopeer.network.NetworkAddress;
+import treestructure.TreeLayout;
+
+/**
+ * Chooses the tree of a reorganization among several candidates, instead of
+ * exploring a single random tree, see <code>ModifiableTreeServer.useCandidateSearch</code>.
+ *
+ * Every candidate forks the current plan selections of the agents: replicas of
+ * the agents start from the plans the agents have selected, are arranged in the
+ * candidate tree and run a few iterations with the {@link DirectTreeEngine}. The
+ * candidate with the lowest global cost at the end is kept, and every agent
+ * starts the iteration after the reorganization with the plan its replica has
+ * selected last, so the tree continues from the state of the best candidate.
+ *
+ * The replicas share the plans of the agents but no other state, so the
+ * candidates are evaluated concurrently. All candidates of a reorganization use
+ * the same seeds for the replicas, and the result does not depend on the number
+ * of threads.
+ *
+ * @param <V> the type of the data the agents handle
+ */
+public class CandidateTreeSearch<V extends DataType<V>> {
+
+    private final int 									numIterations;			// iterations run on every candidate
+    private final int 									numThreads;
+    private final Random 								random;
+    private final List<ModifiableIeposAgent<V>> 		agents 					= 	new ArrayList<>();
+
+    /**
+     * @param numIterations number of iterations run on every candidate
+     * @param numThreads number of candidates evaluated concurrently
+     * @param seed seed of the random numbers generator of the replicas
+     */
+    public CandidateTreeSearch(int numIterations, int numThreads, long seed) {
+        if (numIterations < 1 || numThreads < 1) {
+            throw new IllegalArgumentException("Number of iterations and threads must be positive: " + numIterations + ", " + numThreads);
+        }
+        this.numIterations = numIterations;
+        this.numThreads = numThreads;
+        this.random = new Random(seed);
+    }
+
+    public void addAgent(ModifiableIeposAgent<V> agent) {
+        this.agents.add(agent);
+    }
+
+    /**
+     * Evaluates the candidates and tells every agent the plan to start with in
+     * the best of them. Must be invoked once all agents have completed the
+     * iteration that ended with the reorganization.
+     *
+     * @param candidates the candidate trees, whose agent indices refer to positions in <code>peers</code>
+     * @param peers the network address of the agent at every index of the trees
+     * @return the index of the best candidate
+     */
+    public int selectBest(List<TreeLayout> candidates, List<NetworkAddress> peers) {
+        Map<NetworkAddress, ModifiableIeposAgent<V>> agentsByAddress = new HashMap<>();
+        for (ModifiableIeposAgent<V> agent : this.agents) {
+            agentsByAddress.put(agent.getPeer().getNetworkAddress(), agent);
+        }
+        List<ModifiableIeposAgent<V>> forked = new ArrayList<>(peers.size());
+        for (NetworkAddress peer : peers) {
+            ModifiableIeposAgent<V> agent = agentsByAddress.get(peer);
+            if (agent == null) {
+                throw new IllegalArgumentException("No agent at peer " + peer + ".");
+            }
+            forked.add(agent);
+        }
+
+        long seed = this.random.nextLong();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.numThreads, candidates.size()));
+        try {
+            List<Future<Candidate>> results = new ArrayList<>(candidates.size());
+            for (TreeLayout layout : candidates) {
+                results.add(pool.submit(() -> this.evaluate(layout, forked, seed)));
+            }
+            int best = 0;
+            Candidate bestCandidate = results.get(0).get();
+            for (int i = 1; i < results.size(); i++) {
+                Candidate candidate = results.get(i).get();
+                if (candidate.globalCost < bestCandidate.globalCost) {
+                    best = i;
+                    bestCandidate = candidate;
+                }
+            }
+            for (int i = 0; i < forked.size(); i++) {
+                forked.get(i).startWithPlan(bestCandidate.selectedPlanIDs[i]);
+            }
+            return best;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Evaluation of the candidate trees failed.", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the replicas of the agents on the candidate tree.
+     */
+    private Candidate evaluate(TreeLayout layout, List<ModifiableIeposAgent<V>> forked, long seed) {
+        Random seeds = new Random(seed);
+        List<Replica<V>> replicas = new ArrayList<>(forked.size());
+        for (ModifiableIeposAgent<V> agent : forked) {
+            replicas.add(new Replica<>(agent, this.numIterations, seeds.nextLong()));
+        }
+        new DirectTreeEngine(layout, replicas).run(this.numIterations);
+
+        Replica<V> root = replicas.get(layout.getAgent(layout.getRoot()));
+        int[] selectedPlanIDs = new int[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            selectedPlanIDs[i] = replicas.get(i).getSelectedPlanID();
+        }
+        return new Candidate(root.globalResponseCost, selectedPlanIDs);
+    }
+
+    /**
+     * Outcome of a candidate tree: the global cost after the last iteration and
+     * the plans the replicas have selected, in the order of the agent indices.
+     */
+    private static class Candidate {
+
+        private final double 							globalCost;
+        private final int[] 							selectedPlanIDs;
+
+        Candidate(double globalCost, int[] selectedPlanIDs) {
+            this.globalCost = globalCost;
+            this.selectedPlanIDs = selectedPlanIDs;
+        }
+    }
+
+    /**
+     * Agent of a candidate tree. It selects the plan of the forked agent in the
+     * first iteration and runs I-EPOS from there, without logging.
+     */
+    private static class Replica<V extends DataType<V>> extends MultiObjectiveIEPOSAgent<V> {
+
+        private final int 								startPlanID;
+
+        Replica(ModifiableIeposAgent<V> agent, int numIterations, long seed) {
+            super(numIterations, agent.getPossiblePlans(), agent.getGlobalCostFunction(), agent.getLocalCostFunction(),
+                    new AgentLoggingProvider<>(null, 0, null), seed);
+            this.startPlanID = agent.getSelectedPlanID();
+            this.setUnfairnessWeight(agent.getUnfairnessWeight());
+            this.setLocalCostWeight(agent.getLocalCostWeight());
+            this.setPlanSelector(agent.getPlanSelector());
+        }
+
+        @Override
+        void selectPlan() {
+            if (this.iteration == 0) {
+                this.setSelectedPlan(this.startPlanID);
+            } else {
+                super.selectPlan();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,353 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import data.DataType;
+import protopeer.Finger;
+import protopeer.Peer;
+import protopeer.measurement.MeasurementLogger;
+import protopeer.network.IntegerNetworkAddress;
+import protopeer.network.Message;
+import protopeer.network.NetworkAddress;
+import protopeer.network.NetworkInterface;
+import protopeer.network.NetworkInterfaceFactory;
+import protopeer.servers.bootstrap.SimplePeerIdentifierGenerator;
+import protopeer.time.Clock;
+import protopeer.time.Timer;
+import protopeer.util.quantities.Time;
+import treestructure.TreeLayout;
+
+/**
+ * Runs tree agents in-process, without the simulated network and event queue
+ * of ProtoPeer. The tree is given as a {@link TreeLayout} and every iteration
+ * is executed as plain loops over its vertices:
+ *  1. every agent advances to the next iteration
+ *  2. bottom-up phase: levels from the deepest to the root, so that the UP
+ *     messages of all children are available when a vertex is visited
+ *  3. <code>atRoot</code> at the root
+ *  4. top-down phase: levels from the root to the deepest
+ *  5. the loggers of every agent are invoked, in the order of the agent indices
+ *
+ * Once the root has decided that the tree converged, the remaining iterations
+ * only advance the iteration counters of the agents and invoke their loggers,
+ * as the idle iterations of a ProtoPeer simulation do.
+ *
+ * The agents of a level do not depend on each other: each of them reads the
+ * messages of its own children or parent, writes its own message slots and
+ * draws from its own <code>Random</code>. With more than one thread, the vertices
+ * of a level are therefore processed concurrently on a <code>ForkJoinPool</code>,
+ * and the next level starts once all of them are done. The results are the same
+ * for any number of threads. The loggers are always invoked sequentially.
+ *
+ * The agents execute exactly the same <code>up</code>, <code>atRoot</code> and
+ * <code>down</code> steps and feed their loggers with the same measurement epochs
+ * as in a ProtoPeer simulation, so both produce the same results.
+ *
+ * Optionally, the per-child state, the responses and the global response of the
+ * agents are kept in a {@link PopulationStore} instead of the agents themselves.
+ *
+ * Agents remain attached to a <code>Peer</code>, because loggers identify agents
+ * by their peer and record into its measurement log. The peers are bound to a
+ * clock whose timers never expire and to a network interface that does not
+ * transmit anything. Structural reorganization is not supported, since it is
+ * negotiated with the tree server by messages.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class DirectTreeEngine {
+
+    /**
+     * ProtoPeer runs the first iteration in measurement epoch 2, after the
+     * bootstrap and the activation of the agents, and every further iteration
+     * in the next epoch.
+     */
+    static final int 									FIRST_ITERATION_EPOCH 	= 	2;
+
+    /**
+     * Smallest range of vertices that is split into subtasks. Every agent runs
+     * a full plan selection in the bottom-up phase, so small tasks still pay off.
+     */
+    private static final int 							MIN_VERTICES_PER_TASK 	= 	8;
+
+    private final TreeLayout 							layout;
+    private final List<IterativeTreeAgent> 				agents;					// indexed by vertex
+    private final int 									numThreads;
+
+    /**
+     * Attaches the agents to peers and sets their parents and children. The
+     * agents are executed by the calling thread.
+     *
+     * @param layout the tree, whose agent indices refer to positions in <code>agents</code>
+     * @param agents the agents, ordered by their peer index
+     */
+    public DirectTreeEngine(TreeLayout layout, List<? extends Agent> agents) {
+        this(layout, agents, 1);
+    }
+
+    /**
+     * Attaches the agents to peers and sets their parents and children.
+     *
+     * @param layout the tree, whose agent indices refer to positions in <code>agents</code>
+     * @param agents the agents, ordered by their peer index
+     * @param numThreads number of threads that process the vertices of a level concurrently
+     */
+    public DirectTreeEngine(TreeLayout layout, List<? extends Agent> agents, int numThreads) {
+        if (layout.getNumVertices() != agents.size()) {
+            throw new IllegalArgumentException("Tree has " + layout.getNumVertices() + " vertices for " + agents.size() + " agents.");
+        }
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + numThreads);
+        }
+        this.layout = layout;
+        this.numThreads = numThreads;
+
+        Clock clock = new InertClock();
+        NetworkInterfaceFactory network = (measurementLogger, address) -> new InertNetworkInterface(address, measurementLogger);
+        SimplePeerIdentifierGenerator idGenerator = new SimplePeerIdentifierGenerator();
+
+        List<Finger> fingers = new ArrayList<>(agents.size());
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i);
+            if (!(agent instanceof IterativeTreeAgent)) {
+                throw new IllegalArgumentException("Agent " + i + " is not an iterative tree agent.");
+            }
+            Peer peer = new Peer(i);
+            peer.addPeerlet(agent);
+            peer.init(network, clock, new IntegerNetworkAddress(i));
+            peer.start();
+            peer.setIdentifier(idGenerator.generatePeerIdentifier(peer.getNetworkAddress()));
+            fingers.add(peer.getFinger());
+        }
+
+        this.agents = new ArrayList<>(agents.size());
+        for (int vertex = 0; vertex < layout.getNumVertices(); vertex++) {
+            IterativeTreeAgent agent = (IterativeTreeAgent) agents.get(layout.getAgent(vertex));
+            int parent = layout.getParent(vertex);
+            List<Finger> children = new ArrayList<>(layout.getNumChildren(vertex));
+            for (int c = 0; c < layout.getNumChildren(vertex); c++) {
+                children.add(fingers.get(layout.getAgent(layout.getFirstChild(vertex) + c)));
+            }
+            agent.setTreeView(parent < 0 ? null : fingers.get(layout.getAgent(parent)), children);
+            this.agents.add(agent);
+        }
+    }
+
+    /**
+     * Keeps the per-child state, the responses and the global response of all
+     * agents in a single {@link PopulationStore}. Must be invoked before
+     * {@link #run(int)}.
+     *
+     * @return the store
+     */
+    public PopulationStore usePopulationStore() {
+        int numVertices = this.layout.getNumVertices();
+        GlobalResponseSnapshot initial = null;
+        if (numVertices > 0) {
+            Agent agent = this.agents.get(0);
+            DataType response = agent.createValue();
+            initial = new GlobalResponseSnapshot(-1, response, agent.getGlobalCostFunction().calcCost(response), 0, 0);
+        }
+        PopulationStore store = new PopulationStore(numVertices, initial);
+        for (int vertex = 0; vertex < numVertices; vertex++) {
+            IterativeTreeAgent agent = this.agents.get(vertex);
+            if (!(agent instanceof MultiObjectiveIEPOSAgent)) {
+                throw new IllegalArgumentException("Agent " + agent.getPeer().getIndexNumber() + " cannot keep its state in a population store.");
+            }
+            ((MultiObjectiveIEPOSAgent) agent).attachTo(store, vertex, this.layout.getFirstChild(vertex));
+        }
+        return store;
+    }
+
+    /**
+     * Executes the given number of iterations.
+     */
+    public void run(int numIterations) {
+        ForkJoinPool pool = this.numThreads > 1 ? new ForkJoinPool(this.numThreads) : null;
+        try {
+            this.run(numIterations, pool);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private void run(int numIterations, ForkJoinPool pool) {
+        int numVertices = this.layout.getNumVertices();
+        int numLevels = this.layout.getNumLevels();
+
+        for (int i = 0; i < numVertices; i++) {
+            IterativeTreeAgent agent = this.agentOf(i);
+            agent.initActiveState();
+            agent.initRun();
+        }
+
+        IterativeTreeAgent.UpMessage[] upMsgs = new IterativeTreeAgent.UpMessage[numVertices];
+        IterativeTreeAgent.DownMessage[] downMsgs = new IterativeTreeAgent.DownMessage[numVertices];
+
+        for (int iteration = 0; iteration < numIterations; iteration++) {
+            final int currentIteration = iteration;
+            this.forEachVertex(pool, 0, numVertices, vertex -> {
+                IterativeTreeAgent agent = this.agents.get(vertex);
+                if (!agent.advanceIteration()) {
+                    throw new IllegalStateException("Agent " + agent.getPeer().getIndexNumber() + " cannot start iteration " + currentIteration + ".");
+                } else if (!agent.isTerminated()) {
+                    agent.initIteration();
+                }
+            });
+
+            int root = this.layout.getRoot();
+            if (numVertices > 0 && this.agents.get(root).isTerminated()) {
+                for (int i = 0; i < numVertices; i++) {
+                    this.agentOf(i).logMeasurementEpoch(FIRST_ITERATION_EPOCH + iteration);
+                }
+                continue;
+            }
+
+            for (int level = numLevels - 1; level >= 0; level--) {
+                this.forEachVertex(pool, this.layout.getLevelStart(level), this.layout.getLevelEnd(level), vertex -> {
+                    int first = this.layout.getFirstChild(vertex);
+                    List<IterativeTreeAgent.UpMessage> childMsgs = new ArrayList<>(this.layout.getNumChildren(vertex));
+                    for (int child = first; child < first + this.layout.getNumChildren(vertex); child++) {
+                        childMsgs.add(upMsgs[child]);
+                        upMsgs[child] = null;
+                    }
+                    upMsgs[vertex] = this.agents.get(vertex).ascend(childMsgs);
+                });
+            }
+
+            downMsgs[root] = this.agents.get(root).atRoot(upMsgs[root]);
+            upMsgs[root] = null;
+
+            for (int level = 0; level < numLevels; level++) {
+                this.forEachVertex(pool, this.layout.getLevelStart(level), this.layout.getLevelEnd(level), vertex -> {
+                    IterativeTreeAgent agent = this.agents.get(vertex);
+                    IterativeTreeAgent.DownMessage parentMsg = downMsgs[vertex];
+                    downMsgs[vertex] = null;
+                    List<IterativeTreeAgent.DownMessage> msgs = agent.descend(parentMsg);
+                    int first = this.layout.getFirstChild(vertex);
+                    for (int c = 0; c < msgs.size(); c++) {
+                        downMsgs[first + c] = msgs.get(c);
+                    }
+                    agent.finalizeDownPhase(parentMsg);
+                });
+            }
+
+            for (int i = 0; i < numVertices; i++) {
+                this.agentOf(i).logMeasurementEpoch(FIRST_ITERATION_EPOCH + iteration);
+            }
+        }
+    }
+
+    /**
+     * Applies the action to the vertices <code>start, ..., end-1</code> and
+     * returns once all of them are processed.
+     */
+    private void forEachVertex(ForkJoinPool pool, int start, int end, IntConsumer action) {
+        if (pool == null || end - start <= MIN_VERTICES_PER_TASK) {
+            for (int vertex = start; vertex < end; vertex++) {
+                action.accept(vertex);
+            }
+        } else {
+            pool.invoke(new VertexRangeAction(start, end, action));
+        }
+    }
+
+    private IterativeTreeAgent agentOf(int agentIndex) {
+        return this.agents.get(this.layout.getVertex(agentIndex));
+    }
+
+    /**
+     * Processes a range of vertices, splitting it in halves until the ranges are
+     * small enough to be processed sequentially.
+     */
+    private static class VertexRangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private final IntConsumer action;
+
+        VertexRangeAction(int start, int end, IntConsumer action) {
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= MIN_VERTICES_PER_TASK) {
+                for (int vertex = this.start; vertex < this.end; vertex++) {
+                    this.action.accept(vertex);
+                }
+            } else {
+                int middle = (this.start + this.end) >>> 1;
+                invokeAll(new VertexRangeAction(this.start, middle, this.action),
+                        new VertexRangeAction(middle, this.end, this.action));
+            }
+        }
+    }
+
+    /**
+     * Clock of peers that are driven by the engine: time stands still and
+     * timers never expire.
+     */
+    private static class InertClock extends Clock {
+
+        @Override
+        public Timer createNewTimer() {
+            return new Timer(this) {
+
+                @Override
+                public void schedule(double delay) { }
+
+                @Override
+                public void schedule(Time delay) { }
+
+                @Override
+                public void cancel() { }
+
+                @Override
+                public boolean isScheduled() {
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public double getCurrentTime() {
+            return 0;
+        }
+
+        @Override
+        public Time getTime() {
+            return Time.inMilliseconds(0);
+        }
+    }
+
+    /**
+     * Network interface of peers that are driven by the engine: it only provides
+     * the address of the peer, messages are passed by the engine directly.
+     */
+    private static class InertNetworkInterface extends NetworkInterface {
+
+        InertNetworkInterface(NetworkAddress address, MeasurementLogger measurementLogger) {
+            super(address, measurementLogger);
+        }
+
+        @Override
+        public void sendMessage(NetworkAddress destination, Message message) {
+            throw new UnsupportedOperationException("Agents run by the direct engine do not send messages.");
+        }
+
+        @Override
+        public void broadcastMessage(Message message) {
+            throw new UnsupportedOperationException("Agents run by the direct engine do not send messages.");
+        }
+    }
+
+}
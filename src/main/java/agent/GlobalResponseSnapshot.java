@@ -0,0 +1,56 @@
+package agent;
+
+import data.DataType;
+
+/**
+ * Global response of one iteration, as published by the root to all agents of
+ * a {@link PopulationStore}. A snapshot is immutable: agents refer to its
+ * response, but never modify it, and the root publishes a new snapshot in every
+ * iteration. DOWN messages only carry the version of the snapshot.
+ *
+ * @param <V> the type of the data this agent should handle
+ */
+public class GlobalResponseSnapshot<V extends DataType<V>> {
+
+    private final int 								version;
+    private final V 								response;
+    private final double 							cost;
+    private final double 							discomfortSum;
+    private final double 							discomfortSumSqr;
+
+    /**
+     * @param version the iteration in which the response was computed, -1 before the first iteration
+     * @param response the global response, which must not be modified afterwards
+     * @param cost the global cost of the response
+     * @param discomfortSum sum of the discomfort scores of all selected plans
+     * @param discomfortSumSqr sum of the squared discomfort scores of all selected plans
+     */
+    public GlobalResponseSnapshot(int version, V response, double cost, double discomfortSum, double discomfortSumSqr) {
+        this.version = version;
+        this.response = response;
+        this.cost = cost;
+        this.discomfortSum = discomfortSum;
+        this.discomfortSumSqr = discomfortSumSqr;
+    }
+
+    public int getVersion() {
+        return this.version;
+    }
+
+    public V getResponse() {
+        return this.response;
+    }
+
+    public double getCost() {
+        return this.cost;
+    }
+
+    public double getDiscomfortSum() {
+        return this.discomfortSum;
+    }
+
+    public double getDiscomfortSumSqr() {
+        return this.discomfortSumSqr;
+    }
+
+}
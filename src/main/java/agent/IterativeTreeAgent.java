@@ -39,6 +39,7 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
 
     int numIterations;
     int iteration;
+    boolean terminated;							// the tree has converged, remaining iterations are idle
 
     private final Map<Finger, UP> messageBuffer = new HashMap<>();
 
@@ -69,6 +70,15 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
         return numIterations;
     }
 
+    /**
+     * @return true if the tree has converged before the last iteration. The
+     *         remaining iterations are still counted and logged, but the agent
+     *         keeps its state instead of running them.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
     @Override
     void runActiveState() {
         if (iteration < numIterations - 1) {
@@ -84,13 +94,33 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
 
     @Override
     final void runPhase() {
+        initRun();
+        runIteration();
+    }
+
+    /**
+     * Prepares the agent for its first iteration.
+     */
+    void initRun() {
         iteration = -1;
+        terminated = false;
 
         initPhase();
-        runIteration();
     }
 
     private void runIteration() {
+        if (this.advanceIteration()) {
+            this.doIfConditionToStartNewIterationIsMet();
+        } else {
+        	this.doIfConditionToStartNewIterationIsNOTMet();
+        }
+    }
+
+    /**
+     * Moves on to the next iteration and resets the per-iteration counters.
+     * @return true if the new iteration should be started
+     */
+    boolean advanceIteration() {
         iteration++;
         
         if(this.isIterationAfterReorganization()) {
@@ -100,12 +130,7 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
         this.setNumComputed(0);
         this.setNumTransmitted(0);
 
-        if (this.conditionToStartNewIteration()) {
-            this.doIfConditionToStartNewIterationIsMet();
-        } else {
-        	this.doIfConditionToStartNewIterationIsNOTMet();
-        }
-        
+        return this.conditionToStartNewIteration();
     }
     
     /**
@@ -119,6 +144,10 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
     
     void doIfConditionToStartNewIterationIsMet() {
 //    	this.log(Level.FINER, "IterativeTreeAgent::doIfConditionToStartNewIterationIsMet()");
+    	if (this.terminated) {
+    		this.runActiveState();
+    		return;
+    	}
     	this.initIteration();
         if (this.isLeaf()) {
             this.goUp();
@@ -170,6 +199,20 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
         }
         messageBuffer.clear();
 
+        UP msg = ascend(orderedMsgs);
+        if (isRoot()) {
+            goDown(atRoot(msg));
+        } else {
+            getPeer().sendMessage(parent.getNetworkAddress(), msg);
+        }
+    }
+
+    /**
+     * Steps 2. to 6. of the bottom-up phase, except for sending the message.
+     * @param orderedMsgs - messages of the children, in the order of <code>children</code>
+     * @return UP message for the parent, or for <code>atRoot</code> at the root
+     */
+    UP ascend(List<UP> orderedMsgs) {
         if (iteration == 0) {
             numAgents = 1 + orderedMsgs.stream().map(msg -> msg.numAgents).reduce(0, (a, b) -> a + b);
         }
@@ -184,16 +227,14 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
         this.setCumComputed(this.getCumComputed() + this.getNumComputed());
         
         msg.child = getPeer().getFinger();
-        if (isRoot()) {
-            goDown(atRoot(msg));
-        } else {
+        if (!isRoot()) {
             msg.numAgents = numAgents;
             msg.cumTransmitted = this.getCumTransmitted();
             msg.cumComputed = this.getCumComputed();
             this.setNumTransmitted(this.getNumTransmitted() + msg.getNumTransmitted());
             this.setCumTransmitted(this.getCumTransmitted() + msg.getNumTransmitted());
-            getPeer().sendMessage(parent.getNetworkAddress(), msg);
         }
+        return msg;
     }
 
     /**
@@ -206,6 +247,20 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
      * @param parentMsg
      */
     private void goDown(DOWN parentMsg) {
+        List<DOWN> msgs = descend(parentMsg);
+        for (int i = 0; i < msgs.size(); i++) {
+            getPeer().sendMessage(children.get(i).getNetworkAddress(), msgs.get(i));
+        }
+        
+        this.finalizeDownPhase(parentMsg);
+    }
+
+    /**
+     * Updates the counters and creates the DOWN messages of the top-down phase, without sending them.
+     * @param parentMsg
+     * @return DOWN messages for the children, in the order of <code>children</code>
+     */
+    List<DOWN> descend(DOWN parentMsg) {
         if (!isRoot()) {
             numAgents = parentMsg.numAgents;
             this.setNumTransmitted(this.getNumTransmitted() + parentMsg.getNumTransmitted());
@@ -224,11 +279,8 @@ public abstract class IterativeTreeAgent<V 		extends DataType<V>,
             msg.cumComputed = this.getCumComputed();
             this.setNumTransmitted(this.getNumTransmitted() + msg.getNumTransmitted());
             this.setCumTransmitted(this.getCumTransmitted() + msg.getNumTransmitted());
-            
-            getPeer().sendMessage(children.get(i).getNetworkAddress(), msg);
         }
-        
-        this.finalizeDownPhase(parentMsg);
+        return msgs;
     }
 
     abstract void initPhase();
@@ -1,6 +1,7 @@
 package agent;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 import java.util.logging.Level;
 
@@ -11,6 +12,7 @@ import config.Configuration;
 import data.DataType;
 import data.Plan;
 import func.CostFunction;
+import protopeer.Finger;
 import treestructure.ModifiableTreeClient;
 import treestructure.ModifiableTreeProvider;
 import treestructure.reorganizationstrategies.ReorganizationConvergence;
@@ -29,6 +31,11 @@ import treestructure.reorganizationstrategies.ReorganizationStrategy;
  * This class basically just overrides several methods that implement conditions, and generates DownMessage
  * that has field that broadcasts decision of the root if reorganization should take place.
  * 
+ * With <code>subtreeSwaps</code> greater than 0, the tree is not rebuilt. Instead, the root requests the
+ * server to swap subtrees, and only the agents whose parent or children change receive new views. All agents
+ * stay operational and keep their state; the swapped subtrees report their previous responses to their new
+ * parents, which correct their previous aggregated state along the paths to the root.
+ * 
  * @author jovan
  *
  * @param <V> type of data this class should operate on
@@ -40,9 +47,12 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
         OPERATIONAL
     }
 	
-	private int						planToStartWithID;
+	private int						planToStartWithID;		// plan selected after reorganization, -1 if chosen by the strategy
 	private int						reorganizationIteration;
 	private boolean					shouldReorganize;
+	private int						downIteration = -1;		// last iteration whose DOWN phase preceded subtree swaps
+	private Finger					pendingParent;			// view received from swapped subtrees, not yet applied
+	private List<Finger>			pendingChildren;
 	
 	private Configuration			config;
 	private AgentState 				state;	
@@ -53,11 +63,19 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 								List<Plan<V>> possiblePlans, 								
 								AgentLoggingProvider<? extends MultiObjectiveIEPOSAgent<V>> loggingProvider
 								) {
+		this(config, possiblePlans, loggingProvider, config.simulationRNG.nextLong());
+	}
+	
+	public ModifiableIeposAgent(Configuration config,								
+								List<Plan<V>> possiblePlans, 								
+								AgentLoggingProvider<? extends MultiObjectiveIEPOSAgent<V>> loggingProvider,
+								long seed) {
 		
 		super(Configuration.numIterations, possiblePlans, (CostFunction<V>) config.globalCostFunc, 
-			  config.localCostFunc, loggingProvider, config.simulationRNG.nextLong());
+			  config.localCostFunc, loggingProvider, seed);
 		this.state = AgentState.REORGANIZING;
 		this.shouldReorganize = false;
+		this.planToStartWithID = -1;
 		this.config = config;
 		this.initStrategy();
 	}
@@ -152,6 +170,43 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 		this.iterationAfterReorganization = (this.iteration == this.numIterations) ? 0 : this.iteration + 1;		
 	}
 	
+	@Override
+	/**
+	 * Views received while the agent is operational result from swapped subtrees. They are applied
+	 * once the agent has completed the DOWN phase of the current iteration, so that it takes its new
+	 * place in the tree from the next iteration on.
+	 */
+	public void setTreeView(Finger parent, List<Finger> children) {
+		if(this.state == AgentState.REORGANIZING) {
+			super.setTreeView(parent, children);
+			return;
+		}
+		this.pendingParent = parent;
+		this.pendingChildren = children;
+		if(this.downIteration == this.iteration) {
+			this.applySwappedTreeView();
+		}
+	}
+	
+	/**
+	 * Replaces parent and children by the pending view, if any. An agent whose parent has changed
+	 * is the root of a swapped subtree, so it reports the previous response of its subtree in the
+	 * next UP phase. A child that only moves to another index under the same parent takes its
+	 * state at the parent along.
+	 */
+	private void applySwappedTreeView() {
+		if(this.pendingChildren == null) {
+			return;
+		}
+		if(!Objects.equals(this.parent, this.pendingParent)) {
+			this.reportPrevSubtree = true;
+		}
+		this.parent = this.pendingParent;
+		this.replaceChildren(this.pendingChildren);
+		this.pendingParent = null;
+		this.pendingChildren = null;
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	//																								UP PHASE
 
@@ -191,8 +246,21 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 		return condition;
 	}
 	
+	/**
+	 * Sets the plan this agent selects in the iteration after the next reorganization, as
+	 * determined by a <code>CandidateTreeSearch</code>. It takes precedence over the strategy.
+	 */
+	void startWithPlan(int planID) {
+		this.planToStartWithID = planID;
+	}
+	
 	@Override
 	void selectPlan() {
+		if(this.isIterationAfterReorganization() && this.planToStartWithID != -1) {
+			this.setSelectedPlan(this.planToStartWithID);
+			this.planToStartWithID = -1;
+			return;
+		}
 		this.strategy.selectPlan();        
     }
 	
@@ -201,7 +269,13 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 
 	@Override
 	DownMessage atRoot(UpMessage rootMsg) {
-		this.globalResponse.set(rootMsg.subtreeResponse);
+		if (this.store != null) {
+			int version = this.publishGlobalResponse(rootMsg);
+			this.referGlobalResponse(this.store.getGlobalResponse(version));
+			this.iterationEndedAtRoot();
+			return new ModifiableDownMessage(version, true, this.shouldReorganize());
+		}
+		this.setGlobalResponse(rootMsg.subtreeResponse);
 		this.iterationEndedAtRoot();
 		return new ModifiableDownMessage(rootMsg.subtreeResponse, true, rootMsg.discomfortSum, rootMsg.discomfortSumSqr, this.shouldReorganize());
 	}
@@ -220,9 +294,21 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 	@Override
 	/**
 	* WARNING: global response here is cloned, even though it wasn't done originally!
+	* Agents with a <code>PopulationStore</code> only send the version of the global response.
 	*/
 	DownMessage generateDownMessage(int i) {
-		return new ModifiableDownMessage(this.globalResponse.cloneThis(), this.approvals.get(i), this.globalDiscomfortSum, this.globalDiscomfortSumSqr, this.shouldReorganize());
+		if (this.store != null) {
+			return new ModifiableDownMessage(this.globalResponseVersion, this.approvals[this.childOffset + i], this.shouldReorganize());
+		}
+		return new ModifiableDownMessage(this.globalResponse.cloneThis(), this.approvals[this.childOffset + i], this.globalDiscomfortSum, this.globalDiscomfortSumSqr, this.shouldReorganize());
+	}
+
+	@Override
+	/**
+	* The tree does not terminate in an iteration that ends with a reorganization.
+	*/
+	boolean hasTreeConverged() {
+		return super.hasTreeConverged() && !this.shouldReorganize();
 	}
 
 	@Override
@@ -247,7 +333,9 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 		if(parentMsg instanceof ModifiableIeposAgent.ModifiableDownMessage) {
 			ModifiableDownMessage msgFromParent = (ModifiableDownMessage)parentMsg;
 			this.strategy.screenshotAfterDOWNphase();
-			if(msgFromParent.shouldReorganize()) {
+			if(msgFromParent.shouldReorganize() && this.config.subtreeSwaps > 0) {
+				this.actionsToSwapSubtrees();
+			} else if(msgFromParent.shouldReorganize()) {
 				this.actionsToReorganize();
 			} else {
 				// do nothing
@@ -261,12 +349,32 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 	*/
 	private void actionsToReorganize() {
 		this.strategy.prepareForReorganization();
+		if(this.isRoot() && this.config.batchedTreeViews) {
+			this.getTreeClient().requestTreeViewBatch();
+		}
 		this.parent = null;
 		this.children.clear();
 		this.state = AgentState.REORGANIZING;
 		this.requestNewTreeView();
 	}
 
+	/**
+	* Sequence of actions each node takes when notified that subtrees are to be swapped:
+	*  - the root requests the swaps from TreeServer
+	*  - the view received before or during this DOWN phase is applied, otherwise it is applied on arrival
+	* The agent stays operational and does not reset.
+	*/
+	private void actionsToSwapSubtrees() {
+		this.strategy.prepareForReorganization();
+		this.reorganizationIteration = this.iteration;
+		this.downIteration = this.iteration;
+		this.shouldReorganize = false;
+		if(this.isRoot()) {
+			this.getTreeClient().requestSubtreeSwaps();
+		}
+		this.applySwappedTreeView();
+	}
+
 	/**
 	* Gives the flag that is passed on during DOWN phase from root to children
 	* and that indicates if reorganization of the tree structure is about to take place
@@ -300,6 +408,11 @@ public class ModifiableIeposAgent<V extends DataType<V>> extends MultiObjectiveI
 			this.reorganization = reorganization;
 		}
 	
+		public ModifiableDownMessage(int version, boolean approved, boolean reorganization) {
+			super(version, approved);
+			this.reorganization = reorganization;
+		}
+	
 		public boolean shouldReorganize() {
 			return this.reorganization;
 		}
@@ -1,7 +1,7 @@
 package agent;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.stream.IntStream;
@@ -13,6 +13,7 @@ import data.DataType;
 import data.Plan;
 import func.CostFunction;
 import func.PlanCostFunction;
+import protopeer.Finger;
 
 /**
  * 
@@ -37,15 +38,22 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     double												prevAggregatedDiscomfortSum		=	0;
     double 												prevAggregatedDiscomfortSumSqr	=	0;
     
-    // per child info
-    final List<V> 										subtreeResponses 				= 	new ArrayList<>();
-    final List<V> 										prevSubtreeResponses 			= 	new ArrayList<>();
-    final List<Boolean> 								approvals 						= 	new ArrayList<>();
-    
-    final List<Double>									subtreeDiscomfortSum			=	new ArrayList<>();
-    final List<Double>									subtreeDiscomfortSumSqr			=	new ArrayList<>();
-    final List<Double>									prevSubtreeDiscomfortSum		=	new ArrayList<>();
-    final List<Double>									prevSubtreeDiscomfortSumSqr		=	new ArrayList<>();
+    // per child info, the rows of the children with a PopulationStore
+    List<V> 											subtreeResponses 				= 	new ArrayList<>();
+    List<V> 											prevSubtreeResponses 			= 	new ArrayList<>();
+    V													reportedResponse				=	null;	// row of the response sent to the parent in the store
+    
+    // per child info, child i at position childOffset + i, see PopulationStore
+    boolean[] 											approvals 						= 	new boolean[0];
+    double[]											subtreeDiscomfortSum			=	new double[0];
+    double[]											subtreeDiscomfortSumSqr			=	new double[0];
+    double[]											prevSubtreeDiscomfortSum		=	new double[0];
+    double[]											prevSubtreeDiscomfortSumSqr		=	new double[0];
+    int													childOffset						=	0;
+    PopulationStore<V>									store							=	null;
+    
+    double												globalResponseCost;				// global cost of globalResponse
+    int													globalResponseVersion			=	-1;	// version of globalResponse in the store
 
     // misc
     Optimization 										optimization;
@@ -58,6 +66,13 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     
     
     private boolean										convergenceReached				=	false;
+    boolean												reportPrevSubtree				=	false;	// the previous response of the subtree is sent to a new parent
+    
+    // early termination, decided by the root
+    double												terminationTolerance			=	0;
+    int													terminationPatience				=	0;		// 0 never terminates early
+    double												prevRootGlobalCost				=	Double.NaN;
+    int													numConvergedIterations			=	0;
 
     /**
      * Creates a new IeposAgent. Using the same RNG seed will result in the same
@@ -85,6 +100,31 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         this.planSelector = new MultiObjectiveIeposPlanSelector<>();
     }
     
+    /**
+     * Keeps the per-child state, the responses and the global response in the
+     * given store instead of the agent, see {@link PopulationStore}. Must be
+     * invoked before the agent is initialized, once its children are known.
+     *
+     * @param store the store of the whole tree
+     * @param vertex position of this agent in the store
+     * @param firstChild position of the first child of this agent in the store
+     */
+    void attachTo(PopulationStore<V> store, int vertex, int firstChild) {
+        int numChildren = this.children.size();
+        this.store = store;
+        this.childOffset = firstChild;
+        this.aggregatedResponse = store.aggregatedResponses.get(vertex);
+        this.prevAggregatedResponse = store.prevAggregatedResponses.get(vertex);
+        this.reportedResponse = store.subtreeResponses.get(vertex);
+        this.subtreeResponses = store.subtreeResponses.subList(firstChild, firstChild + numChildren);
+        this.prevSubtreeResponses = store.prevSubtreeResponses.subList(firstChild, firstChild + numChildren);
+        this.approvals = store.approvals;
+        this.subtreeDiscomfortSum = store.subtreeDiscomfortSums;
+        this.subtreeDiscomfortSumSqr = store.subtreeDiscomfortSumSqrs;
+        this.prevSubtreeDiscomfortSum = store.prevSubtreeDiscomfortSums;
+        this.prevSubtreeDiscomfortSumSqr = store.prevSubtreeDiscomfortSumSqrs;
+    }
+    
     public void setLocalCostWeight(double beta) {
     	this.beta = beta;
     	this.delta = beta;
@@ -99,6 +139,20 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     	return this.beta;
     }
     
+    /**
+     * The tree terminates before the last iteration once the global cost has not
+     * changed by more than <code>tolerance</code> for <code>patience</code>
+     * consecutive iterations. The root decides and informs all agents in the
+     * DOWN phase.
+     *
+     * @param tolerance the largest absolute change of the global cost that counts as converged
+     * @param patience number of converged iterations before termination, 0 never terminates early
+     */
+    public void setTerminationCriterion(double tolerance, int patience) {
+    	this.terminationTolerance = tolerance;
+    	this.terminationPatience = patience;
+    }
+    
     public double getUnfairnessWeight() {
     	return this.alpha;
     }
@@ -193,15 +247,17 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
      */
     void initPhase() {
 //    	this.log(Level.FINER, "MultiObjectiveIeposAgent::initPhase()");
-        this.aggregatedResponse 	= createValue();
-        this.prevAggregatedResponse = createValue();
-        this.globalResponse 		= createValue();
+        this.initAggregatedResponses();
+        this.initGlobalResponse();
         this.prevSelectedPlan 		= createPlan();
         this.prevSelectedPlanID		= -1;
         
         this.globalDiscomfortSum	= 0;
         this.globalDiscomfortSumSqr	= 0;
         
+        this.prevRootGlobalCost		= Double.NaN;
+        this.numConvergedIterations	= 0;
+        
 //        this.log(Level.FINER, "prevSelectedPlan's score is: " + this.prevSelectedPlan.getScore());
     }
 
@@ -218,6 +274,7 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
      */
     void initIteration() {
     	this.log(Level.FINER, "MultiObjectiveIeposAgent::initIteration()");
+    	this.ensureChildSlots();
     	if(!this.isLeaf()) {
     		if(this.children.size() > 1) {
     			this.log(Level.FINER, "Children: " + this.children.get(0) + ", " + this.children.get(1));
@@ -229,20 +286,17 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             this.prevSelectedPlan = this.selectedPlan;
             this.prevSelectedPlanID = this.selectedPlanID;
             this.prevAggregatedResponse.set(this.aggregatedResponse);
-            this.prevSubtreeResponses.clear();
-            this.prevSubtreeResponses.addAll(this.subtreeResponses);
+            this.copyResponses(this.subtreeResponses, this.prevSubtreeResponses);
 
             this.selectedPlan = null;
             this.aggregatedResponse.reset();
-            this.subtreeResponses.clear();            
-            this.approvals.clear();            
+            if (this.store == null) {
+                this.subtreeResponses.clear();
+            }
             
-            this.prevSubtreeDiscomfortSum.clear();
-            this.prevSubtreeDiscomfortSum.addAll(this.subtreeDiscomfortSum);
-            this.prevSubtreeDiscomfortSumSqr.clear();
-            this.prevSubtreeDiscomfortSumSqr.addAll(this.subtreeDiscomfortSumSqr);
-            this.subtreeDiscomfortSum.clear();
-            this.subtreeDiscomfortSumSqr.clear();
+            int numChildren = this.children.size();
+            System.arraycopy(this.subtreeDiscomfortSum, this.childOffset, this.prevSubtreeDiscomfortSum, this.childOffset, numChildren);
+            System.arraycopy(this.subtreeDiscomfortSumSqr, this.childOffset, this.prevSubtreeDiscomfortSumSqr, this.childOffset, numChildren);
             
             this.prevAggregatedDiscomfortSum = this.aggregatedDiscomfortSum;
             this.prevAggregatedDiscomfortSumSqr = this.aggregatedDiscomfortSumSqr;
@@ -252,20 +306,15 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             this.convergenceReached = false;
             
             this.log(Level.FINER, "initIteration:");
-            if(this.isLeaf()) {
-            	this.log(Level.FINER, "prevSubtreeDiscomfortSum:" + " empty = " + this.prevSubtreeDiscomfortSum.isEmpty());
-            	this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr:" + " empty = " + this.prevSubtreeDiscomfortSumSqr.isEmpty());
-            } else {
+            if(!this.isLeaf()) {
             	if(this.children.size() > 1) {
-            		this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum.get(0) + ", " + this.prevSubtreeDiscomfortSum.get(1));
-                    this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr: " + this.prevSubtreeDiscomfortSumSqr.get(0) + ", " + this.prevSubtreeDiscomfortSumSqr.get(1));
+            		this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum[this.childOffset] + ", " + this.prevSubtreeDiscomfortSum[this.childOffset + 1]);
+                    this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr: " + this.prevSubtreeDiscomfortSumSqr[this.childOffset] + ", " + this.prevSubtreeDiscomfortSumSqr[this.childOffset + 1]);
             	} else {
-            		this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum.get(0));
-                    this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr: " + this.prevSubtreeDiscomfortSumSqr.get(0));
+            		this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum[this.childOffset]);
+                    this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr: " + this.prevSubtreeDiscomfortSumSqr[this.childOffset]);
             	}                
             }
-            this.log(Level.FINER, "subtreeDiscomfortSum:" + " empty = " + this.subtreeDiscomfortSum.isEmpty());
-        	this.log(Level.FINER, "subtreeDiscomfortSumSqr:" + " empty = " + this.subtreeDiscomfortSumSqr.isEmpty());
         	this.log(Level.FINER, "prevAggregatedDiscomfortSum: " + this.prevAggregatedDiscomfortSum);
         	this.log(Level.FINER, "prevAggregatedDiscomfortSumSqr: " + this.prevAggregatedDiscomfortSumSqr);
         	this.log(Level.FINER, "aggregatedDiscomfortSum: " + this.aggregatedDiscomfortSum);
@@ -286,21 +335,28 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
 
     @Override
     UpMessage up(List<UpMessage> childMsgs) {
-        for (UpMessage msg : childMsgs) {
-            this.subtreeResponses.add(msg.subtreeResponse);
-            this.subtreeDiscomfortSum.add(msg.discomfortSum);
-            this.subtreeDiscomfortSumSqr.add(msg.discomfortSumSqr);
+        this.ensureChildSlots();
+        for (int i = 0; i < childMsgs.size(); i++) {
+            UpMessage msg = childMsgs.get(i);
+            if (this.store == null) {
+                this.subtreeResponses.add(msg.subtreeResponse);    // in the store, the child has written its row
+            }
+            this.subtreeDiscomfortSum[this.childOffset + i] = msg.discomfortSum;
+            this.subtreeDiscomfortSumSqr[this.childOffset + i] = msg.discomfortSumSqr;
+            if (msg.prevSubtreeResponse != null) {
+                this.replacePrevSubtree(i, msg);
+            }
         }
         this.log(Level.FINER, "up:");
 //        this.log(Level.FINER, "Number of agents is: " + this.numAgents);
         try {
         	if(!this.isLeaf()) {
         		if(this.children.size() > 1) {
-        			this.log(Level.FINER, "subtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0) + ", " + this.subtreeDiscomfortSum.get(1));
-                    this.log(Level.FINER, "subtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr.get(0) + ", " + this.subtreeDiscomfortSumSqr.get(1));
+        			this.log(Level.FINER, "subtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset] + ", " + this.subtreeDiscomfortSum[this.childOffset + 1]);
+                    this.log(Level.FINER, "subtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr[this.childOffset] + ", " + this.subtreeDiscomfortSumSqr[this.childOffset + 1]);
         		} else {
-        			this.log(Level.FINER, "subtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0));
-                    this.log(Level.FINER, "subtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr.get(0));
+        			this.log(Level.FINER, "subtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset]);
+                    this.log(Level.FINER, "subtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr[this.childOffset]);
         		}
             	
             } else {
@@ -321,10 +377,86 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         return this.informParent();
     }
 
+    /**
+     * Replaces the previous subtree response of child i by the one the child reports,
+     * because its subtree has been swapped in from another parent, and corrects the
+     * previous aggregated response and discomfort sums accordingly. The correction is
+     * passed on to the parent of this agent, so that only the path to the root updates
+     * its state.
+     */
+    private void replacePrevSubtree(int i, UpMessage msg) {
+        int slot = this.childOffset + i;
+        this.prevAggregatedResponse.subtract(this.prevSubtreeResponses.get(i));
+        this.prevAggregatedResponse.add(msg.prevSubtreeResponse);
+        this.setResponse(this.prevSubtreeResponses, i, msg.prevSubtreeResponse);
+        
+        this.prevAggregatedDiscomfortSum += msg.prevDiscomfortSum - this.prevSubtreeDiscomfortSum[slot];
+        this.prevAggregatedDiscomfortSumSqr += msg.prevDiscomfortSumSqr - this.prevSubtreeDiscomfortSumSqr[slot];
+        this.prevSubtreeDiscomfortSum[slot] = msg.prevDiscomfortSum;
+        this.prevSubtreeDiscomfortSumSqr[slot] = msg.prevDiscomfortSumSqr;
+        
+        this.reportPrevSubtree = true;
+    }
+
+    /**
+     * Replaces the children by those of a swapped subtree view. The state kept per child
+     * moves along with the children that remain, since a child keeps reporting only when
+     * its parent changes. The slots of the arriving children take the state of the leaving
+     * ones, which the arriving children replace by reporting their previous subtrees.
+     */
+    void replaceChildren(List<Finger> newChildren) {
+        int numChildren = this.children.size();
+        if (newChildren.size() != numChildren || this.subtreeResponses.size() != numChildren) {
+            this.children.clear();
+            this.children.addAll(newChildren);
+            return;
+        }
+        List<V> responses = new ArrayList<>();
+        for (V response : this.subtreeResponses) {
+            responses.add(this.store == null ? response : response.cloneThis());
+        }
+        double[] discomfortSums = Arrays.copyOfRange(this.subtreeDiscomfortSum, this.childOffset, this.childOffset + numChildren);
+        double[] discomfortSumSqrs = Arrays.copyOfRange(this.subtreeDiscomfortSumSqr, this.childOffset, this.childOffset + numChildren);
+        
+        List<Integer> leaving = new ArrayList<>();
+        for (int i = 0; i < numChildren; i++) {
+            if (!newChildren.contains(this.children.get(i))) {
+                leaving.add(i);
+            }
+        }
+        int[] source = new int[numChildren];
+        for (int j = 0; j < numChildren; j++) {
+            int i = this.children.indexOf(newChildren.get(j));
+            source[j] = i >= 0 ? i : leaving.remove(0);
+        }
+        for (int j = 0; j < numChildren; j++) {
+            this.setResponse(this.subtreeResponses, j, responses.get(source[j]));
+            this.subtreeDiscomfortSum[this.childOffset + j] = discomfortSums[source[j]];
+            this.subtreeDiscomfortSumSqr[this.childOffset + j] = discomfortSumSqrs[source[j]];
+        }
+        this.children.clear();
+        this.children.addAll(newChildren);
+    }
+
     @Override
     DownMessage atRoot(UpMessage rootMsg) {
+        if (this.store != null) {
+            return new DownMessage(this.publishGlobalResponse(rootMsg), true);   // root always accepts
+        }
         return new DownMessage(rootMsg.subtreeResponse, true, rootMsg.discomfortSum, rootMsg.discomfortSumSqr);   // root always accepts
     }
+    
+    /**
+     * Publishes the aggregated response of the whole tree as the global response
+     * of this iteration to all agents of the <code>PopulationStore</code>.
+     * @return the version of the published global response
+     */
+    int publishGlobalResponse(UpMessage rootMsg) {
+        V response = rootMsg.subtreeResponse.cloneThis();    // the row of the root changes in the next iteration
+        double cost = this.getGlobalCostFunction().calcCost(response);
+        this.store.publishGlobalResponse(new GlobalResponseSnapshot<>(this.iteration, response, cost, rootMsg.discomfortSum, rootMsg.discomfortSumSqr));
+        return this.iteration;
+    }
 
     @Override
     List<DownMessage> down(DownMessage parentMsg) {
@@ -332,9 +464,31 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         this.updateGlobalDiscomfortScores(parentMsg);
         this.approveOrRejectChanges(parentMsg);
         this.processDownMessageMore(parentMsg);
+        this.terminated = this.parent == null ? this.hasTreeConverged() : parentMsg.terminated;
         return this.informChildren();
     }
     
+    /**
+     * Invoked at the root once the new global response is known.
+     * @return true if the tree should terminate after this iteration
+     */
+    boolean hasTreeConverged() {
+    	if (this.terminationPatience <= 0) {
+    		return false;
+    	}
+    	if (Math.abs(this.globalResponseCost - this.prevRootGlobalCost) <= this.terminationTolerance) {
+    		this.numConvergedIterations++;
+    	} else {
+    		this.numConvergedIterations = 0;
+    	}
+    	this.prevRootGlobalCost = this.globalResponseCost;
+    	if (this.numConvergedIterations >= this.terminationPatience) {
+    		this.log(Level.INFO, "Converged in iteration " + this.iteration + ", terminating.");
+    		return true;
+    	}
+    	return false;
+    }
+    
     @Override
     void finalizeDownPhase(DownMessage parentMsg) { 
     		//TODO for further implementations.
@@ -346,35 +500,13 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     private void aggregateExtended() {
 //    	System.out.println("EXTENDED!");
         if (this.isIterationAfterReorganization()) {
-            for (int i = 0; i < this.children.size(); i++) {
-                approvals.add(true);
-            }
+            Arrays.fill(this.approvals, this.childOffset, this.childOffset + this.children.size(), true);
         } else if (children.size() > 0) {
-            List<List<V>> 			responsesPerChild			=	new ArrayList<>();
-            List<List<Double>> 		discomfortSumPerChild		=	new ArrayList<>();
-            List<List<Double>>		discomfortSumSqrPerChild	=	new ArrayList<>();
-            
-            for (int i = 0; i < this.children.size(); i++) {
-                List<V> responseChoices = new ArrayList<>();
-                List<Double> discomfortSumChoices = new ArrayList<>();
-                List<Double> discomfortSumSqrChoices = new ArrayList<>();
-                
-                responseChoices.add(this.prevSubtreeResponses.get(i));
-                responseChoices.add(this.subtreeResponses.get(i));
-                discomfortSumChoices.add(this.prevSubtreeDiscomfortSum.get(i));
-                discomfortSumChoices.add(this.subtreeDiscomfortSum.get(i));
-                discomfortSumSqrChoices.add(this.prevSubtreeDiscomfortSumSqr.get(i));
-                discomfortSumSqrChoices.add(this.subtreeDiscomfortSumSqr.get(i));
-                
-                responsesPerChild.add(responseChoices);
-                discomfortSumPerChild.add(discomfortSumChoices);
-                discomfortSumSqrPerChild.add(discomfortSumSqrChoices);
-            }
-            
-            List<V> 		responseCombinations 			= this.optimization.calcAllCombinations(responsesPerChild);
-            List<Double> 	discomfortSumCombinations		= this.optimization.calculateAllCombinationsForDiscomfortScores(discomfortSumPerChild);
-            List<Double>	discomfortSumSqrCombinations	= this.optimization.calculateAllCombinationsForDiscomfortScores(discomfortSumSqrPerChild);
-            
+            int numChildren = this.children.size();
+            double[] prevDiscomfortSums = Arrays.copyOfRange(this.prevSubtreeDiscomfortSum, this.childOffset, this.childOffset + numChildren);
+            double[] discomfortSums = Arrays.copyOfRange(this.subtreeDiscomfortSum, this.childOffset, this.childOffset + numChildren);
+            double[] prevDiscomfortSumSqrs = Arrays.copyOfRange(this.prevSubtreeDiscomfortSumSqr, this.childOffset, this.childOffset + numChildren);
+            double[] discomfortSumSqrs = Arrays.copyOfRange(this.subtreeDiscomfortSumSqr, this.childOffset, this.childOffset + numChildren);
             
             V 		othersResponse 			= this.globalResponse.cloneThis();
             double 	othersDiscomfortSum		= this.globalDiscomfortSum;
@@ -383,18 +515,21 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             for (V prevSubtreeResponce : this.prevSubtreeResponses) {
                 othersResponse.subtract(prevSubtreeResponce);
             }
-            for(Double prevDiscomfortResponse : this.prevSubtreeDiscomfortSum) {
+            for(double prevDiscomfortResponse : prevDiscomfortSums) {
             	othersDiscomfortSum -= prevDiscomfortResponse;
             }
-            for(Double prevDiscomfortResponse : this.prevSubtreeDiscomfortSumSqr) {
+            for(double prevDiscomfortResponse : prevDiscomfortSumSqrs) {
             	othersDiscomfortSumSqr -= prevDiscomfortResponse;
             }
                        
             
-            int selectedCombination = this.optimization.argmin(globalCostFunc, 
-            												   responseCombinations,
-            												   discomfortSumCombinations,
-            												   discomfortSumSqrCombinations, 
+            int selectedCombination = this.optimization.argminCombinations(globalCostFunc, 
+            												   this.prevSubtreeResponses,
+            												   this.subtreeResponses,
+            												   prevDiscomfortSums,
+            												   discomfortSums,
+            												   prevDiscomfortSumSqrs,
+            												   discomfortSumSqrs,
             												   othersResponse,
             												   othersDiscomfortSum,
             												   othersDiscomfortSumSqr,
@@ -402,11 +537,10 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             												   this.getLocalCostWeight(),
             												   this.numAgents);
             
-            this.setNumComputed(this.getNumComputed() + responseCombinations.size());
+            this.setNumComputed(this.getNumComputed() + (1 << numChildren));
             
-            List<Integer> selections = this.optimization.combinationToSelections(selectedCombination, responsesPerChild);
-            for (int selection : selections) {
-                this.approvals.add(selection == 1);
+            for (int i = 0; i < numChildren; i++) {
+                this.approvals[this.childOffset + i] = Optimization.isAccepted(selectedCombination, i);
             }
             
         } else {
@@ -417,7 +551,7 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         if(this.isLeaf()) {
         	
         } else {
-        	if(!this.prevSubtreeDiscomfortSum.isEmpty()) {
+        	if(this.conditionForInitializingIteration()) {
         		
 //        		if(this.getPeer().getIndexNumber() == 189) {
 //        			System.out.println("NUMBER OF CHILDREN >>>-->>> : " + this.children.size());
@@ -428,39 +562,40 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
 //        		}
         		
         		if(this.children.size() > 1) {
-        			this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum.get(0) + ", " + this.prevSubtreeDiscomfortSum.get(1));
+        			this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum[this.childOffset] + ", " + this.prevSubtreeDiscomfortSum[this.childOffset + 1]);
         		} else {
-        			this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum.get(0));
+        			this.log(Level.FINER, "prevSubtreeDiscomfortSum: " + this.prevSubtreeDiscomfortSum[this.childOffset]);
         		}
         		
 //                this.log(Level.FINER, "prevSubtreeDiscomfortSumSqr: " + this.prevSubtreeDiscomfortSumSqr.get(0) + ", " + this.prevSubtreeDiscomfortSumSqr.get(1));
         	}     
         	if(this.children.size() > 1) {
-                this.log(Level.FINER, "newsubtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0) + ", " + this.subtreeDiscomfortSum.get(1));
+                this.log(Level.FINER, "newsubtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset] + ", " + this.subtreeDiscomfortSum[this.childOffset + 1]);
         	} else {
-                this.log(Level.FINER, "newsubtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0));
+                this.log(Level.FINER, "newsubtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset]);
         	}
 //            this.log(Level.FINER, "newsubtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr.get(0) + ", " + this.subtreeDiscomfortSumSqr.get(1));
         }
          
         for (int i = 0; i < this.children.size(); i++) {
-            V prelSubtreeResponse = this.approvals.get(i) ? 
+            int slot = this.childOffset + i;
+            V prelSubtreeResponse = this.approvals[slot] ? 
             						this.subtreeResponses.get(i) : 
             						this.prevSubtreeResponses.get(i);
-            double prelDiscomfortSum = this.approvals.get(i) ? 
-            						   this.subtreeDiscomfortSum.get(i) : 
-            						   this.prevSubtreeDiscomfortSum.get(i);
-            double prelDiscomfortSumSqr = this.approvals.get(i) ? 
-            							  this.subtreeDiscomfortSumSqr.get(i) : 
-            							  this.prevSubtreeDiscomfortSumSqr.get(i);
+            double prelDiscomfortSum = this.approvals[slot] ? 
+            						   this.subtreeDiscomfortSum[slot] : 
+            						   this.prevSubtreeDiscomfortSum[slot];
+            double prelDiscomfortSumSqr = this.approvals[slot] ? 
+            							  this.subtreeDiscomfortSumSqr[slot] : 
+            							  this.prevSubtreeDiscomfortSumSqr[slot];
             							  
-            this.subtreeResponses.set(i, prelSubtreeResponse);
+            this.setResponse(this.subtreeResponses, i, prelSubtreeResponse);
             this.aggregatedResponse.add(prelSubtreeResponse);
             
-            this.subtreeDiscomfortSum.set(i, prelDiscomfortSum);
+            this.subtreeDiscomfortSum[slot] = prelDiscomfortSum;
             this.aggregatedDiscomfortSum += prelDiscomfortSum;
             
-            this.subtreeDiscomfortSumSqr.set(i, prelDiscomfortSumSqr);
+            this.subtreeDiscomfortSumSqr[slot] = prelDiscomfortSumSqr;
             this.aggregatedDiscomfortSumSqr += prelDiscomfortSumSqr;
         }
         
@@ -468,11 +603,11 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         	
         } else {
         	if(this.children.size() > 1) {
-        		this.log(Level.FINER, "approvals: " + this.approvals.get(0) + ", " + this.approvals.get(1));
-                this.log(Level.FINER, "preliminary approved SubtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0) + ", " + this.subtreeDiscomfortSum.get(1));
+        		this.log(Level.FINER, "approvals: " + this.approvals[this.childOffset] + ", " + this.approvals[this.childOffset + 1]);
+                this.log(Level.FINER, "preliminary approved SubtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset] + ", " + this.subtreeDiscomfortSum[this.childOffset + 1]);
         	} else {
-        		this.log(Level.FINER, "approvals: " + this.approvals.get(0));
-                this.log(Level.FINER, "preliminary approved SubtreeDiscomfortSum: " + this.subtreeDiscomfortSum.get(0));
+        		this.log(Level.FINER, "approvals: " + this.approvals[this.childOffset]);
+                this.log(Level.FINER, "preliminary approved SubtreeDiscomfortSum: " + this.subtreeDiscomfortSum[this.childOffset]);
         	}
         	
 //            this.log(Level.FINER, "preliminary approved SubtreeDiscomfortSumSqr: " + this.subtreeDiscomfortSumSqr.get(0) + ", " + this.subtreeDiscomfortSumSqr.get(1));
@@ -498,24 +633,69 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
      * @return
      */
     private UpMessage informParent() {
-        V subtreeResponse = this.aggregatedResponse.cloneThis();
+        V subtreeResponse;
+        if (this.store == null) {
+            subtreeResponse = this.aggregatedResponse.cloneThis();
+        } else {
+            subtreeResponse = this.reportedResponse;
+            subtreeResponse.set(this.aggregatedResponse);
+        }
         subtreeResponse.add(this.selectedPlan.getValue());
-        double score = this.localCostFunc.calcCost(this.selectedPlan);
+        double score = this.selectedPlan.getStatistics(this.localCostFunc).getLocalCost();
         double totalDiscomfortSum = this.aggregatedDiscomfortSum + score;
         double totalDiscomfortSumSqr = this.aggregatedDiscomfortSumSqr + score*score;
         this.log(Level.FINER, "informParent:");
         this.log(Level.FINER, "Discomfort of selected plan " + this.selectedPlanID + " (" + score + ") is added to sum and SumSqr");
-        return new UpMessage(subtreeResponse, totalDiscomfortSum, totalDiscomfortSumSqr);
+        UpMessage msg = new UpMessage(subtreeResponse, totalDiscomfortSum, totalDiscomfortSumSqr);
+        if (this.reportPrevSubtree) {
+            msg.prevSubtreeResponse = this.prevAggregatedResponse.cloneThis();
+            msg.prevSubtreeResponse.add(this.prevSelectedPlan.getValue());
+            double prevScore = this.prevSelectedPlan.getStatistics(this.localCostFunc).getLocalCost();
+            msg.prevDiscomfortSum = this.prevAggregatedDiscomfortSum + prevScore;
+            msg.prevDiscomfortSumSqr = this.prevAggregatedDiscomfortSumSqr + prevScore*prevScore;
+            this.reportPrevSubtree = false;
+        }
+        return msg;
     }
 
     private void updateGlobalResponse(DownMessage parentMsg) {
-    	this.setConvergenceReachedFlag(this.globalResponse, parentMsg.globalResponse);
-        this.globalResponse.set(parentMsg.globalResponse);
+    	double oldglobalcost = this.globalResponseCost;
+    	if (this.store == null) {
+    		this.setGlobalResponse(parentMsg.globalResponse);
+    	} else {
+    		this.referGlobalResponse(this.store.getGlobalResponse(parentMsg.version));
+    	}
+    	this.setConvergenceReachedFlag(oldglobalcost, this.globalResponseCost);
+    }
+    
+    /**
+     * Copies the given global response and computes its global cost.
+     */
+    void setGlobalResponse(V newGlobalResponse) {
+    	this.globalResponse.set(newGlobalResponse);
+    	this.globalResponseCost = this.getGlobalCostFunction().calcCost(this.globalResponse);
+    }
+    
+    /**
+     * Refers to the global response published in the <code>PopulationStore</code>
+     * instead of keeping a copy of it.
+     */
+    void referGlobalResponse(GlobalResponseSnapshot<V> snapshot) {
+    	this.globalResponse = snapshot.getResponse();
+    	this.globalResponseCost = snapshot.getCost();
+    	this.globalResponseVersion = snapshot.getVersion();
+    }
+    
+    private void initGlobalResponse() {
+    	if (this.store == null) {
+    		this.globalResponse = createValue();
+    		this.globalResponseCost = this.getGlobalCostFunction().calcCost(this.globalResponse);
+    	} else {
+    		this.referGlobalResponse(this.store.getGlobalResponse());
+    	}
     }
     
-    private void setConvergenceReachedFlag(V oldGlobalResponse, V newGlobalResponse) {
-    	double oldglobalcost = this.getGlobalCostFunction().calcCost(oldGlobalResponse);
-    	double newglobalcost = this.getGlobalCostFunction().calcCost(newGlobalResponse);
+    private void setConvergenceReachedFlag(double oldglobalcost, double newglobalcost) {
     	this.convergenceReached = oldglobalcost == newglobalcost;
     }
     
@@ -524,8 +704,14 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     }
     
     private void updateGlobalDiscomfortScores(DownMessage parentMsg) {
-    	this.globalDiscomfortSum = parentMsg.globalDiscomfortSum;
-    	this.globalDiscomfortSumSqr = parentMsg.globalDiscomfortSumSqr;
+    	if (this.store == null) {
+    		this.globalDiscomfortSum = parentMsg.globalDiscomfortSum;
+    		this.globalDiscomfortSumSqr = parentMsg.globalDiscomfortSumSqr;
+    	} else {
+    		GlobalResponseSnapshot<V> snapshot = this.store.getGlobalResponse(parentMsg.version);
+    		this.globalDiscomfortSum = snapshot.getDiscomfortSum();
+    		this.globalDiscomfortSumSqr = snapshot.getDiscomfortSumSqr();
+    	}
     	this.log(Level.FINER, "Received global Discomfort Sum: " + this.globalDiscomfortSum + " and SumSqr: " + this.globalDiscomfortSumSqr);
     }
 
@@ -543,18 +729,16 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             this.selectedPlan = this.prevSelectedPlan;
             this.selectedPlanID = this.prevSelectedPlanID;
             this.aggregatedResponse.set(this.prevAggregatedResponse);
-            this.subtreeResponses.clear();
-            this.subtreeResponses.addAll(this.prevSubtreeResponses);
+            this.copyResponses(this.prevSubtreeResponses, this.subtreeResponses);
             
             this.aggregatedDiscomfortSum = this.prevAggregatedDiscomfortSum;
             this.aggregatedDiscomfortSumSqr = this.prevAggregatedDiscomfortSumSqr;
-            this.subtreeDiscomfortSum.clear();
-            this.subtreeDiscomfortSumSqr.clear();
             
-            this.subtreeDiscomfortSum.addAll(this.prevSubtreeDiscomfortSum);
-            this.subtreeDiscomfortSumSqr.addAll(this.prevSubtreeDiscomfortSumSqr);
+            int numChildren = this.children.size();
+            System.arraycopy(this.prevSubtreeDiscomfortSum, this.childOffset, this.subtreeDiscomfortSum, this.childOffset, numChildren);
+            System.arraycopy(this.prevSubtreeDiscomfortSumSqr, this.childOffset, this.subtreeDiscomfortSumSqr, this.childOffset, numChildren);
             
-            Collections.fill(approvals, false);
+            Arrays.fill(this.approvals, this.childOffset, this.childOffset + numChildren, false);
             
             this.log(Level.FINER, "NOT ACCEPTED.");
         } else {
@@ -580,29 +764,88 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     public void reset() {
     	super.reset();
     	
-    	this.globalResponse			=	createValue();
-    	this.aggregatedResponse 	= 	createValue();
-        this.prevAggregatedResponse = 	createValue();
-        this.globalResponse 		= 	createValue();
+    	this.initAggregatedResponses();
+        this.initGlobalResponse();
         this.prevSelectedPlan 		= 	createPlan();
         this.prevSelectedPlanID		=	-1;
         
-        this.subtreeResponses.clear();
-        this.prevSubtreeResponses.clear();
+        if (this.store == null) {
+            this.subtreeResponses.clear();
+            this.prevSubtreeResponses.clear();
+        } else {
+            this.subtreeResponses.forEach(V::reset);
+            this.prevSubtreeResponses.forEach(V::reset);
+        }
         
-        this.prevSubtreeDiscomfortSum.clear();
-        this.prevSubtreeDiscomfortSumSqr.clear();
+        this.ensureChildSlots();
+        int numChildren = this.children.size();
+        Arrays.fill(this.prevSubtreeDiscomfortSum, this.childOffset, this.childOffset + numChildren, 0);
+        Arrays.fill(this.prevSubtreeDiscomfortSumSqr, this.childOffset, this.childOffset + numChildren, 0);
         
-        this.approvals.clear(); 	
+        Arrays.fill(this.approvals, this.childOffset, this.childOffset + numChildren, false);
         
-        this.subtreeDiscomfortSum.clear();
-        this.subtreeDiscomfortSumSqr.clear();
+        Arrays.fill(this.subtreeDiscomfortSum, this.childOffset, this.childOffset + numChildren, 0);
+        Arrays.fill(this.subtreeDiscomfortSumSqr, this.childOffset, this.childOffset + numChildren, 0);
         this.aggregatedDiscomfortSum = 0;
         this.aggregatedDiscomfortSumSqr = 0;
         this.prevAggregatedDiscomfortSum = 0;
         this.prevAggregatedDiscomfortSumSqr = 0;
         this.globalDiscomfortSum = 0;
         this.globalDiscomfortSumSqr = 0;
+        
+        this.prevRootGlobalCost = Double.NaN;
+        this.numConvergedIterations = 0;
+    }
+
+    private void initAggregatedResponses() {
+    	if (this.store == null) {
+    		this.aggregatedResponse = createValue();
+    		this.prevAggregatedResponse = createValue();
+    	} else {
+    		this.aggregatedResponse.reset();
+    		this.prevAggregatedResponse.reset();
+    	}
+    }
+
+    /**
+     * Replaces the response of child i: the list refers to the given response,
+     * or the row of the child in the store takes its values.
+     */
+    private void setResponse(List<V> responses, int i, V response) {
+    	if (this.store == null) {
+    		responses.set(i, response);
+    	} else if (responses.get(i) != response) {
+    		responses.get(i).set(response);
+    	}
+    }
+
+    /**
+     * Replaces the responses of all children in <code>to</code> by those in <code>from</code>.
+     */
+    private void copyResponses(List<V> from, List<V> to) {
+    	if (this.store == null) {
+    		to.clear();
+    		to.addAll(from);
+    	} else {
+    		for (int i = 0; i < from.size(); i++) {
+    			to.get(i).set(from.get(i));
+    		}
+    	}
+    }
+
+    /**
+     * Agents that keep their per-child state themselves grow it whenever they
+     * have more children than before, e.g. after a reorganization.
+     */
+    private void ensureChildSlots() {
+    	int numChildren = this.children.size();
+    	if (this.store == null && this.approvals.length < numChildren) {
+    		this.approvals = Arrays.copyOf(this.approvals, numChildren);
+    		this.subtreeDiscomfortSum = Arrays.copyOf(this.subtreeDiscomfortSum, numChildren);
+    		this.subtreeDiscomfortSumSqr = Arrays.copyOf(this.subtreeDiscomfortSumSqr, numChildren);
+    		this.prevSubtreeDiscomfortSum = Arrays.copyOf(this.prevSubtreeDiscomfortSum, numChildren);
+    		this.prevSubtreeDiscomfortSumSqr = Arrays.copyOf(this.prevSubtreeDiscomfortSumSqr, numChildren);
+    	}
     }
 
     /**
@@ -612,13 +855,18 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
     private List<DownMessage> informChildren() {
         List<DownMessage> msgs = new ArrayList<>();
         for (int i = 0; i < children.size(); i++) {
-            msgs.add(this.generateDownMessage(i));
+            DownMessage msg = this.generateDownMessage(i);
+            msg.terminated = this.terminated;
+            msgs.add(msg);
         }
         return msgs;
     }
     
     DownMessage generateDownMessage(int i) {
-    	return new DownMessage(this.globalResponse, approvals.get(i), this.globalDiscomfortSum, this.globalDiscomfortSumSqr);
+    	if (this.store != null) {
+    		return new DownMessage(this.globalResponseVersion, this.approvals[this.childOffset + i]);
+    	}
+    	return new DownMessage(this.globalResponse, this.approvals[this.childOffset + i], this.globalDiscomfortSum, this.globalDiscomfortSumSqr);
     }
 
     // message classes
@@ -627,6 +875,9 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         public V subtreeResponse;					// basically aggregated response from the subtree rooted at this agent
         public double discomfortSum;				// sum of all discomforts from both subtrees and from sending node
         public double discomfortSumSqr;				// sum of squared discomforts from both subtrees and from sending node
+        public V prevSubtreeResponse;				// subtree response of the previous iteration, only sent to a new parent
+        public double prevDiscomfortSum;			// after subtrees have been swapped, see ModifiableIeposAgent
+        public double prevDiscomfortSumSqr;
         
         public UpMessage(V subtreeResponse, double discomfortSum, double discomfortSumSqr) {
             this.subtreeResponse = subtreeResponse;
@@ -647,6 +898,8 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
         public double globalDiscomfortSum;			// sum of all discomfort scores of all selected plans
         public double globalDiscomfortSumSqr;		// sum of all sqared discomfort scores of all selected plans
         public boolean approved;					// Delta value!
+        public int version = -1;					// version of the global response in the PopulationStore
+        public boolean terminated;					// the tree has converged, see hasTreeConverged()
 
         public DownMessage(V globalResponse, boolean approved, double globalDiscomfortSum, double globalDiscomfortSumSqr) {
             this.globalResponse = globalResponse;
@@ -655,6 +908,15 @@ public class MultiObjectiveIEPOSAgent<V extends DataType<V>> extends IterativeTr
             this.approved = approved;
         }
 
+        /**
+         * Message of agents with a <code>PopulationStore</code>, in which the
+         * global response and the global discomfort scores are published.
+         */
+        public DownMessage(int version, boolean approved) {
+            this.version = version;
+            this.approved = approved;
+        }
+
         @Override
         public int getNumTransmitted() {
             return 1;								// is this 1 message, or 1 selected plan transmitted?
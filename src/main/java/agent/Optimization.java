@@ -5,18 +5,22 @@
  */
 package agent;
 
+import agent.planselection.PlanSelectionObjective;
 import agent.planselection.PlanSelectionOptimizationFunctionCollection;
 import data.HasValue;
 import data.Plan;
+import data.PlanStatistics;
 import data.Vector;
+import func.BoundedCostFunction;
+import func.BoundedCostFunction.LowerBound;
 import func.CostFunction;
+import func.IncrementalCostFunction;
+import func.IncrementalCostFunction.DeltaCost;
 import func.PlanCostFunction;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
-import agent.planselection.OptimizationFactor;
 import config.Configuration;
 import data.DataType;
 
@@ -28,6 +32,15 @@ public class Optimization {
 
     protected Random random;
 
+    // reusable buffers for the combination search, see argminCombinations
+    private final List<DataType<?>> combinationBuffers = new ArrayList<>();
+
+    // reusable buffers for the plan selection, see argmin(CostFunction, PlanCostFunction, ...)
+    private DataType<?> planBuffer;
+    private double[] planCosts = new double[0];
+    private double[] planDiscomfortSums = new double[0];
+    private double[] planDiscomfortSumSqrs = new double[0];
+
     public Optimization(Random random) {
         this.random = random;
     }
@@ -105,6 +118,49 @@ public class Optimization {
         return combinations;
     }
 
+    /**
+     * Same as {@link #calculateAllCombinationsForDiscomfortScores(List)} for the
+     * previous and new discomfort score of every child, without boxing. The index of a
+     * combination is its selection: bit c is set iff the new score of child c is chosen,
+     * see {@link #isAccepted(int, int)}.
+     *
+     * @param prevScores previous discomfort score per child
+     * @param scores new discomfort score per child
+     * @param constant added to every combination after the scores of the children
+     * @return the summed discomfort scores of all 2^numChildren combinations
+     */
+    public double[] calculateAllCombinationsForDiscomfortScores(double[] prevScores, double[] scores, double constant) {
+        int numChildren = scores.length;
+        if (numChildren == 0) {
+            return new double[0];
+        }
+        double[] combinations = new double[1 << numChildren];
+
+        for (int c = 0; c < numChildren; c++) {
+            int bit = 1 << c;
+            for (int i = 0; i < bit; i++) {
+                combinations[i | bit] = combinations[i] + scores[c];
+                combinations[i] += prevScores[c];
+            }
+        }
+        for (int i = 0; i < combinations.length; i++) {
+            combinations[i] = constant + combinations[i];
+        }
+        return combinations;
+    }
+
+    /**
+     * Counterpart of {@link #combinationToSelections(int, List)} for selections that are
+     * returned as bitmasks, e.g. by {@link #argminCombinations}.
+     *
+     * @param selection the selected combination
+     * @param child index of the child
+     * @return true iff the new response of the child is accepted
+     */
+    public static boolean isAccepted(int selection, int child) {
+        return ((selection >> child) & 1) == 1;
+    }
+
     public <V extends DataType<V>, T extends HasValue<V>> int argmin(CostFunction<V> costFunction, List<T> choices) {
         return argmin(costFunction, choices, null);
     }
@@ -225,7 +281,122 @@ public class Optimization {
     }
 
     /**
-     * Invoked for plan selection
+     * Invoked for accepting and/or rejecting changes proposed by children. Selects
+     * the same combination as {@link #calcAllCombinations(List)} followed by
+     * {@link #argmin(CostFunction, List, List, List, DataType, double, double, double, double, double)},
+     * but without materializing the 2^numChildren combined responses.
+     *
+     * Combinations are visited in Gray-code order, so that consecutive combinations
+     * differ in the choice of a single child. The most frequently flipped Gray bit is
+     * mapped to the last child and a prefix sum per child is maintained; flipping child
+     * c only recomputes the prefixes c+1..numChildren. Prefixes are summed in the same
+     * child order as calcAllCombinations, so the costs are bit-identical and the
+     * tie-breaking of the final argmin (ascending combination index) is unchanged.
+     *
+     * @param costFunction
+     * @param prevResponses previous subtree response per child (choice 0)
+     * @param responses new subtree response per child (choice 1)
+     * @param prevDiscomfortSums
+     * @param discomfortSums
+     * @param prevDiscomfortSumSqrs
+     * @param discomfortSumSqrs
+     * @param responseConst
+     * @param discomfortSumConst
+     * @param discomfortSumSqrConst
+     * @param alpha
+     * @param beta
+     * @param numAgents
+     * @return selected combination, bit c is set iff the new response of child c is accepted
+     */
+    public <V extends DataType<V>> int argminCombinations(
+            CostFunction<V> costFunction,		List<V> prevResponses,
+            List<V> responses,					double[] prevDiscomfortSums,
+            double[] discomfortSums,			double[] prevDiscomfortSumSqrs,
+            double[] discomfortSumSqrs,			V responseConst,
+            double discomfortSumConst,			double discomfortSumSqrConst,
+            double alpha,						double beta,
+            double numAgents) {
+
+        int numChildren = responses.size();
+        if (numChildren == 0) {
+            return -1;
+        }
+        int numCombinations = 1 << numChildren;
+
+        // prefix[c] holds the sum of the choices of children 0..c
+        List<V> prefix = this.combinationBuffers(responses.get(0), numChildren + 1);
+        V combined = prefix.get(numChildren);
+        DeltaCost<V> deltaCost = null;
+        if (responseConst != null && costFunction instanceof IncrementalCostFunction) {
+            deltaCost = ((IncrementalCostFunction<V>) costFunction).prepare(responseConst);
+        }
+
+        double[] costs = new double[numCombinations];
+        int combination = 0;
+        int dirty = 0;
+        for (int k = 0; k < numCombinations; k++) {
+            if (k > 0) {
+                int child = numChildren - 1 - Integer.numberOfTrailingZeros(k);
+                combination ^= 1 << child;
+                dirty = child;
+            }
+            for (int c = dirty; c < numChildren; c++) {
+                V choice = ((combination >> c) & 1) == 0 ? prevResponses.get(c) : responses.get(c);
+                V sum = prefix.get(c);
+                if (c == 0) {
+                    sum.reset();
+                } else {
+                    sum.set(prefix.get(c - 1));
+                }
+                sum.add(choice);
+            }
+            dirty = numChildren;
+
+            V response = prefix.get(numChildren - 1);
+            if (deltaCost != null) {
+                costs[combination] = deltaCost.costWithDelta(response);
+            } else {
+                if (responseConst != null) {
+                    combined.set(responseConst);
+                    combined.add(response);
+                    response = combined;
+                }
+                costs[combination] = costFunction.calcCost(response);
+            }
+        }
+
+        double[] combinedDiscomfortSums = this.calculateAllCombinationsForDiscomfortScores(
+                prevDiscomfortSums, discomfortSums, discomfortSumConst);
+        double[] combinedDiscomfortSumSqrs = this.calculateAllCombinationsForDiscomfortScores(
+                prevDiscomfortSumSqrs, discomfortSumSqrs, discomfortSumSqrConst);
+
+        return this.extendedOptimization(costs, alpha, beta, combinedDiscomfortSums, combinedDiscomfortSumSqrs, numAgents);
+    }
+
+    /**
+     * Returns at least {@code size} reusable buffers shaped like the prototype. All
+     * responses aggregated by one agent share the same shape, so the buffers survive
+     * across iterations.
+     */
+    @SuppressWarnings("unchecked")
+    private <V extends DataType<V>> List<V> combinationBuffers(V prototype, int size) {
+        if (!this.combinationBuffers.isEmpty()
+                && this.combinationBuffers.get(0).getClass() != prototype.getClass()) {
+            this.combinationBuffers.clear();
+        }
+        while (this.combinationBuffers.size() < size) {
+            this.combinationBuffers.add(prototype.cloneNew());
+        }
+        return (List<V>) (List<?>) this.combinationBuffers;
+    }
+
+    /**
+     * Invoked for plan selection. The response of every candidate, constant + plan, is
+     * accumulated in a single buffer that is reused across plans and iterations, and the
+     * scores are combined with the primitive {@link Configuration#getPlanSelectionObjective()},
+     * so that scoring a plan allocates nothing unless a hard constraint is active.
+     * If the global cost function is an {@link IncrementalCostFunction}, the candidates
+     * are scored directly from the constant and the plan, without building their sum.
      * @param costFunction
      * @param localCostFunction
      * @param choices
@@ -245,47 +416,75 @@ public class Optimization {
             double discomfortSumConstant,		double discomfortSumSqrConstant,
             int numAgents, 						MultiObjectiveIEPOSAgent agent) {
 
-        double[] costs = new double[choices.size()];
-        double[] discomfortSums = new double[choices.size()];
-        double[] discomfortSumSqrs = new double[choices.size()];
+        int numPlans = choices.size();
+        if (this.planCosts.length < numPlans) {
+            this.planCosts = new double[numPlans];
+            this.planDiscomfortSums = new double[numPlans];
+            this.planDiscomfortSumSqrs = new double[numPlans];
+        }
+        double[] costs = this.planCosts;
+        double[] discomfortSums = this.planDiscomfortSums;
+        double[] discomfortSumSqrs = this.planDiscomfortSumSqrs;
 
         boolean isFirstIter = (agent.getIteration() == 0); // First iteration
         boolean isDoubleConst = (Objects.equals(Configuration.constraint, "HARD_PLANS") &&
                 Configuration.hardArray[2] != null && Configuration.hardArray[3] != null);
         boolean isPlanConst = (Objects.equals(Configuration.constraint, "HARD_PLANS") && !isDoubleConst);
         boolean isCostConst = Objects.equals(Configuration.constraint, "HARD_COSTS");
-        AtomicInteger countsOfHardViolated = new AtomicInteger(0);
+        int countsOfHardViolated = 0;
 
-        IntStream.range(0, choices.size()).forEach(i -> {
-            V combined;
-            if(constant != null) {
-                combined = constant.cloneThis();
-                combined.add(choices.get(i).getValue());
+        if (Configuration.prunePlans && constant != null && costFunction instanceof BoundedCostFunction
+                && !isPlanConst && !isDoubleConst && !isCostConst && this.canBound(alpha, beta)) {
+            return this.prunedOptimization((BoundedCostFunction<V>) costFunction, localCostFunction, choices, constant,
+                    alpha, beta, discomfortSumConstant, discomfortSumSqrConstant, numAgents);
+        }
+
+        // plan constraints inspect the combined response, so it is built in that case
+        DeltaCost<V> deltaCost = null;
+        V combined = null;
+        if (constant != null) {
+            if (costFunction instanceof IncrementalCostFunction && !isPlanConst && !isDoubleConst) {
+                deltaCost = ((IncrementalCostFunction<V>) costFunction).prepare(constant);
             } else {
-                combined = choices.get(i).getValue();
+                combined = this.planBuffer(constant);
+            }
+        }
+
+        for (int i = 0; i < numPlans; i++) {
+            Plan<V> plan = choices.get(i);
+            V response = plan.getValue();
+            double cost;
+            if (deltaCost != null) {
+                cost = deltaCost.costWithPlan(response);
+            } else {
+                if(combined != null) {
+                    combined.set(constant);
+                    combined.add(response);
+                    response = combined;
+                }
+                cost = costFunction.calcCost(response);
             }
-            double cost = costFunction.calcCost(combined);
 
-            double score = localCostFunction.calcCost(choices.get(i));
+            double score = plan.getStatistics(localCostFunction).getLocalCost();
             discomfortSums[i] = discomfortSumConstant + score;
             discomfortSumSqrs[i] = discomfortSumSqrConstant + score*score;
 
             if (isPlanConst) {
-                DataType<Vector> taskV = (DataType<Vector>) combined.getValue();
-                double[] response = taskV.getValue().getArray();
+                DataType<Vector> taskV = (DataType<Vector>) response.getValue();
+                double[] responseArray = taskV.getValue().getArray();
                 if (isFirstIter) {
                     // calculate the initial plan that satisfy the hard constraint in an extreme way
-                    cost = costOfHardConstraint(response);
+                    cost = costOfHardConstraint(responseArray);
 
                 } else {
                     // exclude the plan that violates the hard constraint
-//                    int length = Math.max(response.length * (agent.getIteration()-5) / (Configuration.numIterations / 2), 0);
-//                    double[] sumArray = valueOfConstraintViolated(response, true, Math.min(length, response.length));
-                    double[] sumArray = valueOfConstraintViolated(response, false, response.length);
+//                    int length = Math.max(responseArray.length * (agent.getIteration()-5) / (Configuration.numIterations / 2), 0);
+//                    double[] sumArray = valueOfConstraintViolated(responseArray, true, Math.min(length, responseArray.length));
+                    double[] sumArray = valueOfConstraintViolated(responseArray, false, responseArray.length);
                     double sum = Arrays.stream(sumArray).sum();
                     // Define the cost of violation
                     if (sum > 0) {
-                        countsOfHardViolated.getAndIncrement();
+                        countsOfHardViolated++;
                         cost = Configuration.numAgents * sum;
                     }
                 }
@@ -293,20 +492,20 @@ public class Optimization {
 
             // PLAN_DOUBLE: double constraints that the plan should be within two thresholds
             if (isDoubleConst) {
-                DataType<Vector> taskV = (DataType<Vector>) combined.getValue();
-                double[] response = taskV.getValue().getArray();
+                DataType<Vector> taskV = (DataType<Vector>) response.getValue();
+                double[] responseArray = taskV.getValue().getArray();
                 if (isFirstIter) {
-                    cost = costOfDoubleHardConstraint(response);
+                    cost = costOfDoubleHardConstraint(responseArray);
 
                 } else {
                     // exclude the plan that violates the hard constraint
-//                    int length = Math.max(response.length * (agent.getIteration()-5) / (Configuration.numIterations / 2), 0);
-                    double[] sumArray = valueOfConstraintViolated(response, true, response.length);
-//                    double[] sumArray = valueOfConstraintViolated(response, true, Math.min(length, response.length));
+//                    int length = Math.max(responseArray.length * (agent.getIteration()-5) / (Configuration.numIterations / 2), 0);
+                    double[] sumArray = valueOfConstraintViolated(responseArray, true, responseArray.length);
+//                    double[] sumArray = valueOfConstraintViolated(responseArray, true, Math.min(length, responseArray.length));
                     double sum = Arrays.stream(sumArray).sum();
                     // Define the cost of violation
                     if (sum > 0) {
-                        countsOfHardViolated.getAndIncrement();
+                        countsOfHardViolated++;
                         cost = Configuration.numAgents * sum;
                     }
                 }
@@ -329,7 +528,7 @@ public class Optimization {
                     double[] sumArray = valueOfConstraintViolated(cost_arr, false, cost_arr.length);
                     double sum = Arrays.stream(sumArray).sum();
                     if (sum > 0) {
-                        countsOfHardViolated.getAndIncrement();
+                        countsOfHardViolated++;
                         cost = Configuration.numAgents * sum;
                     }
                 }
@@ -338,10 +537,10 @@ public class Optimization {
             costs[i] = cost;
             //System.out.print("agent: " + agent.getPeer().getIndexNumber() + ", SumConst = " + discomfortSumConstant + ", Sum2const = " + discomfortSumSqrConstant);
             //System.out.println("Sum is " + discomfortSums[i] + ", sum^2 is " + discomfortSumSqrs[i] + ", num agents = " + numAgents);
-        });
+        }
 
 //        // If all elements violate, report that agents cannot follow hard constraint and change to soft constraint (variance)
-//        if (countsOfHardViolated.get() == choices.size()) {
+//        if (countsOfHardViolated == numPlans) {
 //            return agent.prevSelectedPlanID;
 //        }
 
@@ -350,30 +549,135 @@ public class Optimization {
 //            beta = Math.min(IEPOSExperiment.phaseIdx * 0.05, 1);
 //        }
 
-        return this.extendedOptimization(costs, alpha, beta, discomfortSums, discomfortSumSqrs, numAgents);
+        return this.extendedOptimization(costs, numPlans, alpha, beta, discomfortSums, discomfortSumSqrs, numAgents);
 
     }
 
+    /**
+     * Whether a lower bound of the global cost bounds the objective as well: the
+     * objective must not decrease with the global cost.
+     */
+    private boolean canBound(double alpha, double beta) {
+        boolean isComplex = alpha > 0 || beta > 0;
+        return !isComplex || (Configuration.getPlanSelectionObjective() == PlanSelectionOptimizationFunctionCollection.complexObjective1
+                && 1 - alpha - beta >= 0);
+    }
+
+    /**
+     * Selects the same plan as evaluating all plans and passing them to
+     * {@link #extendedOptimization}, but skips the evaluation of the plans whose
+     * objective is bounded from below by more than the best objective so far.
+     * Such a plan neither becomes the best one nor ties with it, so the plans are
+     * visited in the same order, and the random tie-breaking draws the same
+     * numbers as without pruning.
+     */
+    private <V extends DataType<V>> int prunedOptimization(
+            BoundedCostFunction<V> costFunction,	PlanCostFunction<V> localCostFunction,
+            List<Plan<V>> choices, 					V constant,
+            double alpha,							double beta,
+            double discomfortSumConstant,			double discomfortSumSqrConstant,
+            int numAgents) {
+
+        int numPlans = choices.size();
+        DeltaCost<V> deltaCost = costFunction.prepare(constant);
+        LowerBound<V> lowerBound = costFunction.prepareBound(constant);
+
+        double minCost = Double.POSITIVE_INFINITY;
+        int selected = -1;
+        int numOpt = 0;
+        boolean isComplex = alpha > 0 || beta > 0;
+        PlanSelectionObjective objective = Configuration.getPlanSelectionObjective();
+
+        try {
+            for (int i = 0; i < numPlans; i++) {
+                Plan<V> plan = choices.get(i);
+                PlanStatistics statistics = plan.getStatistics(localCostFunction);
+                double score = statistics.getLocalCost();
+                double discomfortSum = discomfortSumConstant + score;
+                double discomfortSumSqr = discomfortSumSqrConstant + score*score;
+
+                if (this.boundObjective(objective, lowerBound.lowerBound(statistics), isComplex, discomfortSum,
+                        discomfortSumSqr, alpha, beta, numAgents) > minCost) {
+                    continue;
+                }
+                if (this.boundObjective(objective, lowerBound.tightLowerBound(plan.getValue(), statistics),
+                        isComplex, discomfortSum, discomfortSumSqr, alpha, beta, numAgents) > minCost) {
+                    continue;
+                }
+
+                double cost = deltaCost.costWithPlan(plan.getValue());
+                if (isComplex) {
+                    cost = objective.apply(cost, discomfortSum, discomfortSumSqr, alpha, beta, numAgents);
+                }
+
+                if (cost < minCost) {
+                    minCost = cost;
+                    selected = i;
+                    numOpt = 1;
+                } else if (cost == minCost) {
+                    numOpt++;
+                    if (random.nextDouble() <= 1.0 / numOpt) {
+                        selected = i;
+                    }
+                }
+            }
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        return selected;
+    }
+
+    /**
+     * @return the objective for the lower bound of the global cost, which bounds
+     * the objective, or NaN if the objective is undefined, so that the plan is
+     * evaluated and fails as without pruning
+     */
+    private double boundObjective(PlanSelectionObjective objective, double costBound, boolean isComplex,
+            double discomfortSum, double discomfortSumSqr, double alpha, double beta, int numAgents) {
+        if (!isComplex) {
+            return costBound;
+        }
+        double unfairness = PlanSelectionOptimizationFunctionCollection.unfairness(discomfortSum, discomfortSumSqr,
+                numAgents);
+        return Double.isNaN(unfairness) ? Double.NaN : objective.apply(costBound,
+                discomfortSum, discomfortSumSqr, alpha, beta, numAgents);
+    }
+
+    /**
+     * Returns the buffer that accumulates the response of a candidate plan, shaped
+     * like the prototype.
+     */
+    @SuppressWarnings("unchecked")
+    private <V extends DataType<V>> V planBuffer(V prototype) {
+        if (this.planBuffer == null || this.planBuffer.getClass() != prototype.getClass()) {
+            this.planBuffer = prototype.cloneNew();
+        }
+        return (V) this.planBuffer;
+    }
+
     private <V extends DataType<V>> int extendedOptimization(double[] costs,				double alpha,
                                                              double beta,					double[] discomfortSums,
                                                              double[] discomfortSumSqrs,	double numAgents) {
+        return this.extendedOptimization(costs, costs.length, alpha, beta, discomfortSums, discomfortSumSqrs, numAgents);
+    }
+
+    private int extendedOptimization(double[] costs,				int numCandidates,
+                                     double alpha,					double beta,
+                                     double[] discomfortSums,		double[] discomfortSumSqrs,
+                                     double numAgents) {
 
         double minCost = Double.POSITIVE_INFINITY;
         int selected = -1;
         int numOpt = 0;
+        boolean isComplex = alpha > 0 || beta > 0;
+        PlanSelectionObjective objective = Configuration.getPlanSelectionObjective();
 
         try {
-            for(int i = 0; i < costs.length; i++) {
+            for(int i = 0; i < numCandidates; i++) {
                 double cost = costs[i];
-                if(alpha > 0 || beta > 0) {
-                    HashMap<OptimizationFactor, Object> parameters = new HashMap<OptimizationFactor, Object>();
-                    parameters.put(OptimizationFactor.GLOBAL_COST, costs[i]);
-                    parameters.put(OptimizationFactor.DISCOMFORT_SUM, discomfortSums[i]);
-                    parameters.put(OptimizationFactor.DISCOMFORT_SUM_SQR, discomfortSumSqrs[i]);
-                    parameters.put(OptimizationFactor.ALPHA, alpha);
-                    parameters.put(OptimizationFactor.BETA, beta);
-                    parameters.put(OptimizationFactor.NUM_AGENTS, numAgents);
-                    cost = Configuration.planOptimizationFunction.apply(parameters);
+                if(isComplex) {
+                    cost = objective.apply(costs[i], discomfortSums[i],
+                            discomfortSumSqrs[i], alpha, beta, numAgents);
                 }
 
                 if (cost < minCost) {
@@ -0,0 +1,109 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import data.DataType;
+
+/**
+ * State of all agents of a tree in contiguous arrays, for agents that are run by
+ * the {@link DirectTreeEngine}. Attached agents keep no copy of the state below,
+ * they read and write the ranges of the store that belong to them.
+ *
+ * The per-child state of an agent, i.e. the discomfort sums of the subtrees of
+ * its children and their approvals, is stored at the vertices of its children.
+ * The children of a vertex are consecutive, so every agent owns the range from
+ * its first child to its last child, and no two agents share a position.
+ *
+ * The responses are kept in rows, one per vertex and kind, that are allocated
+ * together when the store is created and reused in every iteration: the
+ * aggregated responses of the children of an agent and the response of the
+ * subtree of an agent as reported to its parent, each in the current and the
+ * previous iteration. An agent writes the response it reports to its parent into
+ * its own row, and its parent reads it from there instead of from a copy in the
+ * UP message. Rows are separate vectors rather than ranges of one array, because
+ * the vector arithmetic works on whole arrays.
+ *
+ * All agents receive the same global response from the root, so they share a
+ * single instance of it instead of copying it into their own: the root publishes
+ * an immutable {@link GlobalResponseSnapshot} once per iteration, and the DOWN
+ * messages only tell the agents which version to refer to.
+ *
+ * @param <V> the type of the data this agent should handle
+ */
+public class PopulationStore<V extends DataType<V>> {
+
+    final double[] 									subtreeDiscomfortSums;
+    final double[] 									subtreeDiscomfortSumSqrs;
+    final double[] 									prevSubtreeDiscomfortSums;
+    final double[] 									prevSubtreeDiscomfortSumSqrs;
+    final boolean[] 								approvals;
+    final List<V> 									subtreeResponses;
+    final List<V> 									prevSubtreeResponses;
+    final List<V> 									aggregatedResponses;
+    final List<V> 									prevAggregatedResponses;
+
+    private volatile GlobalResponseSnapshot<V> 	globalResponse;
+
+    /**
+     * @param numVertices number of vertices of the tree
+     * @param globalResponse the initial global response, shared by all agents, and
+     * the prototype of the rows of the responses
+     */
+    public PopulationStore(int numVertices, GlobalResponseSnapshot<V> globalResponse) {
+        this.subtreeDiscomfortSums = new double[numVertices];
+        this.subtreeDiscomfortSumSqrs = new double[numVertices];
+        this.prevSubtreeDiscomfortSums = new double[numVertices];
+        this.prevSubtreeDiscomfortSumSqrs = new double[numVertices];
+        this.approvals = new boolean[numVertices];
+        this.subtreeResponses = PopulationStore.rows(numVertices, globalResponse);
+        this.prevSubtreeResponses = PopulationStore.rows(numVertices, globalResponse);
+        this.aggregatedResponses = PopulationStore.rows(numVertices, globalResponse);
+        this.prevAggregatedResponses = PopulationStore.rows(numVertices, globalResponse);
+        this.globalResponse = globalResponse;
+    }
+
+    private static <V extends DataType<V>> List<V> rows(int numVertices, GlobalResponseSnapshot<V> prototype) {
+        if (numVertices == 0) {
+            return Collections.emptyList();
+        }
+        List<V> rows = new ArrayList<>(numVertices);
+        for (int vertex = 0; vertex < numVertices; vertex++) {
+            rows.add(prototype.getResponse().cloneNew());
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    public int getNumVertices() {
+        return this.approvals.length;
+    }
+
+    /**
+     * @return the latest published global response
+     */
+    public GlobalResponseSnapshot<V> getGlobalResponse() {
+        return this.globalResponse;
+    }
+
+    /**
+     * @param version the expected version
+     * @return the latest published global response, if it has the given version
+     * @throws IllegalStateException if another version was published meanwhile
+     */
+    public GlobalResponseSnapshot<V> getGlobalResponse(int version) {
+        GlobalResponseSnapshot<V> snapshot = this.globalResponse;
+        if (snapshot.getVersion() != version) {
+            throw new IllegalStateException("Global response of version " + version + " requested, but version " + snapshot.getVersion() + " is published.");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces the global response, invoked by the root once per iteration.
+     */
+    public void publishGlobalResponse(GlobalResponseSnapshot<V> snapshot) {
+        this.globalResponse = snapshot;
+    }
+
+}
@@ -0,0 +1,363 @@
+package agent.dataset;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import config.Configuration;
+import data.Plan;
+import data.Vector;
+
+/**
+ * Dataset stored in a single binary file <code>plans.bin</code> inside the
+ * dataset folder. The file is memory-mapped, so opening a dataset costs no heap
+ * and no parsing; the plans of an agent are copied straight from the page cache
+ * into the vectors when they are requested.
+ *
+ * Layout of the file, all numbers are little endian:
+ * <pre>
+ * int    magic, version
+ * int    numAgents, numPlans, planDim, 0
+ * int    planCount[numAgents]                  number of plans of each agent
+ * (zero padding to a multiple of 8 bytes)
+ * double score[numAgents][numPlans]
+ * double value[numAgents][numPlans][planDim]
+ * </pre>
+ * Agents with fewer than <code>numPlans</code> plans are zero padded. Use
+ * {@link #convert(String)} to create the file from the text layout of
+ * {@link FileVectorDataset}.
+ */
+public class BinaryVectorDataset implements Dataset<Vector> {
+
+	public static final String FILENAME = "plans.bin";
+
+	private static final int MAGIC = 0x45504F53; // "EPOS"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+	// a single mapping cannot exceed 2GB, larger regions are split at agent boundaries
+	private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+	private static final Pattern AGENT_FILE = Pattern.compile("agent_(\\d+)\\.plans");
+
+	private final int numAgents;
+	private final int numPlans;
+	private final int planDim;
+
+	private final IntBuffer planCounts;
+	private final MappedRegion scores;
+	private final MappedRegion values;
+
+	/**
+	 * Opens the binary dataset in the given directory.
+	 *
+	 * @param datasetDir the directory of this dataset
+	 */
+	public BinaryVectorDataset(String datasetDir) {
+		File file = new File(datasetDir, FILENAME);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IllegalStateException(file + " is not a binary plan dataset of version " + VERSION);
+			}
+			this.numAgents = header.getInt();
+			this.numPlans = header.getInt();
+			this.planDim = header.getInt();
+
+			this.planCounts = channel.map(MapMode.READ_ONLY, HEADER_BYTES, (long) this.numAgents * Integer.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+			long scoresOffset = BinaryVectorDataset.scoresOffset(this.numAgents);
+			long valuesOffset = scoresOffset + (long) this.numAgents * this.numPlans * Double.BYTES;
+			this.scores = new MappedRegion(channel, scoresOffset, this.numAgents, this.numPlans);
+			this.values = new MappedRegion(channel, valuesOffset, this.numAgents, (long) this.numPlans * this.planDim);
+		} catch (IOException e) {
+			Logger.getLogger(BinaryVectorDataset.class.getName()).log(Level.SEVERE, null, e);
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns true if the given dataset directory contains a binary dataset.
+	 *
+	 * @param datasetDir the directory of the dataset
+	 * @return true if <code>plans.bin</code> exists in the directory
+	 */
+	public static boolean exists(String datasetDir) {
+		return new File(datasetDir, FILENAME).isFile();
+	}
+
+	/**
+	 * Returns the plans for the specified agent, at most
+	 * <code>Configuration.numPlans</code>.
+	 *
+	 * @param agentId the id of the specified agent; the first agent has id 0,
+	 * the second agent id 1 and so on
+	 * @return the plans for the specified agent
+	 */
+	@Override
+	public List<Plan<Vector>> getPlans(int agentId) {
+		int available = this.getNumPlans(agentId);
+		int count = Math.min(available, Configuration.numPlans);
+		List<Plan<Vector>> plans = new ArrayList<>(count);
+
+		DoubleBuffer agentScores = count > 0 ? this.scores.agent(agentId) : null;
+		DoubleBuffer agentValues = count > 0 ? this.values.agent(agentId) : null;
+		for (int i = 0; i < count; i++) {
+			double[] planValues = new double[this.planDim];
+			agentValues.get(planValues);
+
+			Plan<Vector> plan = new Plan<>(Configuration.createPlanVector(planValues));
+			plan.setScore(agentScores.get(i));
+			plan.setIndex(i);
+			plans.add(plan);
+		}
+		if (count != Configuration.numPlans) {
+			System.out.println("Number of plans of agent " + agentId + " is " + count
+					+ ", but expected number of plans is " + Configuration.numPlans);
+		}
+		return plans;
+	}
+
+	public int getNumAgents() {
+		return this.numAgents;
+	}
+
+	/**
+	 * @return the maximal number of plans per agent
+	 */
+	public int getNumPlans() {
+		return this.numPlans;
+	}
+
+	/**
+	 * @param agentId the id of the agent
+	 * @return the number of plans of the given agent, 0 if the agent does not exist
+	 */
+	public int getNumPlans(int agentId) {
+		return agentId < 0 || agentId >= this.numAgents ? 0 : this.planCounts.get(agentId);
+	}
+
+	public int getPlanDim() {
+		return this.planDim;
+	}
+
+	/**
+	 * Converts the text dataset in the given directory, see
+	 * {@link FileVectorDataset}, into <code>plans.bin</code> in the same
+	 * directory. The plans are streamed, so the dataset does not need to fit into
+	 * memory. All plans must have the same dimensionality.
+	 *
+	 * @param datasetDir the directory of the dataset
+	 * @throws IOException if reading or writing fails
+	 */
+	public static void convert(String datasetDir) throws IOException {
+		List<File> agentFiles = new ArrayList<>();
+		File[] files = new File(datasetDir).listFiles();
+		if (files == null) {
+			throw new IOException(datasetDir + " is not a directory");
+		}
+		for (File file : files) {
+			Matcher matcher = AGENT_FILE.matcher(file.getName());
+			if (matcher.matches()) {
+				int agentId = Integer.parseInt(matcher.group(1));
+				while (agentFiles.size() <= agentId) {
+					agentFiles.add(null);
+				}
+				agentFiles.set(agentId, file);
+			}
+		}
+
+		// first pass: dimensions of the plan matrix
+		int numAgents = agentFiles.size();
+		int numPlans = 0;
+		int planDim = 0;
+		for (File file : agentFiles) {
+			if (file == null) {
+				continue;
+			}
+			int count = 0;
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.trim().isEmpty()) {
+						continue;
+					}
+					if (count == 0 && planDim == 0) {
+						planDim = BinaryVectorDataset.parsePlan(line, null);
+					}
+					count++;
+				}
+			}
+			numPlans = Math.max(numPlans, count);
+		}
+
+		// second pass: header, scores and values
+		File target = new File(datasetDir, FILENAME);
+		long scoresOffset = BinaryVectorDataset.scoresOffset(numAgents);
+		long valuesOffset = scoresOffset + (long) numAgents * numPlans * Double.BYTES;
+
+		try (RandomAccessFile raf = new RandomAccessFile(target, "rw"); FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+
+			ByteBuffer header = ByteBuffer.allocate((int) scoresOffset).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(numAgents).putInt(numPlans).putInt(planDim).putInt(0);
+
+			ByteBuffer agentScores = ByteBuffer.allocate(numPlans * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer agentValues = ByteBuffer.allocate(numPlans * planDim * Double.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			double[] plan = new double[planDim + 1];
+
+			for (int agentId = 0; agentId < numAgents; agentId++) {
+				File file = agentFiles.get(agentId);
+				agentScores.clear();
+				agentValues.clear();
+				int count = 0;
+
+				if (file != null) {
+					try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+						String line;
+						while ((line = reader.readLine()) != null) {
+							if (line.trim().isEmpty()) {
+								continue;
+							}
+							if (BinaryVectorDataset.parsePlan(line, plan) != planDim) {
+								throw new IOException(file + ", line " + (count + 1) + ": expected " + planDim
+										+ " values per plan");
+							}
+							agentScores.putDouble(plan[0]);
+							for (int i = 1; i <= planDim; i++) {
+								agentValues.putDouble(plan[i]);
+							}
+							count++;
+						}
+					}
+				}
+				header.putInt(count);
+
+				// zero padding of missing plans
+				while (agentScores.hasRemaining()) {
+					agentScores.put((byte) 0);
+				}
+				while (agentValues.hasRemaining()) {
+					agentValues.put((byte) 0);
+				}
+				agentScores.flip();
+				agentValues.flip();
+				BinaryVectorDataset.writeFully(channel, agentScores,
+						scoresOffset + (long) agentId * numPlans * Double.BYTES);
+				BinaryVectorDataset.writeFully(channel, agentValues,
+						valuesOffset + (long) agentId * numPlans * planDim * Double.BYTES);
+			}
+
+			header.clear();
+			BinaryVectorDataset.writeFully(channel, header, 0);
+		}
+	}
+
+	/**
+	 * Parses a plan of the form <code>"score:val0,val1,val2,..."</code>.
+	 *
+	 * @param line the plan
+	 * @param plan receives the score followed by the values, may be null
+	 * @return the number of values
+	 */
+	private static int parsePlan(String line, double[] plan) {
+		int colon = line.indexOf(':');
+		if (plan != null) {
+			plan[0] = Double.parseDouble(line.substring(0, colon));
+		}
+		int numValues = 0;
+		int start = colon + 1;
+		while (start <= line.length()) {
+			int end = line.indexOf(',', start);
+			if (end < 0) {
+				end = line.length();
+			}
+			numValues++;
+			if (plan != null && numValues < plan.length) {
+				plan[numValues] = Double.parseDouble(line.substring(start, end));
+			}
+			start = end + 1;
+		}
+		return numValues;
+	}
+
+	private static long scoresOffset(int numAgents) {
+		long offset = HEADER_BYTES + (long) numAgents * Integer.BYTES;
+		return (offset + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Converts the text dataset in the directory given as first argument.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: BinaryVectorDataset <dataset directory>");
+			return;
+		}
+		long timeBefore = System.currentTimeMillis();
+		BinaryVectorDataset.convert(args[0]);
+		BinaryVectorDataset dataset = new BinaryVectorDataset(args[0]);
+		long timeAfter = System.currentTimeMillis();
+		System.out.println("Converted " + dataset.getNumAgents() + " agents with up to " + dataset.getNumPlans()
+				+ " plans of dimension " + dataset.getPlanDim() + " in " + ((timeAfter - timeBefore) / 1000)
+				+ " seconds.");
+	}
+
+	/**
+	 * A region of <code>numAgents</code> equally sized blocks of doubles, mapped
+	 * in chunks of whole agents.
+	 */
+	private static class MappedRegion {
+
+		private final long doublesPerAgent;
+		private final int agentsPerChunk;
+		private final DoubleBuffer[] chunks;
+
+		MappedRegion(FileChannel channel, long offset, int numAgents, long doublesPerAgent) throws IOException {
+			this.doublesPerAgent = doublesPerAgent;
+			long bytesPerAgent = Math.max(1, doublesPerAgent * Double.BYTES);
+			this.agentsPerChunk = (int) Math.max(1, Math.min(numAgents, MAX_CHUNK_BYTES / bytesPerAgent));
+			int numChunks = numAgents == 0 ? 0 : (numAgents + this.agentsPerChunk - 1) / this.agentsPerChunk;
+
+			this.chunks = new DoubleBuffer[numChunks];
+			for (int c = 0; c < numChunks; c++) {
+				int agents = Math.min(this.agentsPerChunk, numAgents - c * this.agentsPerChunk);
+				long position = offset + (long) c * this.agentsPerChunk * doublesPerAgent * Double.BYTES;
+				this.chunks[c] = channel.map(MapMode.READ_ONLY, position, agents * doublesPerAgent * Double.BYTES)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		}
+
+		/**
+		 * @return a buffer positioned at the first double of the agent
+		 */
+		DoubleBuffer agent(int agentId) {
+			DoubleBuffer view = this.chunks[agentId / this.agentsPerChunk].duplicate();
+			view.position((int) ((agentId % this.agentsPerChunk) * this.doublesPerAgent));
+			return view.slice();
+		}
+	}
+
+}
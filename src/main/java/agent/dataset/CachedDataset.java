@@ -0,0 +1,65 @@
+package agent.dataset;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import data.Plan;
+import data.Vector;
+
+/**
+ * Keeps the plans that another dataset returned in memory, so that the plans of
+ * an agent are parsed only once, however many simulations request them. The
+ * cache is bounded by the number of plan values it holds, i.e. plans times
+ * dimensions summed over all cached agents, and evicts the agents that were
+ * requested least recently once the bound is exceeded.
+ *
+ * All agents that request the plans of the same agent id share the same plan
+ * instances. Agents never modify their plans, and the returned lists are
+ * unmodifiable, so they are handed out as read-only views.
+ */
+public class CachedDataset implements Dataset<Vector> {
+
+	private final Dataset<Vector> dataset;
+	private final Cache<Integer, List<Plan<Vector>>> plans;
+
+	/**
+	 * @param dataset	the dataset that parses the plans on a miss
+	 * @param maxValues	maximum number of plan values kept in memory
+	 */
+	public CachedDataset(Dataset<Vector> dataset, long maxValues) {
+		this.dataset = dataset;
+		this.plans = CacheBuilder.newBuilder()
+				.maximumWeight(maxValues)
+				.weigher((Integer agentId, List<Plan<Vector>> agentPlans) -> CachedDataset.weigh(agentPlans))
+				.build();
+	}
+
+	@Override
+	public List<Plan<Vector>> getPlans(int agentId) {
+		try {
+			return this.plans.get(agentId, () -> Collections.unmodifiableList(this.dataset.getPlans(agentId)));
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Plans of agent " + agentId + " could not be loaded", e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of agents whose plans are currently cached
+	 */
+	public long size() {
+		return this.plans.size();
+	}
+
+	private static int weigh(List<Plan<Vector>> agentPlans) {
+		long values = 0;
+		for (Plan<Vector> plan : agentPlans) {
+			values += Math.max(1, plan.getValue().getNumDimensions());
+		}
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(1, values));
+	}
+
+}
@@ -108,7 +108,7 @@ public class FileVectorDataset implements Dataset<Vector> {
             values.add(scanner.nextDouble());
         }
 
-        Vector vector = new Vector(values.size());
+        Vector vector = Configuration.createPlanVector(values.size());
         for (int i = 0; i < values.size(); i++) {
             vector.setValue(i, values.get(i));
         }
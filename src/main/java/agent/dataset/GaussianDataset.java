@@ -17,6 +17,7 @@
  */
 package agent.dataset;
 
+import config.Configuration;
 import data.Plan;
 import data.Vector;
 import java.io.File;
@@ -106,7 +107,7 @@ public class GaussianDataset implements Dataset<Vector> {
      * @return the generated plan
      */
     private Plan<Vector> generatePlan(int numDimensions, Random random) {
-        Vector vector = new Vector(numDimensions);
+        Vector vector = Configuration.createPlanVector(numDimensions);
         for (int i = 0; i < numDimensions; i++) {
             vector.setValue(i, (random.nextGaussian() * std + mean));
         }
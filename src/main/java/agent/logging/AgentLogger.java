@@ -62,6 +62,24 @@ public abstract class AgentLogger<A extends Agent> implements Cloneable {
      */
     public abstract void print(MeasurementLog log);
 
+    /**
+     * Switches the logger to streaming: it processes its records while the experiment runs,
+     * e.g. by writing them to a {@link LogSink} or by updating an {@link IterationAggregate},
+     * instead of writing them to the measurement log, and print only outputs what is left.
+     * Must be called before the logger is cloned for the agents, which share the streamed state.
+     * Loggers that don't support streaming keep logging to the measurement log.
+     * @param streaming whether records are streamed
+     */
+    public void setStreaming(boolean streaming) {
+    }
+
+    /**
+     * @return whether this logger streams its records, see {@link #setStreaming(boolean)}
+     */
+    public boolean isStreaming() {
+        return false;
+    }
+
     @Override
     public AgentLogger<A> clone() {
         try {
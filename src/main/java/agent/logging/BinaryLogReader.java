@@ -0,0 +1,168 @@
+package agent.logging;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleFunction;
+
+/**
+ * Reads the files written by {@link BinaryLogSink}. The file is memory-mapped,
+ * so records are decoded on access and files larger than the heap can be read.
+ *
+ * Run as a program to export a file to the CSV layout of the logger that wrote
+ * it:
+ * <pre>
+ * java -cp IEPOS-Tutorial.jar agent.logging.BinaryLogReader output/selected-plans.bin [selected-plans.csv]
+ * </pre>
+ */
+public class BinaryLogReader {
+
+	// a single mapping cannot exceed 2GB, larger files are split at record boundaries
+	private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+	private final int encoding;
+	private final int numValues;
+	private final int bitsPerValue;
+	private final int recordBytes;
+	private final int numRecords;
+	private final int recordsPerChunk;
+	private final ByteBuffer[] chunks;
+
+	/**
+	 * Opens the given file.
+	 *
+	 * @param filepath the file written by a {@link BinaryLogSink}
+	 */
+	public BinaryLogReader(String filepath) {
+		try (RandomAccessFile raf = new RandomAccessFile(filepath, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, BinaryLogSink.HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != BinaryLogSink.MAGIC || header.getInt() != BinaryLogSink.VERSION) {
+				throw new IllegalStateException(filepath + " is not a binary log of version " + BinaryLogSink.VERSION);
+			}
+			this.encoding = header.getInt();
+			this.numValues = header.getInt();
+			this.bitsPerValue = header.getInt();
+			this.recordBytes = BinaryLogSink.recordBytes(this.encoding, this.numValues, this.bitsPerValue);
+			this.numRecords = (int) ((channel.size() - BinaryLogSink.HEADER_BYTES) / this.recordBytes);
+
+			this.recordsPerChunk = (int) Math.max(1, Math.min(this.numRecords, MAX_CHUNK_BYTES / this.recordBytes));
+			int numChunks = this.numRecords == 0 ? 0 : (this.numRecords + this.recordsPerChunk - 1) / this.recordsPerChunk;
+			this.chunks = new ByteBuffer[numChunks];
+			for (int c = 0; c < numChunks; c++) {
+				int records = Math.min(this.recordsPerChunk, this.numRecords - c * this.recordsPerChunk);
+				long position = BinaryLogSink.HEADER_BYTES + (long) c * this.recordsPerChunk * this.recordBytes;
+				this.chunks[c] = channel.map(MapMode.READ_ONLY, position, (long) records * this.recordBytes)
+						.order(ByteOrder.LITTLE_ENDIAN);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read " + filepath, e);
+		}
+	}
+
+	/**
+	 * @return {@link BinaryLogSink#FLOAT64} or {@link BinaryLogSink#PACKED}
+	 */
+	public int getEncoding() {
+		return this.encoding;
+	}
+
+	public int getNumRecords() {
+		return this.numRecords;
+	}
+
+	/**
+	 * @return the number of values per record
+	 */
+	public int getNumValues() {
+		return this.numValues;
+	}
+
+	public int getRun(int record) {
+		return this.chunk(record).getInt(this.offset(record));
+	}
+
+	public int getIteration(int record) {
+		return this.chunk(record).getInt(this.offset(record) + Integer.BYTES);
+	}
+
+	/**
+	 * @param record	the index of the record
+	 * @param index		the index of the value within the record
+	 * @return the value
+	 */
+	public double getValue(int record, int index) {
+		ByteBuffer chunk = this.chunk(record);
+		int values = this.offset(record) + 2 * Integer.BYTES;
+		if (this.encoding == BinaryLogSink.FLOAT64) {
+			return chunk.getDouble(values + index * Double.BYTES);
+		}
+		long bit = (long) index * this.bitsPerValue;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		long value = chunk.getLong(values + word * Long.BYTES) >>> shift;
+		if (shift + this.bitsPerValue > Long.SIZE) {
+			value |= chunk.getLong(values + (word + 1) * Long.BYTES) << (Long.SIZE - shift);
+		}
+		value &= (1L << this.bitsPerValue) - 1;
+		return value - 1;
+	}
+
+	public double[] getValues(int record) {
+		double[] values = new double[this.numValues];
+		for (int j = 0; j < this.numValues; j++) {
+			values[j] = this.getValue(record, j);
+		}
+		return values;
+	}
+
+	/**
+	 * Writes all records as CSV, with the header and number format of the logger
+	 * that wrote the file: <code>agent-i</code> columns of integers for packed
+	 * plan indices, <code>dim-i</code> columns of doubles otherwise.
+	 *
+	 * @param csvPath the output file, or null to write to std-out
+	 */
+	public void exportCsv(String csvPath) {
+		boolean packed = this.encoding == BinaryLogSink.PACKED;
+		List<String> header = new ArrayList<>();
+		header.add("Run");
+		header.add("Iteration");
+		for (int j = 0; j < this.numValues; j++) {
+			header.add((packed ? "agent-" : "dim-") + j);
+		}
+		DoubleFunction<String> format = packed ? value -> String.valueOf((int) value) : value -> Double.toString(value);
+
+		CsvLogSink sink = new CsvLogSink(csvPath, false, header, format);
+		for (int record = 0; record < this.numRecords; record++) {
+			sink.write(this.getRun(record), this.getIteration(record), this.getValues(record));
+		}
+		sink.close();
+	}
+
+	private ByteBuffer chunk(int record) {
+		return this.chunks[record / this.recordsPerChunk];
+	}
+
+	private int offset(int record) {
+		return (record % this.recordsPerChunk) * this.recordBytes;
+	}
+
+	/**
+	 * Exports the binary log given as first argument to the CSV file given as
+	 * second argument, or to std-out.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: BinaryLogReader <binary log> [<csv file>]");
+			return;
+		}
+		new BinaryLogReader(args[0]).exportCsv(args.length > 1 ? args[1] : null);
+	}
+
+}
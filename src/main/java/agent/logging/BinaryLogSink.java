@@ -0,0 +1,156 @@
+package agent.logging;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Writes the records into a compact binary file instead of text. All records
+ * have the same size, so the file can be memory-mapped and record
+ * <code>i</code> starts at <code>HEADER_BYTES + i * recordBytes</code>, see
+ * {@link BinaryLogReader}.
+ *
+ * Layout of the file, all numbers are little endian:
+ * <pre>
+ * int    magic, version
+ * int    encoding, numValues, bitsPerValue, 0
+ * record[numRecords]:
+ *   int    run, iteration
+ *   double value[numValues]                                 FLOAT64 encoding
+ *   long   word[(numValues * bitsPerValue + 63) / 64]       PACKED encoding
+ * </pre>
+ * The <code>PACKED</code> encoding stores integers from -1 on, e.g. plan
+ * indices, as <code>value + 1</code> in <code>bitsPerValue</code> bits each.
+ * Value <code>j</code> occupies the bits from <code>j * bitsPerValue</code>
+ * on, counted from the least significant bit of the first word, and may span
+ * two words.
+ */
+public class BinaryLogSink implements LogSink {
+
+	public static final int MAGIC = 0x45504C47; // "EPLG"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+	public static final int FLOAT64 = 0;
+	public static final int PACKED = 1;
+
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	private final int encoding;
+	private final int numValues;
+	private final int bitsPerValue;
+	private final long[] words;
+
+	private BinaryLogSink(String filepath, int encoding, int numValues, int bitsPerValue) {
+		this.encoding = encoding;
+		this.numValues = numValues;
+		this.bitsPerValue = bitsPerValue;
+		this.words = encoding == PACKED ? new long[BinaryLogSink.numWords(numValues, bitsPerValue)] : null;
+		int recordBytes = BinaryLogSink.recordBytes(encoding, numValues, bitsPerValue);
+		this.buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, recordBytes)).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			this.file = new RandomAccessFile(filepath, "rw");
+			this.channel = this.file.getChannel();
+			this.channel.truncate(0);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot open " + filepath, e);
+		}
+		this.buffer.putInt(MAGIC).putInt(VERSION).putInt(encoding).putInt(numValues).putInt(bitsPerValue).putInt(0);
+	}
+
+	/**
+	 * @param filepath	the output file
+	 * @param numValues	number of values per record
+	 * @return a sink that stores every value as a double
+	 */
+	public static BinaryLogSink float64(String filepath, int numValues) {
+		return new BinaryLogSink(filepath, FLOAT64, numValues, Double.SIZE);
+	}
+
+	/**
+	 * @param filepath	the output file
+	 * @param numValues	number of values per record
+	 * @param maxValue	the largest value, all values are integers from -1 to <code>maxValue</code>
+	 * @return a sink that bit-packs the values
+	 */
+	public static BinaryLogSink packed(String filepath, int numValues, int maxValue) {
+		int bitsPerValue = Math.max(1, Long.SIZE - Long.numberOfLeadingZeros((long) maxValue + 1));
+		return new BinaryLogSink(filepath, PACKED, numValues, bitsPerValue);
+	}
+
+	static int numWords(int numValues, int bitsPerValue) {
+		return (int) (((long) numValues * bitsPerValue + Long.SIZE - 1) / Long.SIZE);
+	}
+
+	static int recordBytes(int encoding, int numValues, int bitsPerValue) {
+		int payload = encoding == PACKED ? BinaryLogSink.numWords(numValues, bitsPerValue) * Long.BYTES
+				: numValues * Double.BYTES;
+		return 2 * Integer.BYTES + payload;
+	}
+
+	@Override
+	public void write(int run, int iteration, double[] values) {
+		if (values.length != this.numValues) {
+			throw new IllegalArgumentException("Expected " + this.numValues + " values, but got " + values.length);
+		}
+		if (this.buffer.remaining() < BinaryLogSink.recordBytes(this.encoding, this.numValues, this.bitsPerValue)) {
+			this.flush();
+		}
+		this.buffer.putInt(run).putInt(iteration);
+		if (this.encoding == FLOAT64) {
+			for (double value : values) {
+				this.buffer.putDouble(value);
+			}
+			return;
+		}
+
+		Arrays.fill(this.words, 0);
+		long limit = 1L << this.bitsPerValue;
+		for (int j = 0; j < values.length; j++) {
+			long value = (long) values[j] + 1;
+			if (value < 0 || value >= limit || value - 1 != values[j]) {
+				throw new IllegalArgumentException("Value " + values[j] + " cannot be packed into " + this.bitsPerValue + " bits");
+			}
+			long bit = (long) j * this.bitsPerValue;
+			int word = (int) (bit >>> 6);
+			int shift = (int) (bit & 63);
+			this.words[word] |= value << shift;
+			if (shift + this.bitsPerValue > Long.SIZE) {
+				this.words[word + 1] |= value >>> (Long.SIZE - shift);
+			}
+		}
+		for (long word : this.words) {
+			this.buffer.putLong(word);
+		}
+	}
+
+	private void flush() {
+		this.buffer.flip();
+		try {
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		this.buffer.clear();
+	}
+
+	@Override
+	public void close() {
+		this.flush();
+		try {
+			this.file.close();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package agent.logging;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.function.DoubleFunction;
+
+/**
+ * Writes the records as lines <code>run,iteration,value0,value1,...</code> of
+ * a CSV file, below a header with the given column names.
+ */
+public class CsvLogSink implements LogSink {
+
+	private final PrintWriter				out;
+	private final boolean					stdout;
+	private final DoubleFunction<String>	format;
+
+	/**
+	 * @param filepath	the output file, or null to write to std-out
+	 * @param append	whether an existing file is appended to instead of overwritten
+	 * @param header	the column names, including run and iteration
+	 * @param format	formats a single value
+	 */
+	public CsvLogSink(String filepath, boolean append, List<String> header, DoubleFunction<String> format) {
+		this.stdout = filepath == null;
+		this.format = format;
+		try {
+			this.out = new PrintWriter(new BufferedWriter(this.stdout
+					? new OutputStreamWriter(System.out)
+					: new FileWriter(filepath, append)));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot open " + filepath, e);
+		}
+		this.out.append(String.join(",", header)).append(System.lineSeparator());
+	}
+
+	/**
+	 * Writes the values as they are printed by <code>Double.toString</code>.
+	 */
+	public CsvLogSink(String filepath, boolean append, List<String> header) {
+		this(filepath, append, header, value -> Double.toString(value));
+	}
+
+	@Override
+	public void write(int run, int iteration, double[] values) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(run).append(',').append(iteration);
+		for (double value : values) {
+			sb.append(',').append(this.format.apply(value));
+		}
+		this.out.append(sb).append(System.lineSeparator());
+	}
+
+	@Override
+	public void close() {
+		if (this.stdout) {
+			this.out.flush();
+		} else {
+			this.out.close();
+		}
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -15,7 +16,6 @@ import java.util.logging.Logger;
 
 import agent.Agent;
 import agent.MultiObjectiveIEPOSAgent;
-import agent.planselection.OptimizationFactor;
 import config.Configuration;
 import data.DataType;
 import protopeer.measurement.Aggregate;
@@ -50,14 +50,13 @@ public class GlobalComplexCostLogger<V extends DataType<V>> extends AgentLogger<
 		MultiObjectiveIEPOSAgent moagent = (MultiObjectiveIEPOSAgent) agent;
 		
 		if (moagent.isRoot()) {            	
-        	HashMap<OptimizationFactor, Object> parameters = new HashMap<OptimizationFactor, Object>();
-            parameters.put(OptimizationFactor.GLOBAL_COST, agent.getGlobalCostFunction().calcCost(agent.getGlobalResponse()));
-            parameters.put(OptimizationFactor.DISCOMFORT_SUM, moagent.getGlobalDiscomfortSum());
-            parameters.put(OptimizationFactor.DISCOMFORT_SUM_SQR, moagent.getGlobalDiscomfortSumSqr());
-            parameters.put(OptimizationFactor.ALPHA, moagent.getUnfairnessWeight());
-            parameters.put(OptimizationFactor.BETA, moagent.getLocalCostWeight());
-            parameters.put(OptimizationFactor.NUM_AGENTS, (double) Configuration.numAgents);
-            double cost = Configuration.planOptimizationFunction.apply(parameters);
+            double cost = Configuration.getPlanSelectionObjective().apply(
+            		agent.getGlobalCostFunction().calcCost(agent.getGlobalResponse()),
+            		moagent.getGlobalDiscomfortSum(),
+            		moagent.getGlobalDiscomfortSumSqr(),
+            		moagent.getUnfairnessWeight(),
+            		moagent.getLocalCostWeight(),
+            		(double) Configuration.numAgents);
             
             Token token = new Token(cost, agent.getIteration(), this.run);            
             log.log(epoch, GlobalComplexCostLogger.class.getName(), token, 1.0);
@@ -149,7 +148,7 @@ public class GlobalComplexCostLogger<V extends DataType<V>> extends AgentLogger<
 		return sb.toString();
     }
 	
-	private class Token implements Comparable<Token> {
+	private static class Token implements Comparable<Token>, Serializable {
 		
 		public double scalarizedCost;
 		public int iteration;
@@ -170,7 +169,7 @@ public class GlobalComplexCostLogger<V extends DataType<V>> extends AgentLogger<
         }
 
 		@Override
-		public int compareTo(GlobalComplexCostLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)					return 1;
 			else if (this.run < other.run)					return -1;
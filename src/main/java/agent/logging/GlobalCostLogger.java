@@ -13,11 +13,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,6 +36,10 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
     private String 				filepath;
     private CostFunction<V> 	costFunction;
 
+    // streamed costs, shared by the clones of all agents
+    private IterationAggregate						aggregate;
+    private TreeMap<Integer, List<Double>>			costs;
+
     /**
      * Outputs the global cost to std-out.
      */
@@ -92,15 +96,42 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
     public void log(MeasurementLog log, int epoch, Agent<V> agent) {
         if (agent.isRepresentative()) {        	
             double cost = costFunction.calcCost(agent.getGlobalResponse());  
+            if (this.isStreaming()) {
+                this.stream(cost, agent.getIteration());
+                return;
+            }
             Token token = new Token(cost, agent.getIteration(), this.run);            
             log.log(epoch, GlobalCostLogger.class.getName(), token, 1.0);            
             log.log(epoch, GlobalCostLogger.class.getName() + "raw", agent.getIteration(), cost);
         }
     }
 
+    /**
+     * Keeps the cost of every run and iteration, which are all printed, but only
+     * the running mean and standard deviation over the runs.
+     */
+    @Override
+    public void setStreaming(boolean streaming) {
+        this.aggregate = streaming ? new IterationAggregate() : null;
+        this.costs = streaming ? new TreeMap<>() : null;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return this.aggregate != null;
+    }
+
+    private void stream(double cost, int iteration) {
+        this.aggregate.add(iteration, cost);
+        List<Double> runCosts = this.costs.computeIfAbsent(this.run, run -> new ArrayList<>());
+        if (iteration == runCosts.size()) {
+            runCosts.add(cost);
+        }
+    }
+
     @Override
     public void print(MeasurementLog log) {
-    	String outcome = this.internalFetching(log);
+    	String outcome = this.isStreaming() ? this.streamedFetching() : this.internalFetching(log);
     	
         if (this.filepath == null) {
             System.out.print(outcome);
@@ -124,20 +155,17 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
 		allTokens.addAll(log.getTagsOfType(Token.class));
 		Iterator<Object> iter = allTokens.iterator();
 		
-		HashMap<Integer, ArrayList<Token>> perRun = new HashMap<Integer, ArrayList<Token>>(); 
+		TreeMap<Integer, List<Double>> perRun = new TreeMap<Integer, List<Double>>(); 
 		
 		while(iter.hasNext()) {
 			Token token = (Token) iter.next();			
 			if(!perRun.containsKey(token.run)) {
-				perRun.put(token.run, new ArrayList<Token>());
+				perRun.put(token.run, new ArrayList<Double>());
 			}			
-			ArrayList<Token> thelist = perRun.get(token.run);
-			thelist.add(token);
+			List<Double> thelist = perRun.get(token.run);
+			thelist.add(token.globalCost);
 		}
 		
-		ArrayList<Integer> sortedKeys = new ArrayList<>(perRun.keySet());
-		Collections.sort(sortedKeys);
-		
 		///////////////////////////////////////////////////////////////////////////////////////
 		// AVERAGE OVER RUNS
 		
@@ -154,6 +182,22 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
             std.add(aggregate.getStdDev());
         }
         
+        return this.format(perRun, avg, std);
+    }
+
+    private String streamedFetching() {
+        List<Double> avg = new ArrayList<>();
+        List<Double> std = new ArrayList<>();
+        for (int i = 0; i < this.aggregate.getNumIterations(); i++) {
+            avg.add(this.aggregate.getAverage(i));
+            std.add(this.aggregate.getStdDev(i));
+        }
+        return this.format(this.costs, avg, std);
+    }
+
+    private String format(TreeMap<Integer, List<Double>> perRun, List<Double> avg, List<Double> std) {
+		ArrayList<Integer> sortedKeys = new ArrayList<>(perRun.keySet());
+		
 		///////////////////////////////////////////////////////////////////////////////////////
 		// FORMTATTING        
 		
@@ -174,7 +218,7 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
 			  .append("," + std.get(i));
 			
 			for(int j = 0; j < sortedKeys.size(); j++) {
-				sb.append("," + perRun.get(sortedKeys.get(j)).get(i).globalCost);
+				sb.append("," + perRun.get(sortedKeys.get(j)).get(i));
 			}
 			sb.append(System.lineSeparator());
 		}
@@ -182,7 +226,7 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
 		return sb.toString();
     }
    
-    private class Token implements Comparable<Token> {
+    private static class Token implements Comparable<Token>, Serializable {
 		
 		public double globalCost;
 		public int iteration;
@@ -195,7 +239,7 @@ public class GlobalCostLogger<V extends DataType<V>> extends AgentLogger<Agent<V
 		}
 
 		@Override
-		public int compareTo(GlobalCostLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)					return 1;
 			else if (this.run < other.run)					return -1;
@@ -4,6 +4,9 @@ import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
@@ -26,6 +29,10 @@ import protopeer.measurement.MeasurementLog;
 public class GlobalResponseVectorLogger<V extends DataType<V>> extends AgentLogger<Agent<V>> {
 	
 	private String 					filepath;	
+	private String					binaryFilepath;
+	
+	// streamed responses, shared by the clones of all agents
+	private Responses				responses;
 	
 	/**
      * Outputs the global response to the specified file.
@@ -36,6 +43,16 @@ public class GlobalResponseVectorLogger<V extends DataType<V>> extends AgentLogg
         this.filepath = filename;
     }
 
+    /**
+     * Writes the global responses as doubles to the given binary file instead of
+     * the CSV file, see {@link BinaryLogSink}.
+     *
+     * @param binaryFilepath the output file
+     */
+    public void setBinaryOutput(String binaryFilepath) {
+        this.binaryFilepath = binaryFilepath;
+    }
+
 	@Override
 	public void init(Agent<V> agent) { }
 
@@ -43,13 +60,43 @@ public class GlobalResponseVectorLogger<V extends DataType<V>> extends AgentLogg
 	public void log(MeasurementLog log, int epoch, Agent<V> agent) {
 		if (agent.isRepresentative()) {
             V globalResponse = agent.getGlobalResponse();
+            if (this.isStreaming()) {
+            	this.responses.add(this.run, agent.getIteration(), ((Vector) globalResponse).getArray());
+            	return;
+            }
             Entry<V> e = new Entry<V>(globalResponse.cloneThis(), agent.getIteration(), this.run);
             log.log(epoch,GlobalResponseVectorLogger.class.getName(), e, 0.0);
         }		
 	}
 
+	/**
+	 * Writes the global response of every iteration as soon as it is logged.
+	 */
+	@Override
+	public void setStreaming(boolean streaming) {
+		this.responses = streaming ? new Responses() : null;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return this.responses != null;
+	}
+
 	@Override
 	public void print(MeasurementLog log) {
+		if (this.isStreaming()) {
+			this.responses.close();
+			return;
+		}
+		if (this.binaryFilepath != null) {
+			LogSink sink = this.openSink();
+			new TreeSet<Object>(log.getTagsOfType(Entry.class)).forEach(obj -> {
+				GlobalResponseVectorLogger.Entry entry = (GlobalResponseVectorLogger.Entry) obj;
+				sink.write(entry.run, entry.iteration, ((Vector) entry.globalResponse).getArray());
+			});
+			sink.close();
+			return;
+		}
 		String outcome = this.extractResponses(log);
     	
         if (this.filepath == null) {
@@ -65,6 +112,28 @@ public class GlobalResponseVectorLogger<V extends DataType<V>> extends AgentLogg
         }
 	}
 	
+	/**
+	 * Opens the output file and writes the goal signal, as run and iteration -1.
+	 */
+	private LogSink openSink() {
+		LogSink sink;
+		if (this.binaryFilepath != null) {
+			sink = BinaryLogSink.float64(this.binaryFilepath, Configuration.planDim);
+		} else {
+			List<String> header = new ArrayList<>();
+			header.add("Run");
+			header.add("Iteration");
+			for (int i = 0; i < Configuration.planDim; i++) {
+				header.add("dim-" + i);
+			}
+			sink = new CsvLogSink(this.filepath, false, header);
+		}
+		if (Configuration.goalSignalSupplier != null) {
+			sink.write(-1, -1, Configuration.goalSignalSupplier.get().getArray());
+		}
+		return sink;
+	}
+	
 	public String extractResponses(MeasurementLog log) {
 		Set<Object> entries = log.getTagsOfType(Entry.class);
 		
@@ -105,7 +174,41 @@ public class GlobalResponseVectorLogger<V extends DataType<V>> extends AgentLogg
 		return sb.toString();
 	}
 	
-	private class Entry<V> implements Comparable<Entry> {
+	/**
+	 * Responses written in the order of runs and iterations, starting with the
+	 * goal signal.
+	 */
+	private class Responses {
+		
+		private LogSink		sink;
+		private int			lastRun			= -1;
+		private int			lastIteration	= -1;
+		
+		void add(int run, int iteration, double[] response) {
+			// as with the sorted entries, only the first response of an iteration is written
+			if (run < this.lastRun || (run == this.lastRun && iteration <= this.lastIteration)) {
+				return;
+			}
+			this.sink().write(run, iteration, response);
+			this.lastRun = run;
+			this.lastIteration = iteration;
+		}
+		
+		private LogSink sink() {
+			if (this.sink == null) {
+				this.sink = openSink();
+			}
+			return this.sink;
+		}
+		
+		void close() {
+			this.sink().close();
+			this.sink = null;
+		}
+		
+	}
+	
+	private static class Entry<V> implements Comparable<Entry>, Serializable {
 
         public int iteration;
         public int run;
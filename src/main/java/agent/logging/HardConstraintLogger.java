@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -166,7 +167,7 @@ public class HardConstraintLogger<V extends DataType<V>> extends AgentLogger<Age
         return sb.toString();
     }
 
-    private class Entry<V> implements Comparable<Entry> {
+    private static class Entry<V> implements Comparable<Entry>, Serializable {
 
         public int iteration;
         public int run;
@@ -0,0 +1,58 @@
+package agent.logging;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Running mean and standard deviation of a measurement per iteration, e.g. of
+ * the global cost over all runs. Only the number, sum and sum of squares of the
+ * values are kept, so the memory grows with the number of iterations, but not
+ * with the number of runs or agents.
+ *
+ * The statistics are computed like <code>protopeer.measurement.Aggregate</code>
+ * does, so adding the values in the order in which the measurement logs are
+ * merged gives the same results.
+ */
+public class IterationAggregate implements Serializable {
+
+	private int[]		numValues	= new int[0];
+	private double[]	sums		= new double[0];
+	private double[]	sumSqrs		= new double[0];
+
+	public void add(int iteration, double value) {
+		if (iteration >= this.numValues.length) {
+			int length = Math.max(iteration + 1, 2 * this.numValues.length);
+			this.numValues = Arrays.copyOf(this.numValues, length);
+			this.sums = Arrays.copyOf(this.sums, length);
+			this.sumSqrs = Arrays.copyOf(this.sumSqrs, length);
+		}
+		this.numValues[iteration]++;
+		this.sums[iteration] += value;
+		this.sumSqrs[iteration] += value * value;
+	}
+
+	/**
+	 * @return the number of iterations from iteration 0 on that have at least one value
+	 */
+	public int getNumIterations() {
+		int iteration = 0;
+		while (iteration < this.numValues.length && this.numValues[iteration] > 0) {
+			iteration++;
+		}
+		return iteration;
+	}
+
+	public int getNumValues(int iteration) {
+		return iteration < this.numValues.length ? this.numValues[iteration] : 0;
+	}
+
+	public double getAverage(int iteration) {
+		return this.sums[iteration] / this.numValues[iteration];
+	}
+
+	public double getStdDev(int iteration) {
+		double average = this.getAverage(iteration);
+		return Math.sqrt(this.sumSqrs[iteration] / this.numValues[iteration] - average * average);
+	}
+
+}
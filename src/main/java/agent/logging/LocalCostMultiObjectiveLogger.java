@@ -16,10 +16,9 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,6 +37,10 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
     private String filename;
     private PlanCostFunction<V> costFunction;
 
+    // streamed costs, shared by the clones of all agents
+    private IterationAggregate aggregate;
+    private TreeMap<Integer, List<Double>> costs;
+
     /**
      * Outputs the average local cost to std-out.
      */
@@ -90,15 +93,42 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
     		double discomfortSum = moieposagent.getGlobalDiscomfortSum();
     		int numAgents = moieposagent.getNumAgents();
             double cost = PlanSelectionOptimizationFunctionCollection.localCost(discomfortSum, numAgents);
+            if (this.isStreaming()) {
+                this.stream(cost, agent.getIteration());
+                return;
+            }
             Token token = new Token(cost, agent.getIteration(), this.run);            
             log.log(epoch, LocalCostMultiObjectiveLogger.class.getName(), token, 1.0);            
             log.log(epoch, LocalCostMultiObjectiveLogger.class.getName() + "raw", agent.getIteration(), cost);
         }
     }
 
+    /**
+     * Keeps the cost of every run and iteration, which are all printed, but only
+     * the running mean and standard deviation over the runs.
+     */
+    @Override
+    public void setStreaming(boolean streaming) {
+        this.aggregate = streaming ? new IterationAggregate() : null;
+        this.costs = streaming ? new TreeMap<>() : null;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return this.aggregate != null;
+    }
+
+    private void stream(double cost, int iteration) {
+        this.aggregate.add(iteration, cost);
+        List<Double> runCosts = this.costs.computeIfAbsent(this.run, run -> new ArrayList<>());
+        if (iteration == runCosts.size()) {
+            runCosts.add(cost);
+        }
+    }
+
     @Override
     public void print(MeasurementLog log) {
-    	String outcome = this.internalFetching(log);    	
+    	String outcome = this.isStreaming() ? this.streamedFetching() : this.internalFetching(log);    	
         if (filename == null) {            
             System.out.print(outcome);
         } else {																					
@@ -121,20 +151,17 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
 		allTokens.addAll(log.getTagsOfType(Token.class));
 		Iterator<Object> iter = allTokens.iterator();
 		
-		HashMap<Integer, ArrayList<Token>> perRun = new HashMap<Integer, ArrayList<Token>>(); 
+		TreeMap<Integer, List<Double>> perRun = new TreeMap<Integer, List<Double>>(); 
 		
 		while(iter.hasNext()) {
 			Token token = (Token) iter.next();			
 			if(!perRun.containsKey(token.run)) {
-				perRun.put(token.run, new ArrayList<Token>());
+				perRun.put(token.run, new ArrayList<Double>());
 			}			
-			ArrayList<Token> thelist = perRun.get(token.run);
-			thelist.add(token);
+			List<Double> thelist = perRun.get(token.run);
+			thelist.add(token.localCost);
 		}
 		
-		ArrayList<Integer> sortedKeys = new ArrayList<>(perRun.keySet());
-		Collections.sort(sortedKeys);
-		
 		///////////////////////////////////////////////////////////////////////////////////////
 		// AVERAGE OVER RUNS
 		
@@ -151,6 +178,22 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
             std.add(aggregate.getStdDev());
         }
         
+        return this.format(perRun, avg, std);
+    }
+
+    private String streamedFetching() {
+        List<Double> avg = new ArrayList<>();
+        List<Double> std = new ArrayList<>();
+        for (int i = 0; i < this.aggregate.getNumIterations(); i++) {
+            avg.add(this.aggregate.getAverage(i));
+            std.add(this.aggregate.getStdDev(i));
+        }
+        return this.format(this.costs, avg, std);
+    }
+
+    private String format(TreeMap<Integer, List<Double>> perRun, List<Double> avg, List<Double> std) {
+		ArrayList<Integer> sortedKeys = new ArrayList<>(perRun.keySet());
+		
 		///////////////////////////////////////////////////////////////////////////////////////
 		// FORMTATTING        
 		
@@ -171,7 +214,7 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
 			  .append("," + std.get(i));
 			
 			for(int j = 0; j < sortedKeys.size(); j++) {
-				sb.append("," + perRun.get(sortedKeys.get(j)).get(i).localCost);
+				sb.append("," + perRun.get(sortedKeys.get(j)).get(i));
 			}
 			sb.append(System.lineSeparator());
 		}
@@ -181,7 +224,7 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
     
     
     //TODO Confirm that change from private to public makes sense
-    public class Token implements Comparable<Token> {
+    public static class Token implements Comparable<Token>, Serializable {
 		
 		public double localCost;
 		public int iteration;
@@ -202,7 +245,7 @@ public class LocalCostMultiObjectiveLogger<V extends DataType<V>> extends AgentL
         }
 
 		@Override
-		public int compareTo(LocalCostMultiObjectiveLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)					return 1;
 			else if (this.run < other.run)					return -1;
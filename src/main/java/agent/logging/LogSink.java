@@ -0,0 +1,28 @@
+package agent.logging;
+
+import java.io.Closeable;
+
+/**
+ * Destination of the records that a streaming {@link AgentLogger} writes while
+ * the experiment runs, instead of collecting them in the measurement log until
+ * the end. A record holds the values of one run and iteration, e.g. the selected
+ * plan of every agent or the global response.
+ */
+public interface LogSink extends Closeable {
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param run		the run of the record
+	 * @param iteration	the iteration of the record
+	 * @param values	the values of the record
+	 */
+	public void write(int run, int iteration, double[] values);
+
+	/**
+	 * Writes the pending records and releases the sink.
+	 */
+	@Override
+	public void close();
+
+}
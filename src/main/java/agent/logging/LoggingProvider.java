@@ -93,6 +93,37 @@ public class LoggingProvider<A extends Agent> {
     	return this.loggers;
     }
 
+    /**
+     * Returns the in-memory logs of the agents of the last run, ordered by
+     * agent id. This is the order in which they are merged by print().
+     *
+     * @return the agent logs of the last run
+     */
+    public List<MeasurementLog> getAgentLogs() {
+        List<MeasurementLog> agentLogs = new ArrayList<>();
+        agentProviders.keySet().stream().sorted().forEach(agentId -> {
+            MeasurementLog agentLog = agentProviders.get(agentId).getInMemoryLog();
+            if (agentLog != null) {
+                agentLogs.add(agentLog);
+            }
+        });
+        return agentLogs;
+    }
+
+    /**
+     * Merges an agent log that was recorded outside of this provider, e.g.
+     * by a simulation executed in isolation, into the experiment log.
+     *
+     * @param agentLog the log of an agent
+     */
+    public void merge(MeasurementLog agentLog) {
+        if (isInMemory()) {
+            log.mergeWith(agentLog);
+        } else {
+            throw new IllegalStateException("Only in-memory logs can be merged.");
+        }
+    }
+
     /**
      * Prints the results for each logger.
      */
@@ -142,7 +142,7 @@ public class PlanFrequencyLogger<V extends DataType<V>> extends AgentLogger<Agen
 		return sb.toString();
     }
 
-    private class Token implements Comparable<Token>  {
+    private static class Token implements Comparable<Token>, Serializable {
 
         public int idx;						// represents id of selected plan
         public int agentId;
@@ -166,7 +166,7 @@ public class PlanFrequencyLogger<V extends DataType<V>> extends AgentLogger<Agen
         }
 
 		@Override
-		public int compareTo(PlanFrequencyLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)				return 1;
 			else if (this.run < other.run)				return -1;
@@ -1,14 +1,14 @@
 package agent.logging;
 
-import java.io.BufferedWriter;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import agent.Agent;
@@ -31,6 +31,10 @@ public class SelectedPlanLogger<V extends DataType<V>> extends AgentLogger<Agent
 	
 	private String 				filepath;
 	private int					totalNumAgents;
+	private String				binaryFilepath;
+	
+	// streamed rows, shared by the clones of all agents
+	private Rows				rows;
 	
     
     /**
@@ -43,6 +47,16 @@ public class SelectedPlanLogger<V extends DataType<V>> extends AgentLogger<Agent
         this.totalNumAgents = totalNumAgents;
     }
 
+    /**
+     * Writes the selected plans bit-packed to the given binary file instead of
+     * the CSV file, see {@link BinaryLogSink}.
+     *
+     * @param binaryFilepath the output file
+     */
+    public void setBinaryOutput(String binaryFilepath) {
+        this.binaryFilepath = binaryFilepath;
+    }
+
 	@Override
 	public void init(Agent<V> agent) {
 		
@@ -50,6 +64,12 @@ public class SelectedPlanLogger<V extends DataType<V>> extends AgentLogger<Agent
 
 	@Override
 	public void log(MeasurementLog log, int epoch, Agent<V> agent) {
+		if (this.isStreaming()) {
+			int agentIdx = agent.getPeer().getIndexNumber();
+			int shuffledIdx = this.run > 0 ? IEPOSExperiment.mappings[this.run - 1][agentIdx] : agentIdx;
+			this.rows.add(this.run, agent.getIteration(), shuffledIdx, agent.getSelectedPlanID());
+			return;
+		}
 		log.log(epoch, 
 				SelectedPlanLogger.class.getName(), 							// tag1
 				"ID-run" + this.run + "-agent" + agent.getPeer().getIndexNumber(), 	// tag2
@@ -57,47 +77,49 @@ public class SelectedPlanLogger<V extends DataType<V>> extends AgentLogger<Agent
 				agent.getSelectedPlanID());										// value
 	}
 
+	/**
+	 * Writes the row of an iteration as soon as all agents selected their plan,
+	 * so only the rows of the iterations in progress are kept.
+	 */
+	@Override
+	public void setStreaming(boolean streaming) {
+		this.rows = streaming ? new Rows() : null;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return this.rows != null;
+	}
+
 	@Override
 	public void print(MeasurementLog log) {
-		String outcome = this.internalFetching(log);
-    	
-        if (this.filepath == null) {
-            System.out.print(outcome);
-        } else {
-            try (PrintWriter out = new PrintWriter(new BufferedWriter(new java.io.FileWriter(this.filepath, true)))) {   
-                out.append(outcome);
-            } catch (FileNotFoundException ex) {
-                Logger.getLogger(SelectedPlanLogger.class.getName()).log(Level.SEVERE, null, ex);
-            } catch(IOException e) {
-            	Logger.getLogger(SelectedPlanLogger.class.getName()).log(Level.SEVERE, null, e);
-            }
-        }
+		if (this.isStreaming()) {
+			this.rows.close();
+			return;
+		}
+		LogSink sink = this.openSink();
+		for(int simID = 0; simID < Configuration.numSimulations; simID++) {
+			this.internalFetchingperRun(log, simID, sink);
+		}
+		sink.close();
 	}
 	
-	private String internalFetching(MeasurementLog log) {
-		StringBuilder sb = new StringBuilder();
-		
-		sb.append("Run")
-		  .append(",")
-		  .append("Iteration")
-		  .append(",");
-		
-		IntStream.range(0, totalNumAgents).forEach(i -> {
-			sb.append("agent-" + i);
-			if(i < totalNumAgents-1) {
-				sb.append(",");
-			}
-		});
-		sb.append(System.lineSeparator());		
-		
-		for(int simID = 0; simID < Configuration.numSimulations; simID++) {
-			sb.append(this.internalFetchingperRun(log, simID));
+	private LogSink openSink() {
+		if (this.binaryFilepath != null) {
+			return BinaryLogSink.packed(this.binaryFilepath, this.totalNumAgents, Configuration.numPlans - 1);
 		}
-		
-		return sb.toString();		
+		return new CsvLogSink(this.filepath, true, this.header(), plan -> String.valueOf((int) plan));
+	}
+	
+	private List<String> header() {
+		List<String> header = new ArrayList<>();
+		header.add("Run");
+		header.add("Iteration");
+		header.addAll(IntStream.range(0, totalNumAgents).mapToObj(i -> "agent-" + i).collect(Collectors.toList()));
+		return header;
 	}
 	
-	private String internalFetchingperRun(MeasurementLog log, int run) {
+	private void internalFetchingperRun(MeasurementLog log, int run, LogSink sink) {
 		HashMap<Integer, List<Double>> selectedPlans = new HashMap<Integer, List<Double>>();
 		
 		for(int i = 0; i < this.totalNumAgents; i++) {
@@ -122,25 +144,70 @@ public class SelectedPlanLogger<V extends DataType<V>> extends AgentLogger<Agent
             		"NODE: " + agentIdx + " Number of samples: " + i);
 		});
 		
-		return this.format(selectedPlans, run);
+		this.format(selectedPlans, run, sink);
 	}
 	
-	private String format(HashMap<Integer, List<Double>> selectedPlans, int run) {
-		StringBuilder sb = new StringBuilder();
+	private void format(HashMap<Integer, List<Double>> selectedPlans, int run, LogSink sink) {
 		int numIterations = selectedPlans.get(0).size();
+		double[] row = new double[this.totalNumAgents];
 		
 		for(int iteration = 0; iteration < numIterations; iteration++) {
-			sb.append(run)
-			  .append(",")
-			  .append(iteration);
-			
 			for(int agentIdx = 0; agentIdx < this.totalNumAgents; agentIdx++) {
-				sb.append(",").append(selectedPlans.get(agentIdx).get(iteration).intValue());
+				row[agentIdx] = selectedPlans.get(agentIdx).get(iteration).intValue();
 			}
-			sb.append(System.lineSeparator());
+			sink.write(run, iteration, row);
+		}
+	}
+	
+	/**
+	 * Rows of the iterations in progress, written in the order of runs and
+	 * iterations once every agent has contributed its plan.
+	 */
+	private class Rows {
+		
+		private final Map<Long, double[]>	pending		= new TreeMap<>();
+		private final Map<Long, Integer>	numPlans	= new HashMap<>();
+		private LogSink						sink;
+		
+		void add(int run, int iteration, int agentIdx, int planID) {
+			long key = ((long) run << 32) | iteration;
+			double[] row = this.pending.computeIfAbsent(key, k -> new double[totalNumAgents]);
+			row[agentIdx] = planID;
+			if (this.numPlans.merge(key, 1, Integer::sum) == totalNumAgents) {
+				this.flush(false);
+			}
+		}
+		
+		/**
+		 * Writes the complete rows in order, or all rows if <code>all</code> is set.
+		 */
+		private void flush(boolean all) {
+			Iterator<Map.Entry<Long, double[]>> iter = this.pending.entrySet().iterator();
+			while (iter.hasNext()) {
+				Map.Entry<Long, double[]> entry = iter.next();
+				long key = entry.getKey();
+				if (!all && this.numPlans.get(key) < totalNumAgents) {
+					break;
+				}
+				this.sink().write((int) (key >>> 32), (int) key, entry.getValue());
+				this.numPlans.remove(key);
+				iter.remove();
+			}
+		}
+		
+		private LogSink sink() {
+			if (this.sink == null) {
+				this.sink = openSink();
+			}
+			return this.sink;
+		}
+		
+		void close() {
+			this.flush(true);
+			this.sink().close();
+			this.sink = null;
 		}
 		
-		return sb.toString();
 	}
 
 }
@@ -185,7 +185,7 @@ public class TerminationLogger<V extends DataType<V>> extends AgentLogger<Agent<
     					   message);
     }
     
-    private class Token implements Comparable<Token> {
+    private static class Token implements Comparable<Token>, Serializable {
 		
 		public int terminalIteration;
 		public int run;
@@ -204,7 +204,7 @@ public class TerminationLogger<V extends DataType<V>> extends AgentLogger<Agent<
         }
 
 		@Override
-		public int compareTo(TerminationLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)					return 1;
 			else if (this.run < other.run)					return -1;
@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -143,7 +144,7 @@ public class UnfairnessLogger<V extends DataType<V>> extends AgentLogger<Agent<V
 		return sb.toString();
     }
 	
-	private class Token implements Comparable<Token> {
+	private static class Token implements Comparable<Token>, Serializable {
 		
 		public double unfairness;
 		public int iteration;
@@ -164,7 +165,7 @@ public class UnfairnessLogger<V extends DataType<V>> extends AgentLogger<Agent<V
         }
 
 		@Override
-		public int compareTo(UnfairnessLogger<V>.Token other) {
+		public int compareTo(Token other) {
 			
 			if		(this.run > other.run)					return 1;
 			else if (this.run < other.run)					return -1;
@@ -357,7 +357,7 @@ public class VisualizerLogger<V extends DataType<V>> extends AgentLogger<TreeAge
 	 * @author jovan
 	 *
 	 */
-	private class TreeNode implements Serializable {
+	private static class TreeNode implements Serializable {
 
 		public final int run;
         public final Finger id;
@@ -20,7 +20,7 @@ public class MultiObjectiveIeposPlanSelector<V extends DataType<V>> implements P
         otherResponse.subtract(agent.getPrevAggregatedResponse());
         otherResponse.add(agent.getAggregatedResponse());
         
-        double score = agent.getLocalCostFunction().calcCost(agent.getPrevSelectedPlan());
+        double score = agent.getPrevSelectedPlan().getStatistics(agent.getLocalCostFunction()).getLocalCost();
 //        if(((Vector)agent.getPrevSelectedPlan().getValue()).sum() == 0.0) {
 //        	score = 0.0;
 //        } else {
@@ -0,0 +1,15 @@
+package agent.planselection;
+
+/**
+ * Primitive counterpart of {@link PlanSelectionOptimizationFunction} that combines
+ * the global cost with the discomfort statistics of a candidate. It is evaluated
+ * once per plan and per child combination, so the factors are passed directly
+ * instead of through a map of boxed values.
+ */
+@FunctionalInterface
+public interface PlanSelectionObjective {
+
+	public double apply(double globalCost, double discomfortSum, double discomfortSumSqr,
+			double alpha, double beta, double numAgents);
+
+}
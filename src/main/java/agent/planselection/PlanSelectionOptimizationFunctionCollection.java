@@ -78,14 +78,11 @@ public class PlanSelectionOptimizationFunctionCollection {
 	}
 	
 	
-	public static PlanSelectionOptimizationFunction complexFunction1 = (HashMap<OptimizationFactor, Object> map) -> {
-		double alpha			=	(double)	map.get(OptimizationFactor.ALPHA);
-		double beta				=	(double)	map.get(OptimizationFactor.BETA);
-		double discomfortSum	=	(double)	map.get(OptimizationFactor.DISCOMFORT_SUM);
-		double discomfortSumSqr =	(double)	map.get(OptimizationFactor.DISCOMFORT_SUM_SQR);
-		double global_cost		=	(double)	map.get(OptimizationFactor.GLOBAL_COST);
-		double numAgents		=	(double)	map.get(OptimizationFactor.NUM_AGENTS);
-		
+	/**
+	 * (1 - alpha - beta) * global cost + alpha * unfairness + beta * local cost
+	 */
+	public static PlanSelectionObjective complexObjective1 = (double global_cost, double discomfortSum,
+			double discomfortSumSqr, double alpha, double beta, double numAgents) -> {
 		double local_cost		=	localCost(discomfortSum, numAgents);
 		double unfairness		=	unfairness(discomfortSum, discomfortSumSqr, numAgents); 
 		
@@ -97,5 +94,40 @@ public class PlanSelectionOptimizationFunctionCollection {
 //		System.out.println("alpha = " + alpha + ", beta = " + beta + ", returning: " + ((1 - alpha - beta) * global_cost + alpha * unfairness + beta * local_cost));
 		return (1 - alpha - beta) * global_cost + alpha * unfairness + beta * local_cost;
 	};
+	
+	
+	public static PlanSelectionOptimizationFunction complexFunction1 = (HashMap<OptimizationFactor, Object> map) -> {
+		double alpha			=	(double)	map.get(OptimizationFactor.ALPHA);
+		double beta				=	(double)	map.get(OptimizationFactor.BETA);
+		double discomfortSum	=	(double)	map.get(OptimizationFactor.DISCOMFORT_SUM);
+		double discomfortSumSqr =	(double)	map.get(OptimizationFactor.DISCOMFORT_SUM_SQR);
+		double global_cost		=	(double)	map.get(OptimizationFactor.GLOBAL_COST);
+		double numAgents		=	(double)	map.get(OptimizationFactor.NUM_AGENTS);
+		
+		return complexObjective1.apply(global_cost, discomfortSum, discomfortSumSqr, alpha, beta, numAgents);
+	};
+	
+	
+	/**
+	 * Adapts a function of the factors map to the primitive objective, which passes
+	 * the factors in a new map on every evaluation. complexFunction1 is adapted to
+	 * complexObjective1 without the map.
+	 */
+	public static PlanSelectionObjective asObjective(PlanSelectionOptimizationFunction function) {
+		if(function == complexFunction1) {
+			return complexObjective1;
+		}
+		return (double global_cost, double discomfortSum, double discomfortSumSqr, double alpha, double beta,
+				double numAgents) -> {
+			HashMap<OptimizationFactor, Object> parameters = new HashMap<OptimizationFactor, Object>();
+			parameters.put(OptimizationFactor.GLOBAL_COST, global_cost);
+			parameters.put(OptimizationFactor.DISCOMFORT_SUM, discomfortSum);
+			parameters.put(OptimizationFactor.DISCOMFORT_SUM_SQR, discomfortSumSqr);
+			parameters.put(OptimizationFactor.ALPHA, alpha);
+			parameters.put(OptimizationFactor.BETA, beta);
+			parameters.put(OptimizationFactor.NUM_AGENTS, numAgents);
+			return function.apply(parameters);
+		};
+	}
 
 }
@@ -33,17 +33,23 @@ import org.reflections.Reflections;
 import com.google.common.collect.Sets;
 
 import agent.ModifiableIeposAgent;
+import agent.dataset.BinaryVectorDataset;
+import agent.dataset.CachedDataset;
 import agent.dataset.Dataset;
 import agent.dataset.DatasetDescriptor;
 import agent.dataset.DatasetShuffler;
 import agent.dataset.FileVectorDataset;
 import agent.dataset.GaussianDataset;
+import agent.planselection.PlanSelectionObjective;
 import agent.planselection.PlanSelectionOptimizationFunction;
 import agent.planselection.PlanSelectionOptimizationFunctionCollection;
+import data.FloatVector;
 import data.Vector;
+import data.VectorKernels;
 import dsutil.generic.RankPriority;
 import dsutil.protopeer.services.topology.trees.DescriptorType;
 import dsutil.protopeer.services.topology.trees.TreeType;
+import func.CrossCorrelationCostFunction;
 import func.DifferentiableCostFunction;
 import func.HasGoal;
 import func.IndexCostFunction;
@@ -84,7 +90,20 @@ public class Configuration {
 	public static BalanceType balance = BalanceType.WEIGHT_BALANCED;
 
 	public static int numSimulations = 1;
+	public static int numSimulationThreads = 1;
+	public static String engine = "protopeer";
+	public static int numEngineThreads = 1;
+	public static boolean populationStore = false;
+	public static String treeGenerator = "protopeer";
 	public static int numIterations = 40;
+	public static double terminationTolerance = 0;
+	public static int terminationPatience = 0;
+	public static long planCacheSize = 0;
+	public static boolean prunePlans = false;
+	public static String vectorKernels = "scalar";
+	public static String planPrecision = "double";
+	public static boolean streamLogs = false;
+	public static boolean binaryLogs = false;
 	public static int numChildren = 2;
 
 	public static double numberOfWeights = 0;
@@ -111,6 +130,13 @@ public class Configuration {
 	public static PlanCostFunction localCostFunc = new IndexCostFunction();
 	public static Supplier<Vector> goalSignalSupplier = null;
 	public static UnaryOperator<Vector> normalizer = Vector.standard_normalization;
+	public static PlanSelectionObjective planSelectionObjective = PlanSelectionOptimizationFunctionCollection.complexObjective1;
+	/**
+	 * @deprecated assign {@link #planSelectionObjective} instead. A function other
+	 * than <code>complexFunction1</code> assigned here still takes precedence, and is
+	 * evaluated with a map of the factors, see {@link #getPlanSelectionObjective()}
+	 */
+	@Deprecated
 	public static PlanSelectionOptimizationFunction planOptimizationFunction = PlanSelectionOptimizationFunctionCollection.complexFunction1;
 
 	////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -126,6 +152,11 @@ public class Configuration {
 	public int memorizationOffset = 5;
 	public ReorganizationStrategyType reorganizationStrategy = ReorganizationStrategyType.NEVER;
 	public double convergenceTolerance = 0.5;
+	public int subtreeSwaps = 0; // 0 rebuilds the tree at every reorganization
+	public boolean batchedTreeViews = false; // the root requests the views of all agents at once
+	public int candidateStructures = 1; // trees evaluated per reorganization, 1 takes the first
+	public int candidateIterations = 3; // iterations run on every candidate tree
+	public int candidateThreads = 1; // threads that evaluate the candidate trees, numEngineThreads if not set
 
 	///////////////////////////////////////////////////////////////////////////////////////////////////
 	// LOGGING INSTRUMENTATION:
@@ -138,8 +169,10 @@ public class Configuration {
 	public static final String localCostFilename = "local-cost.csv";
 	public static final String terminationFilename = "termination.csv";
 	public static final String selectedPlanFilename = "selected-plans.csv";
+	public static final String selectedPlanBinaryFilename = "selected-plans.bin";
 	public static final String numReorganizationsFilename = "num-reorganizations.csv";
 	public static final String globalResponseFilename = "global-response.csv";
+	public static final String globalResponseBinaryFilename = "global-response.bin";
 	public static final String fairnessFilename = "fairness-distribution.csv";
 	public static final String distributionFilename = "indexes-histogram.csv";
 	public static final String initialStructureBaseFilename = "metric_permutations/"; // "datasets/initial-full-tree-";
@@ -156,6 +189,11 @@ public class Configuration {
 	public static final String agentsMappingOrder = "agents-position.csv";
 
 	public static Set<AgentLogger> loggers = new HashSet<>();
+
+	private BinaryVectorDataset binaryDataset = null;
+	private String binaryDatasetName = null;
+	private CachedDataset planCache = null;
+	private String planCacheKey = null;
 	/**
 	 * Default mapping is 0->0, 1->1, 2->2, ...
 	 */
@@ -190,15 +228,71 @@ public class Configuration {
 		return new GaussianDataset(numPlans, planDim, 0, 1, random);
 	}
 
+	/**
+	 * Returns the dataset with the given name. A binary dataset, see
+	 * <code>BinaryVectorDataset</code>, is preferred over the text files and is
+	 * opened only once. Unless <code>planCacheSize</code> is 0, the plans are
+	 * loaded on demand and kept in a <code>CachedDataset</code>, so the
+	 * simulations of this configuration share the plans of the agents that the
+	 * mapping selects instead of parsing them again.
+	 */
 	public Dataset<Vector> getDataset(String datasetName) {
-		FileVectorDataset dataset = new FileVectorDataset("datasets/" + datasetName + "/");
+		if (Configuration.planCacheSize <= 0) {
+			return this.getUncachedDataset(datasetName);
+		}
+		String key = datasetName + "/" + Configuration.numPlans;
+		if (this.planCache == null || !key.equals(this.planCacheKey)) {
+			this.planCache = new CachedDataset(this.getUncachedDataset(datasetName), Configuration.planCacheSize);
+			this.planCacheKey = key;
+		}
+		return this.planCache;
+	}
+
+	private Dataset<Vector> getUncachedDataset(String datasetName) {
+		String datasetDir = "datasets/" + datasetName + "/";
+		if (BinaryVectorDataset.exists(datasetDir)) {
+			if (this.binaryDataset == null || !datasetName.equals(this.binaryDatasetName)) {
+				this.binaryDataset = new BinaryVectorDataset(datasetDir);
+				this.binaryDatasetName = datasetName;
+			}
+			return this.binaryDataset;
+		}
+		FileVectorDataset dataset = new FileVectorDataset(datasetDir);
 		return dataset;
 	}
 
+	/**
+	 * @return the objective of the plan selection: <code>planSelectionObjective</code>,
+	 * unless the deprecated <code>planOptimizationFunction</code> was changed
+	 */
+	@SuppressWarnings("deprecation")
+	public static PlanSelectionObjective getPlanSelectionObjective() {
+		if (Configuration.planOptimizationFunction == PlanSelectionOptimizationFunctionCollection.complexFunction1) {
+			return Configuration.planSelectionObjective;
+		}
+		return PlanSelectionOptimizationFunctionCollection.asObjective(Configuration.planOptimizationFunction);
+	}
+
 	public static boolean shouldReadInitialPermutationFromFile() {
 		return Configuration.permutationFile != null;
 	}
 
+	/**
+	 * @return a vector of zeros for the values of a plan, in single precision if
+	 * <code>planPrecision</code> is <code>float</code>
+	 */
+	public static Vector createPlanVector(int numDimensions) {
+		return Configuration.planPrecision.equals("float") ? new FloatVector(numDimensions) : new Vector(numDimensions);
+	}
+
+	/**
+	 * @return a vector of the given values of a plan, in single precision if
+	 * <code>planPrecision</code> is <code>float</code>
+	 */
+	public static Vector createPlanVector(double[] values) {
+		return Configuration.planPrecision.equals("float") ? new FloatVector(values) : new Vector(values);
+	}
+
 	public Configuration() {
 		// created empty and then populated from file
 	}
@@ -232,6 +326,10 @@ public class Configuration {
 		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.selectedPlanFilename;
 	}
 
+	public static String getSelectedPlansBinaryPath() {
+		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.selectedPlanBinaryFilename;
+	}
+
 	public static String getReorganizationPath() {
 		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.numReorganizationsFilename;
 	}
@@ -248,6 +346,10 @@ public class Configuration {
 		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.globalResponseFilename;
 	}
 
+	public static String getGlobalResponseBinaryPath() {
+		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.globalResponseBinaryFilename;
+	}
+
 	public static String getUnfairnessPath() {
 		return Configuration.outputDirectory + Configuration.pathDelimiter + Configuration.unfairnessFilename;
 	}
@@ -288,17 +390,30 @@ public class Configuration {
 		sb.append("output = ").append(Configuration.outputDirectory).append(System.lineSeparator());
 		sb.append("==============").append(System.lineSeparator());
 		sb.append("numSimulations = ").append(Configuration.numSimulations).append(System.lineSeparator());
+		sb.append("numSimulationThreads = ").append(Configuration.numSimulationThreads).append(System.lineSeparator());
+		sb.append("engine = ").append(Configuration.engine).append(System.lineSeparator());
+		sb.append("numEngineThreads = ").append(Configuration.numEngineThreads).append(System.lineSeparator());
+		sb.append("populationStore = ").append(Configuration.populationStore).append(System.lineSeparator());
+		sb.append("treeGenerator = ").append(Configuration.treeGenerator).append(System.lineSeparator());
 		sb.append("dataset = ").append(Configuration.dataset).append(System.lineSeparator());
 		sb.append("numAgents = ").append(Configuration.numAgents).append(System.lineSeparator());
 		sb.append("numPlans = ").append(Configuration.numPlans).append(System.lineSeparator());
 		sb.append("planDim = ").append(Configuration.planDim).append(System.lineSeparator());
 		sb.append("numIterations = ").append(Configuration.numIterations).append(System.lineSeparator());
+		sb.append("terminationTolerance = ").append(Configuration.terminationTolerance).append(System.lineSeparator());
+		sb.append("terminationPatience = ").append(Configuration.terminationPatience).append(System.lineSeparator());
+		sb.append("planCacheSize = ").append(Configuration.planCacheSize).append(System.lineSeparator());
+		sb.append("prunePlans = ").append(Configuration.prunePlans).append(System.lineSeparator());
+		sb.append("vectorKernels = ").append(Configuration.vectorKernels).append(System.lineSeparator());
+		sb.append("planPrecision = ").append(Configuration.planPrecision).append(System.lineSeparator());
 		sb.append("numChildren = ").append(Configuration.numChildren).append(System.lineSeparator());
 		sb.append("--------------").append(System.lineSeparator());
 		sb.append("alpha = ").append(this.weights[0]).append(System.lineSeparator());
 		sb.append("beta = ").append(this.weights[1]).append(System.lineSeparator());
 		sb.append("global cost function = ").append(Configuration.globalCostFunc.toString())
 				.append(System.lineSeparator());
+		sb.append("crossCorrelationSliding = ").append(CrossCorrelationCostFunction.shouldSlide)
+				.append(System.lineSeparator());
 		sb.append("local cost function = ").append(Configuration.localCostFunc.toString())
 				.append(System.lineSeparator());
 		sb.append("goal signal = ").append(
@@ -313,8 +428,15 @@ public class Configuration {
 		sb.append("memorizationOffset = ").append(this.memorizationOffset).append(System.lineSeparator());
 		sb.append("reorganizationStrategy = ").append(this.reorganizationStrategy).append(System.lineSeparator());
 		sb.append("convergenceTolerance = ").append(this.convergenceTolerance).append(System.lineSeparator());
+		sb.append("subtreeSwaps = ").append(this.subtreeSwaps).append(System.lineSeparator());
+		sb.append("batchedTreeViews = ").append(this.batchedTreeViews).append(System.lineSeparator());
+		sb.append("candidateStructures = ").append(this.candidateStructures).append(System.lineSeparator());
+		sb.append("candidateIterations = ").append(this.candidateIterations).append(System.lineSeparator());
+		sb.append("candidateThreads = ").append(this.candidateThreads).append(System.lineSeparator());
 		sb.append("--------------").append(System.lineSeparator());
 		sb.append("loggingLevel = ").append(Configuration.loggingLevel).append(System.lineSeparator());
+		sb.append("streamLogs = ").append(Configuration.streamLogs).append(System.lineSeparator());
+		sb.append("binaryLogs = ").append(Configuration.binaryLogs).append(System.lineSeparator());
 
 		String selectedLoggers = this.loggers.stream().map(l -> l.getClass().getSimpleName())
 				.reduce((s1, s2) -> s1 + ", " + s2).orElse("None");
@@ -348,6 +470,39 @@ public class Configuration {
 			Configuration.numSimulations = 1;
 		}
 
+		if (argMap.get("numSimulationThreads") != null) {
+			Configuration.numSimulationThreads = Helper.clearInt((String) argMap.get("numSimulationThreads"));
+		} else {
+			Configuration.numSimulationThreads = 1;
+		}
+
+		if (argMap.get("engine") != null) {
+			Configuration.engine = (String) argMap.get("engine");
+		} else {
+			Configuration.engine = "protopeer";
+		}
+
+		if (argMap.get("numEngineThreads") != null) {
+			Configuration.numEngineThreads = Helper.clearInt((String) argMap.get("numEngineThreads"));
+		} else {
+			Configuration.numEngineThreads = 1;
+		}
+
+		if (argMap.get("populationStore") != null) {
+			Configuration.populationStore = Boolean.parseBoolean(((String) argMap.get("populationStore")).trim());
+		} else {
+			Configuration.populationStore = false;
+		}
+
+		if (argMap.get("treeGenerator") != null) {
+			Configuration.treeGenerator = ((String) argMap.get("treeGenerator")).trim();
+			if (!Configuration.treeGenerator.equals("protopeer") && !Configuration.treeGenerator.equals("native")) {
+				throw new IllegalArgumentException("Unknown tree generator: " + Configuration.treeGenerator);
+			}
+		} else {
+			Configuration.treeGenerator = "protopeer";
+		}
+
 		if (argMap.get("numIterations") != null) {
 			Configuration.numIterations = Helper.clearInt((String) argMap.get("numIterations"));
 		} else {
@@ -355,6 +510,52 @@ public class Configuration {
 			Configuration.numIterations = 20;
 		}
 
+		if (argMap.get("terminationTolerance") != null) {
+			Configuration.terminationTolerance = Double.parseDouble(Helper.clearNumericString((String) argMap.get("terminationTolerance")));
+		} else {
+			Configuration.terminationTolerance = 0;
+		}
+
+		if (argMap.get("terminationPatience") != null) {
+			Configuration.terminationPatience = Helper.clearInt((String) argMap.get("terminationPatience"));
+		} else {
+			Configuration.terminationPatience = 0;
+		}
+
+		if (argMap.get("planCacheSize") != null) {
+			Configuration.planCacheSize = Long.parseLong(Helper.clearNumericString((String) argMap.get("planCacheSize")));
+		} else {
+			Configuration.planCacheSize = 0;
+		}
+
+		if (argMap.get("prunePlans") != null) {
+			Configuration.prunePlans = Boolean.parseBoolean(((String) argMap.get("prunePlans")).trim());
+		} else {
+			Configuration.prunePlans = false;
+		}
+
+		if (argMap.get("vectorKernels") != null) {
+			Configuration.vectorKernels = ((String) argMap.get("vectorKernels")).trim();
+		} else {
+			Configuration.vectorKernels = "scalar";
+		}
+		Vector.setKernels(VectorKernels.forName(Configuration.vectorKernels));
+
+		if (argMap.get("planPrecision") != null) {
+			Configuration.planPrecision = ((String) argMap.get("planPrecision")).trim();
+			if (!Configuration.planPrecision.equals("double") && !Configuration.planPrecision.equals("float")) {
+				throw new IllegalArgumentException("Unknown plan precision: " + Configuration.planPrecision);
+			}
+		} else {
+			Configuration.planPrecision = "double";
+		}
+
+		if (Configuration.prunePlans && !Configuration.vectorKernels.equals("scalar")) {
+			Configuration.log.log(Level.WARNING, "prunePlans bounds the rounding errors of the scalar kernels only, "
+					+ "plans are not pruned with vectorKernels = " + Configuration.vectorKernels);
+			Configuration.prunePlans = false;
+		}
+
 		if (argMap.get("numAgents") != null) {
 			Configuration.numAgents = Helper.clearInt((String) argMap.get("numAgents"));
 
@@ -400,6 +601,18 @@ public class Configuration {
 	}
 
 	public static Configuration fromFile(String path) {
+		return fromFile(path, null);
+	}
+
+	/**
+	 * Reads the configuration from the given properties file.
+	 *
+	 * @param path            path of the properties file
+	 * @param outputDirectory directory where results are written; null creates a
+	 *                        new timestamped directory under <code>output</code>
+	 * @return the configuration
+	 */
+	public static Configuration fromFile(String path, String outputDirectory) {
 
 		Configuration config = new Configuration();
 
@@ -413,7 +626,7 @@ public class Configuration {
 
 		propertyCleanUp(argMap);
 		setUpEposBasicParams(argMap, config);
-		prepareDataset(argMap);
+		prepareDataset(argMap, outputDirectory);
 		prepareReorganization(argMap, config);
 		prepareCostFunctions(argMap, config);
 		prepareLoggers(argMap, config);
@@ -474,17 +687,35 @@ public class Configuration {
 				.filter(key -> argMap.containsKey(key) && argMap.getProperty(key).equals("true"))
 				.collect(Collectors.toSet());
 
+		if (argMap.get("binaryLogs") != null) {
+			Configuration.binaryLogs = Boolean.parseBoolean(((String) argMap.get("binaryLogs")).trim());
+		} else {
+			Configuration.binaryLogs = false;
+		}
+
 		Configuration.loggers = initializeLoggers(selectedLoggers);
+
+		if (argMap.get("streamLogs") != null) {
+			Configuration.streamLogs = Boolean.parseBoolean(((String) argMap.get("streamLogs")).trim());
+		} else {
+			Configuration.streamLogs = false;
+		}
+		Configuration.loggers.forEach(logger -> logger.setStreaming(Configuration.streamLogs));
 	}
 
 	public static void prepareDataset(Properties argMap) {
+		prepareDataset(argMap, null);
+	}
+
+	public static void prepareDataset(Properties argMap, String outputDirectory) {
 		if (argMap.get("dataset") != null) {
 			String dataset = (String) argMap.get("dataset");
 			Configuration.dataset = dataset;
 			Configuration.selectedDataset = new DatasetDescriptor(dataset, Configuration.planDim,
 					Configuration.numAgents, Configuration.numPlans);
-			Configuration.outputDirectory = System.getProperty("user.dir") + File.separator + "output" + File.separator
-					+ dataset + "_" + System.currentTimeMillis() / 1000;
+			Configuration.outputDirectory = outputDirectory != null ? outputDirectory
+					: System.getProperty("user.dir") + File.separator + "output" + File.separator + dataset + "_"
+							+ System.currentTimeMillis() / 1000;
 			// Configuration.outputDirectory = "output";
 
 			Configuration.logDirectory = Configuration.outputDirectory;
@@ -500,24 +731,34 @@ public class Configuration {
 			Set<Integer> requested = IntStream.range(0, Configuration.numAgents).boxed().collect(Collectors.toSet());
 			Set<Integer> found = new HashSet<>();
 
-			Helper.walkPaths(datasetPath).filter(p -> new File(p).getName().matches("agent_\\d++.plans")).sorted()
-					.forEach(p -> {
-						File file = new File(p);
-						int c_agent = Helper
-								.clearInt(file.getName().replaceAll("agent_", "").replaceAll("\\.plans", ""));
+			if (BinaryVectorDataset.exists(datasetPath)) {
+				// the header of the binary dataset already holds the dimensions
+				BinaryVectorDataset binaryDataset = new BinaryVectorDataset(datasetPath);
+				IntStream.range(0, binaryDataset.getNumAgents()).filter(a -> binaryDataset.getNumPlans(a) > 0)
+						.forEach(found::add);
+				maxPlans.set(binaryDataset.getNumPlans());
+				maxPlanDims.set(binaryDataset.getPlanDim());
+				Configuration.log.log(Level.INFO, "Using binary dataset " + datasetPath + BinaryVectorDataset.FILENAME);
+			} else {
+				Helper.walkPaths(datasetPath).filter(p -> new File(p).getName().matches("agent_\\d++.plans")).sorted()
+						.forEach(p -> {
+							File file = new File(p);
+							int c_agent = Helper
+									.clearInt(file.getName().replaceAll("agent_", "").replaceAll("\\.plans", ""));
 
-						AtomicInteger cMaxPlans = new AtomicInteger(0);
+							AtomicInteger cMaxPlans = new AtomicInteger(0);
 
-						Helper.readFile(p).forEach(f -> {
-							int c_dims = f.split(",").length;
-							maxPlanDims.set(maxPlans.get() > c_dims ? maxPlans.get() : c_dims);
-							cMaxPlans.getAndIncrement();
-						});
+							Helper.readFile(p).forEach(f -> {
+								int c_dims = f.split(",").length;
+								maxPlanDims.set(maxPlans.get() > c_dims ? maxPlans.get() : c_dims);
+								cMaxPlans.getAndIncrement();
+							});
 
-						maxPlans.set(maxPlans.get() > cMaxPlans.get() ? maxPlans.get() : cMaxPlans.get());
-						found.add(c_agent);
+							maxPlans.set(maxPlans.get() > cMaxPlans.get() ? maxPlans.get() : cMaxPlans.get());
+							found.add(c_agent);
 
-					});
+						});
+			}
 
 			int totalFound = found.size();
 			int difference = Sets.difference(requested, found).size();
@@ -661,6 +902,13 @@ public class Configuration {
 			Configuration.log.log(Level.WARNING, "Default globalCostFunction = VAR is applied.");
 		}
 
+		if (argMap.get("crossCorrelationSliding") != null) {
+			CrossCorrelationCostFunction.shouldSlide = Boolean
+					.parseBoolean(((String) argMap.get("crossCorrelationSliding")).trim());
+		} else {
+			CrossCorrelationCostFunction.shouldSlide = false;
+		}
+
 		if (argMap.get("localCostFunction") != null) {
 			Configuration.localCostFunc = costFunctions.get(argMap.get("localCostFunction"));
 		} else {
@@ -714,6 +962,11 @@ public class Configuration {
 			Configuration.log.log(Level.WARNING, "Default reorganizaiton strategy of no-reorganization is applied.");
 		}
 
+		if (Configuration.engine.equals("direct") && config.reorganizationStrategy != ReorganizationStrategyType.NEVER) {
+			Configuration.log.log(Level.WARNING, "Reorganization requires the tree server, the protopeer engine is applied.");
+			Configuration.engine = "protopeer";
+		}
+
 		if (argMap.get("reorganizationSeed") != null) {
 			config.reorganizationSeed = Long
 					.parseLong(Helper.clearNumericString((String) argMap.get("reorganizationSeed")));
@@ -721,6 +974,47 @@ public class Configuration {
 			Configuration.log.log(Level.WARNING, "Default reorganizationSeed = 0 is applied.");
 			config.reorganizationSeed = 0;
 		}
+
+		if (argMap.get("strategy.subtreeSwaps") != null) {
+			config.subtreeSwaps = Helper.clearInt((String) argMap.get("strategy.subtreeSwaps"));
+			if (config.subtreeSwaps < 0) {
+				throw new IllegalArgumentException("Number of subtree swaps must not be negative: " + config.subtreeSwaps);
+			}
+		}
+
+		if (argMap.get("strategy.batchedTreeViews") != null) {
+			config.batchedTreeViews = Boolean.parseBoolean(((String) argMap.get("strategy.batchedTreeViews")).trim());
+		}
+
+		if (argMap.get("strategy.candidateStructures") != null) {
+			config.candidateStructures = Helper.clearInt((String) argMap.get("strategy.candidateStructures"));
+			if (config.candidateStructures < 1) {
+				throw new IllegalArgumentException("Number of candidate structures must be positive: " + config.candidateStructures);
+			}
+		}
+
+		if (argMap.get("strategy.candidateIterations") != null) {
+			config.candidateIterations = Helper.clearInt((String) argMap.get("strategy.candidateIterations"));
+			if (config.candidateIterations < 1) {
+				throw new IllegalArgumentException("Number of candidate iterations must be positive: " + config.candidateIterations);
+			}
+		}
+
+		if (argMap.get("strategy.candidateThreads") != null) {
+			config.candidateThreads = Helper.clearInt((String) argMap.get("strategy.candidateThreads"));
+			if (config.candidateThreads < 1) {
+				throw new IllegalArgumentException("Number of candidate threads must be positive: " + config.candidateThreads);
+			}
+		} else {
+			config.candidateThreads = Configuration.numEngineThreads;
+		}
+
+		if (config.candidateStructures > 1 && config.subtreeSwaps > 0) {
+			Configuration.log.log(Level.WARNING, "Candidate structures are only evaluated when the tree is rebuilt, subtree swaps are applied without.");
+		} else if (config.candidateStructures > 1 && config.batchedTreeViews) {
+			Configuration.log.log(Level.WARNING, "Candidate structures are evaluated once all agents have requested their views, tree views are not batched.");
+			config.batchedTreeViews = false;
+		}
 	}
 
 	public static boolean prepareGoalSignal(Properties argMap) {
@@ -835,6 +1129,11 @@ public class Configuration {
 		PLogger.setRun(Configuration.permutationID);
 		HCLogger.setRun(Configuration.permutationID);
 
+		if (Configuration.binaryLogs) {
+			SPLogger.setBinaryOutput(Configuration.getSelectedPlansBinaryPath());
+			GRVLogger.setBinaryOutput(Configuration.getGlobalResponseBinaryPath());
+		}
+
 		Map<String, AgentLogger> result = Arrays
 				.stream(new AgentLogger[] { GCLogger, LCLogger, TLogger, SPLogger, GRVLogger, DstLogger, ULogger,
 						GCXLogger, WLogger, RLogger, VLogger, PLogger, HCLogger })
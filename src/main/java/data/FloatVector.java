@@ -0,0 +1,272 @@
+package data;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.complex.Complex;
+
+/**
+ * A {@link Vector} that stores its values in single precision, for plans, which
+ * are numerous and never modified during a simulation. It halves the memory of
+ * the plans and the memory traffic of the plan selection.
+ *
+ * Sums are still computed in double precision: every value is widened before it
+ * is added, and the copies of a float vector that serve as aggregates, see
+ * {@link #cloneNew()}, are double precision vectors. The hot operations with a
+ * float vector as the delta, i.e. adding it to or subtracting it from a vector
+ * and the statistics of <code>base + delta</code>, read the floats directly.
+ * All other operations work on a widened copy. A float vector has no array of
+ * doubles: callers that need one ask for {@link #widen()} explicitly.
+ */
+public class FloatVector extends Vector {
+
+	final float[]		floats;
+
+	public FloatVector(int numDimensions) {
+		this(new float[numDimensions]);
+	}
+
+	public FloatVector(float[] floats) {
+		super((double[]) null);
+		this.floats = floats;
+	}
+
+	/**
+	 * @param values the values, rounded to the nearest float
+	 */
+	public FloatVector(double[] values) {
+		this(new float[values.length]);
+		for (int i = 0; i < values.length; i++) {
+			this.floats[i] = (float) values[i];
+		}
+	}
+
+	/**
+	 * @return a double precision copy of this vector
+	 */
+	@Override
+	public Vector widen() {
+		double[] values = new double[this.floats.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = this.floats[i];
+		}
+		return new Vector(values);
+	}
+
+	/**
+	 * Rounds the values of the given vector into this vector.
+	 */
+	private void narrow(Vector other) {
+		for (int i = 0; i < this.floats.length; i++) {
+			this.floats[i] = (float) other.getValue(i);
+		}
+	}
+
+	/**
+	 * @throws UnsupportedOperationException always, the values are floats, see
+	 * {@link #widen()}
+	 */
+	@Override
+	public double[] getArray() {
+		throw new UnsupportedOperationException("A float vector has no array of doubles, widen it first");
+	}
+
+	@Override
+	public double[] getValues() {
+		return this.getArray();
+	}
+
+	@Override
+	public void setValue(int idx, double value) {
+		this.floats[idx] = (float) value;
+	}
+
+	@Override
+	public double getValue(int idx) {
+		return this.floats[idx];
+	}
+
+	@Override
+	public int getNumDimensions() {
+		return this.floats.length;
+	}
+
+	@Override
+	public double sum() {
+		double sum = 0.0;
+		for (float val : this.floats) {
+			sum += val;
+		}
+		return sum;
+	}
+
+	@Override
+	public double avg() {
+		return this.sum() / this.floats.length;
+	}
+
+	@Override
+	public double dot(Vector other) {
+		return other instanceof FloatVector ? this.widen().dot(other) : other.dot(this);
+	}
+
+	@Override
+	public double dotDiff(Vector a, Vector b) {
+		return this.widen().dotDiff(a, b);
+	}
+
+	@Override
+	public double entropy() {
+		return this.widen().entropy();
+	}
+
+	@Override
+	public double variance() {
+		return this.widen().variance();
+	}
+
+	@Override
+	public double addAndVariance(Vector other) {
+		this.add(other);
+		return this.variance();
+	}
+
+	@Override
+	public double relativeStd() {
+		return this.widen().relativeStd();
+	}
+
+	@Override
+	public double max() {
+		return this.widen().max();
+	}
+
+	@Override
+	public double min() {
+		return this.widen().min();
+	}
+
+	@Override
+	public double norm(double p) {
+		return this.widen().norm(p);
+	}
+
+	@Override
+	public double normSqr() {
+		return this.widen().normSqr();
+	}
+
+	@Override
+	public double correlationCoefficient(Vector other) {
+		return this.widen().correlationCoefficient(other);
+	}
+
+	@Override
+	public double rootMeanSquareError(Vector other) {
+		return this.widen().rootMeanSquareError(other);
+	}
+
+	@Override
+	public void set(Vector other) {
+		this.narrow(other);
+	}
+
+	@Override
+	public void set(double value) {
+		Arrays.fill(this.floats, (float) value);
+	}
+
+	@Override
+	public void add(Vector other) {
+		Vector sum = this.widen();
+		sum.add(other);
+		this.narrow(sum);
+	}
+
+	@Override
+	public void add(double value) {
+		Vector sum = this.widen();
+		sum.add(value);
+		this.narrow(sum);
+	}
+
+	@Override
+	public void subtract(Vector other) {
+		Vector difference = this.widen();
+		difference.subtract(other);
+		this.narrow(difference);
+	}
+
+	@Override
+	public void subtract(double value) {
+		Vector difference = this.widen();
+		difference.subtract(value);
+		this.narrow(difference);
+	}
+
+	@Override
+	public void multiply(Vector other) {
+		Vector product = this.widen();
+		product.multiply(other);
+		this.narrow(product);
+	}
+
+	@Override
+	public void multiply(double factor) {
+		Vector product = this.widen();
+		product.multiply(factor);
+		this.narrow(product);
+	}
+
+	@Override
+	public void pow(double x) {
+		Vector power = this.widen();
+		power.pow(x);
+		this.narrow(power);
+	}
+
+	@Override
+	public void reverse() {
+		Vector reversed = this.widen();
+		reversed.reverse();
+		this.narrow(reversed);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.widen().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj || this.widen().equals(obj);
+	}
+
+	@Override
+	public FloatVector cloneThis() {
+		return new FloatVector(Arrays.copyOf(this.floats, this.floats.length));
+	}
+
+	/**
+	 * @return a double precision vector of zeros of the same dimensions
+	 */
+	@Override
+	public Vector cloneNew() {
+		return new Vector(this.floats.length);
+	}
+
+	@Override
+	public String toString() {
+		return this.widen().toString();
+	}
+
+	@Override
+	public String toString(String format) {
+		return this.widen().toString(format);
+	}
+
+	@Override
+	public Complex[] convert2complex() {
+		return this.widen().convert2complex();
+	}
+
+}
@@ -0,0 +1,108 @@
+package data;
+
+/**
+ * In-place radix-2 fast Fourier transform on primitive arrays of real and imaginary
+ * parts. The bit-reversal permutation and the twiddle factors are computed once per
+ * transform length, so that an instance can be reused for any number of signals.
+ *
+ * Both directions are unnormalized: <code>inverse(forward(x)) = n * x</code>.
+ */
+public class FourierTransform {
+
+	private final int		length;
+	private final int[]		reversed;
+	private final double[]	cos;
+	private final double[]	sin;
+
+	/**
+	 * @param length the transform length, a power of two
+	 */
+	public FourierTransform(int length) {
+		if (length < 1 || Integer.bitCount(length) != 1) {
+			throw new IllegalArgumentException("Transform length must be a power of two: " + length);
+		}
+		this.length = length;
+
+		int bits = Integer.numberOfTrailingZeros(length);
+		this.reversed = new int[length];
+		for (int i = 0; i < length; i++) {
+			this.reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - bits);
+		}
+
+		this.cos = new double[length / 2];
+		this.sin = new double[length / 2];
+		for (int i = 0; i < length / 2; i++) {
+			double angle = 2 * Math.PI * i / length;
+			this.cos[i] = Math.cos(angle);
+			this.sin[i] = Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Transform length used for signals of the given dimensionality. Signals are
+	 * zero-padded to 128 or 256 samples as by {@link Vector#forwardFourierTransform(Vector)},
+	 * longer signals to the next power of two.
+	 */
+	public static int paddedLength(int numDimensions) {
+		if (numDimensions <= 128) {
+			return 128;
+		} else if (numDimensions <= 256) {
+			return 256;
+		}
+		return Integer.highestOneBit(numDimensions - 1) << 1;
+	}
+
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * X_k = SUM{ x_j * e^(-2 pi i j k / n) }
+	 */
+	public void forward(double[] re, double[] im) {
+		this.transform(re, im, -1);
+	}
+
+	/**
+	 * x_j = SUM{ X_k * e^(2 pi i j k / n) }, without the factor 1/n
+	 */
+	public void inverse(double[] re, double[] im) {
+		this.transform(re, im, 1);
+	}
+
+	private void transform(double[] re, double[] im, int sign) {
+		int n = this.length;
+
+		for (int i = 0; i < n; i++) {
+			int j = this.reversed[i];
+			if (i < j) {
+				double t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+
+		for (int size = 2; size <= n; size <<= 1) {
+			int half = size >> 1;
+			int step = n / size;
+			for (int start = 0; start < n; start += size) {
+				for (int k = 0; k < half; k++) {
+					double wRe = this.cos[k * step];
+					double wIm = sign * this.sin[k * step];
+					int a = start + k;
+					int b = a + half;
+					double tRe = re[b] * wRe - im[b] * wIm;
+					double tIm = re[b] * wIm + im[b] * wRe;
+					re[b] = re[a] - tRe;
+					im[b] = im[a] - tIm;
+					re[a] += tRe;
+					im[a] += tIm;
+				}
+			}
+		}
+	}
+
+}
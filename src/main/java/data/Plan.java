@@ -21,6 +21,8 @@ import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import func.PlanCostFunction;
+
 /**
  * A plan represents a vector with certain properties
  *
@@ -31,6 +33,7 @@ public class Plan<V extends DataType<V>> implements HasValue<V>, Serializable, C
     private V value;
     private int index;
     private double score;
+    private transient PlanStatistics statistics;
 
     public Plan(V value) {
         this.value = value;
@@ -46,6 +49,7 @@ public class Plan<V extends DataType<V>> implements HasValue<V>, Serializable, C
 
     public void setIndex(int index) {
         this.index = index;
+        this.statistics = null;
     }
 
     public double getScore() {
@@ -54,6 +58,23 @@ public class Plan<V extends DataType<V>> implements HasValue<V>, Serializable, C
 
     public void setScore(double discomfort) {
         this.score = discomfort;
+        this.statistics = null;
+    }
+
+    /**
+     * Returns the cached statistics of this plan, which are computed on first use
+     * and again whenever another local cost function is given.
+     *
+     * @param localCostFunction the local cost function of the agent
+     * @return the statistics of this plan
+     */
+    public PlanStatistics getStatistics(PlanCostFunction<V> localCostFunction) {
+        PlanStatistics statistics = this.statistics;
+        if (statistics == null || !statistics.isFor(localCostFunction)) {
+            statistics = new PlanStatistics(this, localCostFunction);
+            this.statistics = statistics;
+        }
+        return statistics;
     }
 
     public Plan<V> cloneThis() {
@@ -61,6 +82,7 @@ public class Plan<V extends DataType<V>> implements HasValue<V>, Serializable, C
         try {
             clone = (Plan<V>) clone();
             clone.value = value.cloneThis();
+            clone.statistics = null;
         } catch (CloneNotSupportedException ex) {
             Logger.getLogger(Plan.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -81,6 +103,7 @@ public class Plan<V extends DataType<V>> implements HasValue<V>, Serializable, C
             clone.value = value.cloneNew();
             clone.score = Double.NaN;
             clone.index = 0;
+            clone.statistics = null;
             return clone;
         } catch (CloneNotSupportedException ex) {
             Logger.getLogger(Plan.class.getName()).log(Level.SEVERE, null, ex);
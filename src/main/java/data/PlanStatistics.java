@@ -0,0 +1,97 @@
+package data;
+
+import func.PlanCostFunction;
+
+/**
+ * Statistics of a plan that the plan selection needs in every iteration, cached
+ * by {@link Plan#getStatistics(PlanCostFunction)}. The statistics of the values
+ * never change, because plans are not modified after loading, and the local
+ * cost changes only with the local cost function or with the score and index of
+ * the plan, which discard the cached statistics.
+ *
+ * A statistics block is immutable, so plans can publish a new one without
+ * synchronization.
+ */
+public class PlanStatistics {
+
+	private final PlanCostFunction<?>	localCostFunction;
+	private final double				localCost;
+	private final int					numDimensions;
+	private final double				sum;
+	private final double				sumSqr;
+	private final double				centeredSumSqr;
+
+	<V extends DataType<V>> PlanStatistics(Plan<V> plan, PlanCostFunction<V> localCostFunction) {
+		this.localCostFunction = localCostFunction;
+		this.localCost = localCostFunction.calcCost(plan);
+
+		if (plan.getValue() instanceof Vector) {
+			Vector vector = (Vector) plan.getValue();
+			this.numDimensions = vector.getNumDimensions();
+			this.sum = vector.sum();
+			this.sumSqr = vector.normSqr();
+			double average = this.getAverage();
+			double centeredSumSqr = 0.0;
+			for (int i = 0; i < this.numDimensions; i++) {
+				double deviation = vector.getValue(i) - average;
+				centeredSumSqr += deviation * deviation;
+			}
+			this.centeredSumSqr = centeredSumSqr;
+		} else {
+			this.numDimensions = 0;
+			this.sum = Double.NaN;
+			this.sumSqr = Double.NaN;
+			this.centeredSumSqr = Double.NaN;
+		}
+	}
+
+	/**
+	 * @return whether the statistics were computed with the given local cost function
+	 */
+	boolean isFor(PlanCostFunction<?> localCostFunction) {
+		return this.localCostFunction == localCostFunction;
+	}
+
+	/**
+	 * @return the cost of the plan according to the local cost function
+	 */
+	public double getLocalCost() {
+		return this.localCost;
+	}
+
+	/**
+	 * @return the sum of the values, see {@link Vector#sum()}
+	 */
+	public double getSum() {
+		return this.sum;
+	}
+
+	/**
+	 * @return the average of the values, see {@link Vector#avg()}
+	 */
+	public double getAverage() {
+		return this.sum / this.numDimensions;
+	}
+
+	/**
+	 * @return the sum of the squared values, see {@link Vector#normSqr()}
+	 */
+	public double getSumSqr() {
+		return this.sumSqr;
+	}
+
+	/**
+	 * @return the 2-norm of the values, see {@link Vector#norm()}
+	 */
+	public double getNorm() {
+		return Math.sqrt(this.sumSqr);
+	}
+
+	/**
+	 * @return the sum of the squared deviations of the values from their average
+	 */
+	public double getCenteredSumSqr() {
+		return this.centeredSumSqr;
+	}
+
+}
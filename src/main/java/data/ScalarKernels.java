@@ -0,0 +1,249 @@
+package data;
+
+/**
+ * Kernels of plain loops, in the order of the original methods of {@link Vector}.
+ */
+class ScalarKernels implements VectorKernels {
+
+	static final ScalarKernels INSTANCE = new ScalarKernels();
+
+	@Override
+	public double sum(double[] a) {
+		double sum = 0.0;
+		for (double val : a) {
+			sum += val;
+		}
+		return sum;
+	}
+
+	@Override
+	public double sum(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] + b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public double dot(double[] a, double[] b) {
+		double dot = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotSum(double[] c, double[] a, double[] b) {
+		double dot = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += c[i] * (a[i] + b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotDiff(double[] c, double[] a, double[] b) {
+		double dot = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += c[i] * (a[i] - b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double normSqr(double[] a) {
+		double sum = 0.0;
+		for (double state : a) {
+			sum += state * state;
+		}
+		return sum;
+	}
+
+	@Override
+	public double normSqr(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			double state = a[i] + b[i];
+			sum += state * state;
+		}
+		return sum;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, double average) {
+		double sumSquare = 0.0;
+		for (double val : a) {
+			sumSquare += Math.pow((val - average), 2.0);
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, double[] b, double average) {
+		double sumSquare = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sumSquare += Math.pow(((a[i] + b[i]) - average), 2.0);
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public void add(double[] a, double[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] += b[i];
+		}
+	}
+
+	@Override
+	public double addAndSum(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			a[i] += b[i];
+			sum += a[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public void subtract(double[] a, double[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] -= b[i];
+		}
+	}
+
+	@Override
+	public void multiply(double[] a, double[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] *= b[i];
+		}
+	}
+
+	@Override
+	public double max(double[] a, double[] b) {
+		double maximum = Double.MIN_VALUE;
+		for (int i = 0; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val > maximum) {
+				maximum = val;
+			}
+		}
+		return maximum;
+	}
+
+	@Override
+	public double min(double[] a, double[] b) {
+		double minimum = Double.MAX_VALUE;
+		for (int i = 0; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val < minimum) {
+				minimum = val;
+			}
+		}
+		return minimum;
+	}
+
+	@Override
+	public double residualSumOfSquares(double[] a, double[] b, double shift, double scale, double[] c) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += Math.pow(((a[i] + b[i]) - shift) / scale - c[i], 2);
+		}
+		return sum;
+	}
+
+	@Override
+	public double sum(double[] a, float[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] + b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public double dot(double[] a, float[] b) {
+		double dot = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotSum(double[] c, double[] a, float[] b) {
+		double dot = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += c[i] * (a[i] + b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double normSqr(double[] a, float[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			double state = a[i] + b[i];
+			sum += state * state;
+		}
+		return sum;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, float[] b, double average) {
+		double sumSquare = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sumSquare += Math.pow(((a[i] + b[i]) - average), 2.0);
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public void add(double[] a, float[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] += b[i];
+		}
+	}
+
+	@Override
+	public void subtract(double[] a, float[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] -= b[i];
+		}
+	}
+
+	@Override
+	public double max(double[] a, float[] b) {
+		double maximum = Double.MIN_VALUE;
+		for (int i = 0; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val > maximum) {
+				maximum = val;
+			}
+		}
+		return maximum;
+	}
+
+	@Override
+	public double min(double[] a, float[] b) {
+		double minimum = Double.MAX_VALUE;
+		for (int i = 0; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val < minimum) {
+				minimum = val;
+			}
+		}
+		return minimum;
+	}
+
+	@Override
+	public double residualSumOfSquares(double[] a, float[] b, double shift, double scale, double[] c) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			sum += Math.pow(((a[i] + b[i]) - shift) / scale - c[i], 2);
+		}
+		return sum;
+	}
+
+}
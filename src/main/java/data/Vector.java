@@ -38,6 +38,8 @@ import config.Configuration;
  */
 public class Vector implements DataType<Vector> {
 
+    private static VectorKernels kernels = VectorKernels.scalar();
+
     private double[] values;
 
     /**
@@ -62,6 +64,14 @@ public class Vector implements DataType<Vector> {
     	return this.values;
     }
 
+    /**
+     * @return this vector, whose values are in double precision already, see
+     * {@link FloatVector#widen()}
+     */
+    public Vector widen() {
+    	return this;
+    }
+
 
     /**
      * 
@@ -81,6 +91,18 @@ public class Vector implements DataType<Vector> {
         return values[idx];
     }
 
+    public static VectorKernels getKernels() {
+        return kernels;
+    }
+
+    /**
+     * Selects the loops of the arithmetic of all vectors, see {@link VectorKernels}.
+     * @param kernels the kernels, scalar by default
+     */
+    public static void setKernels(VectorKernels kernels) {
+        Vector.kernels = kernels;
+    }
+
     public int getNumDimensions() {
         return values.length;
     }
@@ -90,11 +112,7 @@ public class Vector implements DataType<Vector> {
      * @return sum of all values in vector
      */
     public double sum() {
-        double sum = 0.0;
-        for (double val : values) {
-            sum += val;
-        }
-        return sum;
+        return kernels.sum(values);
     }
 
     public double avg() {
@@ -107,11 +125,20 @@ public class Vector implements DataType<Vector> {
      * @return
      */
     public double dot(Vector other) {
-        double dot = 0;
-        for (int i = 0; i < values.length; i++) {
-            dot += values[i] * other.values[i];
+        if (other instanceof FloatVector) {
+            return kernels.dot(values, ((FloatVector) other).floats);
         }
-        return dot;
+        return kernels.dot(values, other.values);
+    }
+
+    /**
+     * Calculates the dot product of this Vector and the difference of two other Vectors, without materializing the difference: (this)^T * (a - b)
+     * @param a - Vector object of the same length as this vector
+     * @param b - Vector object of the same length as this vector
+     * @return
+     */
+    public double dotDiff(Vector a, Vector b) {
+        return kernels.dotDiff(values, a.widen().getArray(), b.widen().getArray());
     }
 
     /**
@@ -150,11 +177,21 @@ public class Vector implements DataType<Vector> {
      */
     public double variance() {
         double average = this.avg();
-        double sumSquare = 0.0;
-        for (double val : values) {
-            sumSquare += Math.pow((val - average), 2.0);
+        return kernels.sumSquaredDeviations(values, average) / values.length;
+    }
+
+    /**
+     * In-place addition of vector 'other' to vector 'this', fused with the calculation of the variance of the result, see {@link #variance()}
+     * @param other - Vector object of the same length as this vector
+     * @return the variance of this vector after the addition
+     */
+    public double addAndVariance(Vector other) {
+        if (other instanceof FloatVector) {
+            this.add(other);
+            return this.variance();
         }
-        return sumSquare / values.length;
+        double average = kernels.addAndSum(values, other.values) / values.length;
+        return kernels.sumSquaredDeviations(values, average) / values.length;
     }
 
     /**
@@ -231,11 +268,7 @@ public class Vector implements DataType<Vector> {
      * @return
      */
     public double normSqr() {
-        double sum = 0.0;
-        for (double state : values) {
-            sum += state * state;
-        }
-        return sum;
+        return kernels.normSqr(values);
     }
 
     /**
@@ -246,7 +279,7 @@ public class Vector implements DataType<Vector> {
      */
     public double correlationCoefficient(Vector other) {
         double[] vectorX = values;
-        double[] vectorY = other.values;
+        double[] vectorY = other.widen().getArray();
         double result;
         double sum_sq_x = 0;
         double sum_sq_y = 0;
@@ -277,7 +310,7 @@ public class Vector implements DataType<Vector> {
      */
     public double rootMeanSquareError(Vector other) {
         double[] vectorX = values;
-        double[] vectorY = other.values;
+        double[] vectorY = other.widen().getArray();
         double squaredError = 0;
         for (int i = 0; i < vectorX.length; i++) {
             squaredError += Math.pow(vectorX[i] - vectorY[i], 2);
@@ -288,7 +321,14 @@ public class Vector implements DataType<Vector> {
     }
 
     @Override
-    public final void set(Vector other) {
+    public void set(Vector other) {
+        if (other instanceof FloatVector) {
+            float[] floats = ((FloatVector) other).floats;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = floats[i];
+            }
+            return;
+        }
         System.arraycopy(other.values, 0, values, 0, values.length);
     }
 
@@ -307,8 +347,10 @@ public class Vector implements DataType<Vector> {
 
     @Override
     public void add(Vector other) {
-        for (int i = 0; i < values.length; i++) {
-            values[i] += other.values[i];
+        if (other instanceof FloatVector) {
+            kernels.add(values, ((FloatVector) other).floats);
+        } else {
+            kernels.add(values, other.values);
         }
     }
 
@@ -324,8 +366,10 @@ public class Vector implements DataType<Vector> {
 
     @Override
     public void subtract(Vector other) {
-        for (int i = 0; i < values.length; i++) {
-            values[i] -= other.values[i];
+        if (other instanceof FloatVector) {
+            kernels.subtract(values, ((FloatVector) other).floats);
+        } else {
+            kernels.subtract(values, other.values);
         }
     }
 
@@ -344,9 +388,7 @@ public class Vector implements DataType<Vector> {
      * @param other
      */
     public void multiply(Vector other) {
-        for (int i = 0; i < values.length; i++) {
-            values[i] *= other.values[i];
-        }
+        kernels.multiply(values, other.widen().getArray());
     }
 
     /**
@@ -425,6 +467,95 @@ public class Vector implements DataType<Vector> {
     	return other.sum();
     }
 
+    /*
+     * Statistics of the sum base + delta, computed without materializing it. Each
+     * element is formed as base[i] + delta[i], exactly as by add(Vector), and is
+     * reduced in the same order as by the corresponding instance method, so the
+     * results are identical to calling that method on the sum, with either kernels.
+     * A delta in single precision, see FloatVector, is widened element by element.
+     */
+
+    /**
+     * @return <code>base + delta</code> summed over all dimensions, see {@link #sum()}
+     */
+    public static double sum(Vector base, Vector delta) {
+        if (delta instanceof FloatVector) {
+            return kernels.sum(base.widen().getArray(), ((FloatVector) delta).floats);
+        }
+        return kernels.sum(base.widen().getArray(), delta.values);
+    }
+
+    /**
+     * @return the variance of <code>base + delta</code>, see {@link #variance()}
+     */
+    public static double variance(Vector base, Vector delta) {
+        double[] b = base.widen().getArray();
+        double average = Vector.sum(base, delta) / b.length;
+        if (delta instanceof FloatVector) {
+            return kernels.sumSquaredDeviations(b, ((FloatVector) delta).floats, average) / b.length;
+        }
+        return kernels.sumSquaredDeviations(b, delta.values, average) / b.length;
+    }
+
+    /**
+     * @return the maximum of <code>base + delta</code>, see {@link #max()}
+     */
+    public static double max(Vector base, Vector delta) {
+        if (delta instanceof FloatVector) {
+            return kernels.max(base.widen().getArray(), ((FloatVector) delta).floats);
+        }
+        return kernels.max(base.widen().getArray(), delta.values);
+    }
+
+    /**
+     * @return the minimum of <code>base + delta</code>, see {@link #min()}
+     */
+    public static double min(Vector base, Vector delta) {
+        if (delta instanceof FloatVector) {
+            return kernels.min(base.widen().getArray(), ((FloatVector) delta).floats);
+        }
+        return kernels.min(base.widen().getArray(), delta.values);
+    }
+
+    /**
+     * @return the squared 2-norm of <code>base + delta</code>, see {@link #normSqr()}
+     */
+    public static double normSqr(Vector base, Vector delta) {
+        if (delta instanceof FloatVector) {
+            return kernels.normSqr(base.widen().getArray(), ((FloatVector) delta).floats);
+        }
+        return kernels.normSqr(base.widen().getArray(), delta.values);
+    }
+
+    /**
+     * @return <code>other.dot(base + delta)</code>, see {@link #dot(Vector)}
+     */
+    public static double dot(Vector other, Vector base, Vector delta) {
+        if (delta instanceof FloatVector) {
+            return kernels.dotSum(other.widen().getArray(), base.widen().getArray(), ((FloatVector) delta).floats);
+        }
+        return kernels.dotSum(other.widen().getArray(), base.widen().getArray(), delta.values);
+    }
+
+    /**
+     * @return <code>residualSumOfSquares(base + delta, u)</code>, see
+     * {@link #residualSumOfSquares(Vector, Vector)}
+     */
+    public static double residualSumOfSquares(Vector base, Vector delta, Vector u) {
+        return Vector.residualSumOfSquares(base, delta, 0.0, 1.0, u);
+    }
+
+    /**
+     * @return <code>residualSumOfSquares(n, u)</code> of the linear normalization
+     * <code>n = ((base + delta) - shift) / scale</code>
+     */
+    public static double residualSumOfSquares(Vector base, Vector delta, double shift, double scale, Vector u) {
+        if (delta instanceof FloatVector) {
+            return kernels.residualSumOfSquares(base.widen().getArray(), ((FloatVector) delta).floats, shift, scale, u.widen().getArray());
+        }
+        return kernels.residualSumOfSquares(base.widen().getArray(), delta.values, shift, scale, u.widen().getArray());
+    }
+
     /**
      * Computes covariance matrix (symmetrical, dimensions: d x d) of given plans
      * @param plans - list of plans, user must ensure that they are of equal size d
@@ -437,9 +568,10 @@ public class Vector implements DataType<Vector> {
         double[] avg = meanVector(plans);
 
         for (Vector p : plans) {
+            double[] values = p.widen().getArray();
             for (int i = 0; i < d; i++) {
                 for (int j = 0; j < d; j++) {
-                    cov[i][j] += (p.values[i] - avg[i]) * (p.values[j] - avg[j]);
+                    cov[i][j] += (values[i] - avg[i]) * (values[j] - avg[j]);
                 }
             }
         }
@@ -476,7 +608,7 @@ public class Vector implements DataType<Vector> {
         }
         final Vector other = (Vector) obj;
         for (int i = 0; i < values.length; i++) {
-            if (values[i] != other.values[i]) {
+            if (values[i] != other.getValue(i)) {
                 return false;
             }
         }
@@ -670,8 +802,9 @@ public class Vector implements DataType<Vector> {
     	Vector normalized = new Vector(v.getNumDimensions());
     	double mean = v.avg();
     	double std = v.std();
-    	for(int i = 0; i < v.values.length; i++) {
-    		normalized.setValue(i, (v.values[i]-mean)/(std + 1e-10));
+    	double[] values = v.widen().getArray();
+    	for(int i = 0; i < values.length; i++) {
+    		normalized.setValue(i, (values[i]-mean)/(std + 1e-10));
     	}
     	return normalized;
     };
@@ -688,8 +821,9 @@ public class Vector implements DataType<Vector> {
     	Vector normalized = new Vector(v.getNumDimensions());
     	double min = v.min();
     	double max = v.max();
-    	for(int i = 0; i < v.values.length; i++) {
-    		normalized.setValue(i, (v.values[i]-min)/(max-min));
+    	double[] values = v.widen().getArray();
+    	for(int i = 0; i < values.length; i++) {
+    		normalized.setValue(i, (values[i]-min)/(max-min));
     	}
     	return normalized;
     };
@@ -705,8 +839,9 @@ public class Vector implements DataType<Vector> {
     public static UnaryOperator<Vector> unit_length_normalization = (Vector v) -> {
     	Vector normalized = new Vector(v.getNumDimensions());
     	double norm = Math.sqrt(v.normSqr());
-    	for(int i = 0; i < v.values.length; i++) {
-    		normalized.setValue(i, v.values[i]/(norm + 1e-10));
+    	double[] values = v.widen().getArray();
+    	for(int i = 0; i < values.length; i++) {
+    		normalized.setValue(i, values[i]/(norm + 1e-10));
     	}
     	return normalized;
     };
@@ -717,8 +852,9 @@ public class Vector implements DataType<Vector> {
      */
     public static UnaryOperator<Vector> no_normalization = (Vector v) -> {
     	Vector normalized = new Vector(v.getNumDimensions());
-    	for(int i = 0; i < v.values.length; i++) {
-    		normalized.setValue(i, v.values[i]);
+    	double[] values = v.widen().getArray();
+    	for(int i = 0; i < values.length; i++) {
+    		normalized.setValue(i, values[i]);
     	}
     	return normalized;
     };
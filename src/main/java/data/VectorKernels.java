@@ -0,0 +1,148 @@
+package data;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loops over the values of {@link Vector}s. All element-wise operations work in
+ * place on their first argument.
+ *
+ * The scalar kernels run on every Java version and reproduce the results of the
+ * original loops exactly. The SIMD kernels use the incubating Vector API of
+ * Java 17 and are only available if the multi-release JAR runs on Java 17 or
+ * later with <code>--add-modules jdk.incubator.vector</code>. Their element-wise
+ * operations give identical results, but their reductions, e.g. sums, dot
+ * products and variances, add the values in a different order, so results may
+ * differ in the last bits.
+ */
+public interface VectorKernels {
+
+	public double sum(double[] a);
+
+	/**
+	 * @return the sum of <code>a + b</code>
+	 */
+	public double sum(double[] a, double[] b);
+
+	public double dot(double[] a, double[] b);
+
+	/**
+	 * @return the dot product of <code>c</code> and <code>a + b</code>
+	 */
+	public double dotSum(double[] c, double[] a, double[] b);
+
+	/**
+	 * @return the dot product of <code>c</code> and <code>a - b</code>
+	 */
+	public double dotDiff(double[] c, double[] a, double[] b);
+
+	public double normSqr(double[] a);
+
+	/**
+	 * @return the squared norm of <code>a + b</code>
+	 */
+	public double normSqr(double[] a, double[] b);
+
+	/**
+	 * @return the sum of the squared deviations of <code>a</code> from <code>average</code>
+	 */
+	public double sumSquaredDeviations(double[] a, double average);
+
+	/**
+	 * @return the sum of the squared deviations of <code>a + b</code> from <code>average</code>
+	 */
+	public double sumSquaredDeviations(double[] a, double[] b, double average);
+
+	public void add(double[] a, double[] b);
+
+	/**
+	 * Adds <code>b</code> to <code>a</code>.
+	 * @return the sum of the values of <code>a</code> afterwards
+	 */
+	public double addAndSum(double[] a, double[] b);
+
+	public void subtract(double[] a, double[] b);
+
+	public void multiply(double[] a, double[] b);
+
+	/**
+	 * @return the maximum of <code>a + b</code>, or <code>Double.MIN_VALUE</code>
+	 * if it is larger, as by {@link Vector#max()}
+	 */
+	public double max(double[] a, double[] b);
+
+	/**
+	 * @return the minimum of <code>a + b</code>, or <code>Double.MAX_VALUE</code>
+	 * if it is smaller, as by {@link Vector#min()}
+	 */
+	public double min(double[] a, double[] b);
+
+	/**
+	 * @return the sum of the squares of <code>((a + b) - shift) / scale - c</code>,
+	 * i.e. the residual sum of squares of <code>a + b</code> normalized linearly
+	 * and <code>c</code>
+	 */
+	public double residualSumOfSquares(double[] a, double[] b, double shift, double scale, double[] c);
+
+	/*
+	 * The same operations with a delta in single precision, see FloatVector,
+	 * which is widened to double precision element by element.
+	 */
+
+	public double sum(double[] a, float[] b);
+
+	public double dot(double[] a, float[] b);
+
+	public double dotSum(double[] c, double[] a, float[] b);
+
+	public double normSqr(double[] a, float[] b);
+
+	public double sumSquaredDeviations(double[] a, float[] b, double average);
+
+	public void add(double[] a, float[] b);
+
+	public void subtract(double[] a, float[] b);
+
+	public double max(double[] a, float[] b);
+
+	public double min(double[] a, float[] b);
+
+	public double residualSumOfSquares(double[] a, float[] b, double shift, double scale, double[] c);
+
+	/**
+	 * @return the kernels of plain Java loops
+	 */
+	public static VectorKernels scalar() {
+		return ScalarKernels.INSTANCE;
+	}
+
+	/**
+	 * @return the kernels of the Vector API, or the scalar kernels if it is not
+	 * available in this runtime
+	 */
+	public static VectorKernels simd() {
+		try {
+			return (VectorKernels) Class.forName("data.SimdKernels").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			Logger.getLogger(VectorKernels.class.getName()).log(Level.WARNING,
+					"SIMD kernels require Java 17+ with --add-modules jdk.incubator.vector, falling back to scalar kernels: " + e);
+			return ScalarKernels.INSTANCE;
+		}
+	}
+
+	/**
+	 * @param name <code>scalar</code> or <code>simd</code>
+	 * @return the kernels of the given name
+	 */
+	public static VectorKernels forName(String name) {
+		switch (name) {
+		case "scalar":
+			return VectorKernels.scalar();
+		case "simd":
+			return VectorKernels.simd();
+		default:
+			throw new IllegalArgumentException("Unknown vector kernels: " + name);
+		}
+	}
+
+}
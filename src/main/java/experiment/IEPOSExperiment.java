@@ -4,6 +4,7 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.logging.Handler;
@@ -12,6 +13,7 @@ import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
 import agent.Agent;
+import agent.DirectTreeEngine;
 import agent.ModifiableIeposAgent;
 import agent.MultiObjectiveIEPOSAgent;
 import agent.PlanSelector;
@@ -30,6 +32,7 @@ import protopeer.PeerFactory;
 import protopeer.SimulatedExperiment;
 import protopeer.util.quantities.Time;
 import treestructure.ModifiableTreeArchitecture;
+import treestructure.TreeLayout;
 
 /**
  * 
@@ -47,6 +50,11 @@ public class IEPOSExperiment {
 			Function<Integer, Agent> createAgent, // lambda expression that creates an agent
 			Configuration config) {
 
+		if (Configuration.engine.equals("direct")) {
+			IEPOSExperiment.runDirectly(numChildren, numIterations, numAgents, createAgent, config);
+			return;
+		}
+
 		SimulatedExperiment experiment = new SimulatedExperiment() {
 		};
 		ModifiableTreeArchitecture architecture = new ModifiableTreeArchitecture(config);
@@ -65,16 +73,43 @@ public class IEPOSExperiment {
 			}
 		};
 
+		IEPOSExperiment.setUpLogging(config);
+
+		experiment.initPeers(0, numAgents, peerFactory);
+		experiment.startPeers(0, numAgents);
+		experiment.runSimulation(Time.inSeconds(3 + numIterations));
+	}
+
+	/**
+	 * Runs the agents in-process on the tree that the tree server would build,
+	 * without simulating the network, see <code>DirectTreeEngine</code>.
+	 */
+	private static void runDirectly(int numChildren, int numIterations, int numAgents,
+			Function<Integer, Agent> createAgent, Configuration config) {
+		SimulatedExperiment.initEnvironment();
+		IEPOSExperiment.setUpLogging(config);
+
+		List<Agent> agents = new ArrayList<>(numAgents);
+		for (int i = 0; i < numAgents; i++) {
+			agents.add(createAgent.apply(i));
+		}
+		TreeLayout layout = TreeLayout.generate(numAgents, numChildren, Configuration.priority, Configuration.type,
+				Configuration.balance);
+
+		DirectTreeEngine engine = new DirectTreeEngine(layout, agents, Configuration.numEngineThreads);
+		if (Configuration.populationStore) {
+			engine.usePopulationStore();
+		}
+		engine.run(numIterations);
+	}
+
+	private static void setUpLogging(Configuration config) {
 		Logger rootLogger = LogManager.getLogManager().getLogger("");
 		rootLogger.setLevel(config.loggingLevel);
 		for (Handler h : rootLogger.getHandlers()) {
 			h.setLevel(config.loggingLevel);
 			h.setFormatter(new CustomFormatter());
 		}
-
-		experiment.initPeers(0, numAgents, peerFactory);
-		experiment.startPeers(0, numAgents);
-		experiment.runSimulation(Time.inSeconds(3 + numIterations));
 	}
 
 	private static void runOneSimulation(Configuration config, Function<Integer, Agent> createAgent) {
@@ -112,85 +147,128 @@ public class IEPOSExperiment {
 		config.printConfiguration();
 
 
+		LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider = IEPOSExperiment.createLoggingProvider(config);
+
+		mappings = new Integer[Configuration.numSimulations-1][Configuration.numAgents]; // generate the mappings matrix
+
+		if (Configuration.numSimulationThreads > 1 && Configuration.numSimulations > 1 && Configuration.streamLogs) {
+			log.log(Level.WARNING, "Streamed logs are written by a single process, the simulations run sequentially.");
+		}
+
+		if (Configuration.numSimulationThreads > 1 && Configuration.numSimulations > 1 && !Configuration.streamLogs) {
+			ParallelSimulationRunner.run(confPath, config, loggingProvider);
+		} else {
+			for (int sim = 0; sim < Configuration.numSimulations; sim++) {
+				System.out.println("Simulation " + (sim + 1));
+				IEPOSExperiment.shuffleMapping(config, sim);
+				IEPOSExperiment.runSimulation(config, sim, loggingProvider, IEPOSExperiment.drawAgentSeeds(config));
+			}
+		}
+
+		loggingProvider.print();
+
+	}
+
+	static LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> createLoggingProvider(Configuration config) {
 		LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider = new LoggingProvider<>();
 		
 		for (AgentLogger logger : config.loggers) {
 			loggingProvider.add(logger);
 		}
+		return loggingProvider;
+	}
 
-		mappings = new Integer[Configuration.numSimulations-1][Configuration.numAgents]; // generate the mappings matrix
+	/**
+	 * Applies the agent-to-vertex shuffling of the given simulation. Shuffling is
+	 * cumulative: the mapping of a simulation is a permutation of the mapping of
+	 * the previous one, so simulations must be prepared in ascending order.
+	 */
+	static void shuffleMapping(Configuration config, int sim) {
+		config.permutationSeed = sim;
+
+		if (Configuration.numSimulations > 1 && sim > 0) {
+			Configuration.mapping = config.generateMappingForRepetitiveExperiments.apply(config);
+			// the shuffling begins at the second simulation, so the mappings begins to store the shuffled mapping
+			// i is the identification of vertices, the stored value is the identification of agent
+			for (int i = 0; i < Configuration.numAgents; i++) {
+				mappings[sim-1][i] = Configuration.mapping.get(i);
+			}
+		}
+	}
 
-		for (int sim = 0; sim < Configuration.numSimulations; sim++) {
+	/**
+	 * Draws the seeds of the agents of the next simulation from
+	 * <code>simulationRNG</code>, one per agent in the order of their vertices.
+	 * Simulations must draw their seeds in ascending order.
+	 */
+	static long[] drawAgentSeeds(Configuration config) {
+		long[] seeds = new long[Configuration.numAgents];
+		for (int i = 0; i < seeds.length; i++) {
+			seeds[i] = config.simulationRNG.nextLong();
+		}
+		return seeds;
+	}
 
-			System.out.println("Simulation " + (sim + 1));
+	static void runSimulation(Configuration config, int sim, LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider) {
+		IEPOSExperiment.runSimulation(config, sim, loggingProvider, IEPOSExperiment.drawAgentSeeds(config));
+	}
 
-			final int simulationId = sim;
-			config.permutationSeed = sim;
+	static void runSimulation(Configuration config, int sim, LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider,
+			long[] agentSeeds) {
+		final int simulationId = sim;
 
-			for (AgentLogger al : loggingProvider.getLoggers()) {
-				al.setRun(sim);
-			}
+		for (AgentLogger al : loggingProvider.getLoggers()) {
+			al.setRun(sim);
+		}
 
-			if (Configuration.numSimulations > 1 && sim > 0) {
-				Configuration.mapping = config.generateMappingForRepetitiveExperiments.apply(config);
-				// the shuffling begins at the second simulation, so the mappings begins to store the shuffled mapping
-				// i is the identification of vertices, the stored value is the identification of agent
-				for (int i = 0; i < Configuration.numAgents; i++) {
-					mappings[sim-1][i] = Configuration.mapping.get(i);
-				}
-			}
+		PlanSelector<MultiObjectiveIEPOSAgent<Vector>, Vector> planSelector = new MultiObjectiveIeposPlanSelector<Vector>();
 
-			PlanSelector<MultiObjectiveIEPOSAgent<Vector>, Vector> planSelector = new MultiObjectiveIeposPlanSelector<Vector>();
+		/**
+		 * Function that creates an Agent given the id of it's vertex in tree graph.
+		 * First type is input argument, second type is type of return value.
+		 */
+		Function<Integer, Agent> createAgent = agentIdx -> {
+
+			List<Plan<Vector>> possiblePlans = config.getDataset(Configuration.dataset)
+					.getPlans(Configuration.mapping.get(agentIdx));
+			AgentLoggingProvider<ModifiableIeposAgent<Vector>> agentLP = loggingProvider
+					.getAgentLoggingProvider(agentIdx, simulationId);
+
+			ModifiableIeposAgent<Vector> newAgent = new ModifiableIeposAgent<Vector>(config, possiblePlans,
+					agentLP, agentSeeds[agentIdx]);
 
 			/**
-			 * Function that creates an Agent given the id of it's vertex in tree graph.
-			 * First type is input argument, second type is type of return value.
+			 * Different behaviours: read from a file 
 			 */
-			Function<Integer, Agent> createAgent = agentIdx -> {
-
-				List<Plan<Vector>> possiblePlans = config.getDataset(Configuration.dataset)
-						.getPlans(Configuration.mapping.get(agentIdx));
-				AgentLoggingProvider<ModifiableIeposAgent<Vector>> agentLP = loggingProvider
-						.getAgentLoggingProvider(agentIdx, simulationId);
-
-				ModifiableIeposAgent<Vector> newAgent = new ModifiableIeposAgent<Vector>(config, possiblePlans,
-						agentLP);
-
-				/**
-				 * Different behaviours: read from a file 
-				 */
-				if (config.behaviours.equals("different")) {
-					AgentsBehaviour p = new AgentsBehaviour(Configuration.dataset);
-				
-						p.readBehaviours();
-						Double alphaValue = p.alphaMap.get(agentIdx.toString());
-						Double betaValue = p.betaMap.get(agentIdx.toString());
-				
-				
-					newAgent.setUnfairnessWeight(alphaValue);
-					newAgent.setLocalCostWeight(betaValue);
-					}
-	
-				/**
-				 * For same behaviours: read from properties
-				 */
-
-				else {
-		
-					newAgent.setUnfairnessWeight(Double.parseDouble(config.weights[0]));		
-					newAgent.setLocalCostWeight(Double.parseDouble(config.weights[1]));	
-	
+			if (config.behaviours.equals("different")) {
+				AgentsBehaviour p = new AgentsBehaviour(Configuration.dataset);
+			
+					p.readBehaviours();
+					Double alphaValue = p.alphaMap.get(agentIdx.toString());
+					Double betaValue = p.betaMap.get(agentIdx.toString());
+			
+			
+				newAgent.setUnfairnessWeight(alphaValue);
+				newAgent.setLocalCostWeight(betaValue);
 				}
-				newAgent.setPlanSelector(planSelector);
-				return newAgent;
 
-			};
+			/**
+			 * For same behaviours: read from properties
+			 */
+
+			else {
+	
+				newAgent.setUnfairnessWeight(Double.parseDouble(config.weights[0]));		
+				newAgent.setLocalCostWeight(Double.parseDouble(config.weights[1]));	
 
-			IEPOSExperiment.runOneSimulation(config, createAgent);
-		}
+			}
+			newAgent.setTerminationCriterion(Configuration.terminationTolerance, Configuration.terminationPatience);
+			newAgent.setPlanSelector(planSelector);
+			return newAgent;
 
-		loggingProvider.print();
+		};
 
+		IEPOSExperiment.runOneSimulation(config, createAgent);
 	}
 
 }
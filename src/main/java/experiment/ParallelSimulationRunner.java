@@ -0,0 +1,188 @@
+package experiment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import agent.MultiObjectiveIEPOSAgent;
+import agent.logging.AgentLogger;
+import agent.logging.LoggingProvider;
+import config.Configuration;
+import data.Vector;
+import protopeer.measurement.MeasurementLog;
+
+/**
+ * Runs the simulations of an experiment concurrently on a bounded thread pool.
+ *
+ * ProtoPeer keeps the clock, the event queue and the measurement loggers of a
+ * simulation in static singletons, and so do the goal signals, the mapping and
+ * the reorganization counters of EPOS. Each simulation is therefore executed in
+ * its own class loader, which gives it a private copy of all static state, its
+ * own <code>Configuration</code> and its own <code>LoggingProvider</code>.
+ *
+ * Everything that sequential simulations share is handed over explicitly: the
+ * agent-to-vertex mapping and the agent seeds of every simulation are prepared
+ * upfront, in the order of the sequential run. The tree and candidate-search
+ * generators are seeded with <code>reorganizationSeed</code> anew in every
+ * simulation and need nothing from the schedule. The agent logs are returned
+ * serialized and merged in the order of the sequential run, so the output is
+ * byte-identical.
+ *
+ * All class loaders read the same JAR files. The JVM shares a single cached
+ * <code>JarFile</code> between all <code>jar:</code> URLs of a file, which
+ * Reflections and the class loaders close when they are done with it, so
+ * caching is disabled while the simulations run.
+ */
+public class ParallelSimulationRunner {
+
+	public static void run(String confPath, Configuration config,
+			LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider) {
+
+		// shuffling and seeding are cumulative, so both are prepared in order upfront
+		List<int[]> simulationMappings = new ArrayList<>();
+		List<long[]> simulationSeeds = new ArrayList<>();
+		for (int sim = 0; sim < Configuration.numSimulations; sim++) {
+			IEPOSExperiment.shuffleMapping(config, sim);
+			int[] mapping = new int[Configuration.numAgents];
+			for (int i = 0; i < Configuration.numAgents; i++) {
+				mapping[i] = Configuration.mapping.get(i);
+			}
+			simulationMappings.add(mapping);
+			simulationSeeds.add(IEPOSExperiment.drawAgentSeeds(config));
+		}
+
+		URL[] classpath = ParallelSimulationRunner.getClasspath();
+		URLConnection connection = ParallelSimulationRunner.openConnection(classpath[0]);
+		boolean useCaches = connection.getDefaultUseCaches();
+		connection.setDefaultUseCaches(false);
+		ExecutorService executor = Executors.newFixedThreadPool(Configuration.numSimulationThreads);
+
+		try {
+			List<Future<byte[]>> results = new ArrayList<>();
+			for (int sim = 0; sim < Configuration.numSimulations; sim++) {
+				final int simulationId = sim;
+				results.add(executor.submit(() -> ParallelSimulationRunner.runInIsolation(classpath, confPath,
+						Configuration.outputDirectory, simulationId, simulationMappings.get(simulationId),
+						simulationSeeds.get(simulationId))));
+			}
+
+			for (int sim = 0; sim < Configuration.numSimulations; sim++) {
+				for (MeasurementLog agentLog : ParallelSimulationRunner.deserialize(results.get(sim).get())) {
+					loggingProvider.merge(agentLog);
+				}
+				results.set(sim, null);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Simulation failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			connection.setDefaultUseCaches(useCaches);
+		}
+
+		for (AgentLogger al : loggingProvider.getLoggers()) {
+			al.setRun(Configuration.numSimulations - 1);
+		}
+	}
+
+	/**
+	 * Entry point of a simulation inside its class loader.
+	 *
+	 * @return the serialized agent logs, ordered by agent id
+	 */
+	public static byte[] runSimulation(String confPath, String outputDirectory, int sim, int[] mapping,
+			long[] agentSeeds) throws IOException {
+		Configuration config = Configuration.fromFile(confPath, outputDirectory);
+		LoggingProvider<MultiObjectiveIEPOSAgent<Vector>> loggingProvider = IEPOSExperiment
+				.createLoggingProvider(config);
+
+		config.permutationSeed = sim;
+		Map<Integer, Integer> simulationMapping = new HashMap<>();
+		for (int i = 0; i < mapping.length; i++) {
+			simulationMapping.put(i, mapping[i]);
+		}
+		Configuration.mapping = simulationMapping;
+
+		System.out.println("Simulation " + (sim + 1));
+		IEPOSExperiment.runSimulation(config, sim, loggingProvider, agentSeeds);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(new ArrayList<>(loggingProvider.getAgentLogs()));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] runInIsolation(URL[] classpath, String confPath, String outputDirectory, int sim,
+			int[] mapping, long[] agentSeeds) throws Exception {
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+		// the parent only provides the platform classes, everything else is loaded anew
+		try (URLClassLoader classLoader = new URLClassLoader(classpath,
+				ClassLoader.getSystemClassLoader().getParent())) {
+			// cost functions are discovered through the context class loader
+			thread.setContextClassLoader(classLoader);
+
+			Class<?> runner = classLoader.loadClass(ParallelSimulationRunner.class.getName());
+			Method entryPoint = runner.getMethod("runSimulation", String.class, String.class, int.class,
+					int[].class, long[].class);
+			return (byte[]) entryPoint.invoke(null, confPath, outputDirectory, sim, mapping, agentSeeds);
+		} catch (InvocationTargetException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		} finally {
+			thread.setContextClassLoader(contextClassLoader);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<MeasurementLog> deserialize(byte[] bytes) {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (List<MeasurementLog>) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Cannot read the logs of a simulation.", e);
+		}
+	}
+
+	private static URLConnection openConnection(URL url) {
+		try {
+			// only creates the connection, the default caching applies to all protocols
+			return url.openConnection();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static URL[] getClasspath() {
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		URL[] urls = new URL[entries.length];
+		try {
+			for (int i = 0; i < entries.length; i++) {
+				urls[i] = new File(entries[i]).toURI().toURL();
+			}
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException(e);
+		}
+		return urls;
+	}
+
+}
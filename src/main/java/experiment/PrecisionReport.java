@@ -0,0 +1,98 @@
+package experiment;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+import config.Configuration;
+
+/**
+ * Compares the global cost of an experiment with plans in single precision,
+ * <code>planPrecision=float</code>, to the same experiment in double precision.
+ * Both experiments are run as usual, each writing its own output directory,
+ * and the report lists the mean global cost of both per iteration with their
+ * absolute and relative difference:
+ * <pre>
+ * java -cp IEPOS-Tutorial.jar experiment.PrecisionReport output/&lt;double run&gt; output/&lt;float run&gt; [report.csv]
+ * </pre>
+ */
+public class PrecisionReport {
+
+	private final double[] doubleCosts;
+	private final double[] floatCosts;
+
+	/**
+	 * @param doubleOutput the output directory of the double precision run
+	 * @param floatOutput the output directory of the single precision run
+	 */
+	public PrecisionReport(String doubleOutput, String floatOutput) throws IOException {
+		this.doubleCosts = PrecisionReport.readMeans(doubleOutput);
+		this.floatCosts = PrecisionReport.readMeans(floatOutput);
+		if (this.doubleCosts.length != this.floatCosts.length) {
+			throw new IllegalArgumentException("The runs have " + this.doubleCosts.length + " and "
+					+ this.floatCosts.length + " iterations.");
+		}
+	}
+
+	/**
+	 * @return the mean global cost of every iteration, from the global cost log
+	 * of the given output directory
+	 */
+	private static double[] readMeans(String outputDirectory) throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get(outputDirectory, Configuration.globalCostFilename));
+		double[] means = new double[lines.size() - 1];
+		for (int i = 0; i < means.length; i++) {
+			means[i] = Double.parseDouble(lines.get(i + 1).split(",")[1]);
+		}
+		return means;
+	}
+
+	public int getNumIterations() {
+		return this.doubleCosts.length;
+	}
+
+	public double getRelativeDifference(int iteration) {
+		double difference = this.floatCosts[iteration] - this.doubleCosts[iteration];
+		return this.doubleCosts[iteration] == 0 ? difference : difference / Math.abs(this.doubleCosts[iteration]);
+	}
+
+	/**
+	 * Writes the report to the given file, or to the standard output if it is null.
+	 */
+	public void write(String filepath) throws FileNotFoundException {
+		PrintStream out = filepath == null ? System.out : new PrintStream(filepath);
+		out.println("Iteration,Double,Float,Difference,Relative-Difference");
+		for (int i = 0; i < this.getNumIterations(); i++) {
+			out.println(String.format(Locale.US, "%d,%s,%s,%s,%s", i, this.doubleCosts[i], this.floatCosts[i],
+					this.floatCosts[i] - this.doubleCosts[i], this.getRelativeDifference(i)));
+		}
+		if (filepath != null) {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: PrecisionReport <double precision output> <single precision output> [<csv file>]");
+			return;
+		}
+		PrecisionReport report = new PrecisionReport(args[0], args[1]);
+		report.write(args.length > 2 ? args[2] : null);
+
+		int last = report.getNumIterations() - 1;
+		int worst = 0;
+		for (int i = 1; i <= last; i++) {
+			if (Math.abs(report.getRelativeDifference(i)) > Math.abs(report.getRelativeDifference(worst))) {
+				worst = i;
+			}
+		}
+		System.err.println(String.format(Locale.US,
+				"Relative difference of the global cost: %.3e in the last iteration, at most %.3e in iteration %d",
+				report.getRelativeDifference(last), report.getRelativeDifference(worst), worst));
+	}
+
+}
@@ -0,0 +1,45 @@
+package func;
+
+import data.DataType;
+import data.PlanStatistics;
+
+/**
+ * An incremental cost function that can bound the cost of a candidate
+ * <code>base + delta</code> from below more cheaply than evaluating it, using the
+ * cached {@link PlanStatistics} of the delta. Plan selection skips the plans
+ * whose bound exceeds the best cost found so far.
+ *
+ * @param <V> the type of the data this cost function should handle
+ */
+public interface BoundedCostFunction<V extends DataType<V>> extends IncrementalCostFunction<V> {
+
+	/**
+	 * Prepares the bounds of candidates that share the given base.
+	 * @param base the common part of all candidates, must not be modified while
+	 * the evaluator is in use
+	 * @return an evaluator of lower bounds of <code>calcCost(base + delta)</code>
+	 */
+	public LowerBound<V> prepareBound(V base);
+
+	/**
+	 * Lower bounds of the value that <code>costWithDelta</code> computes for a
+	 * delta, including its rounding errors.
+	 */
+	public interface LowerBound<V> {
+
+		/**
+		 * @param statistics the statistics of the delta
+		 * @return a lower bound that only depends on the statistics
+		 */
+		public double lowerBound(PlanStatistics statistics);
+
+		/**
+		 * @param delta the delta
+		 * @param statistics the statistics of the delta
+		 * @return a lower bound that is at least as tight as {@link #lowerBound(PlanStatistics)},
+		 * at a fraction of the cost of the evaluation
+		 */
+		public double tightLowerBound(V delta, PlanStatistics statistics);
+	}
+
+}
@@ -1,10 +1,15 @@
 package func;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
-import org.apache.commons.math3.complex.Complex;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import config.Configuration;
+import data.FourierTransform;
 import data.Vector;
 
 
@@ -14,10 +19,18 @@ import data.Vector;
  * in frequency domain, and then the result is inversely transformed back to time domain. As final value, maximal value
  * of resulting signal in time-domain is taken.
  * 
+ * With sliding, the spectrum of the normalized goal signal is computed once per goal
+ * signal. The transform is linear, so the spectrum of a candidate response
+ * <code>base + plan</code> is the sum of the cached spectra of its parts, and only the
+ * inverse transform remains per candidate. The spectra of plans are cached, those
+ * of other deltas, e.g. reused buffers, are computed per candidate. The sum of the
+ * spectra is rounded differently than the spectrum of the sum, so these costs may
+ * differ from <code>calcCost</code> in the last bits.
+ * 
  * @author jovan
  *
  */
-public class CrossCorrelationCostFunction implements DifferentiableCostFunction<Vector>, HasGoal{
+public class CrossCorrelationCostFunction implements DifferentiableCostFunction<Vector>, IncrementalCostFunction<Vector>, HasGoal{
 	
 	private enum SignalType {
 		GOAL,
@@ -29,10 +42,25 @@ public class CrossCorrelationCostFunction implements DifferentiableCostFunction<
 	
 	static Logger logger = Logger.getLogger(CrossCorrelationCostFunction.class.getName());
 	
+	// bound of the per-plan spectra, counted in doubles (256 MB)
+	private static final long SPECTRA_CACHE_SIZE = 1L << 25;
+	
+	private static volatile GoalSpectrum goalSpectrum = null;
+	
+	// keyed by identity, only plans are cached as their values never change
+	private static final Cache<Vector, Spectrum> planSpectra = CacheBuilder.newBuilder()
+			.weakKeys()
+			.maximumWeight(SPECTRA_CACHE_SIZE)
+			.weigher((Vector plan, Spectrum spectrum) -> spectrum.weight())
+			.build();
+	
+	private static final ThreadLocal<double[][]> workspace = new ThreadLocal<>();
+	
 	@Override
 	public void populateGoalSignal() {
 		try {
 			goalSignal = Configuration.goalSignalSupplier.get();
+			goalSpectrum = null;
 		} catch(NullPointerException e) {
 			logger.log(Configuration.loggingLevel, "Goal Signal was not set. Nothing to compare!");
 			throw new NullPointerException();
@@ -48,13 +76,188 @@ public class CrossCorrelationCostFunction implements DifferentiableCostFunction<
 		}
 	}
 	
+	@Override
+	public DeltaCost<Vector> prepare(Vector base) {
+		if(!CrossCorrelationCostFunction.shouldSlide) {
+			Vector response = base.cloneNew();
+			return delta -> {
+				response.set(base);
+				response.add(delta);
+				return crossCorrelationCoefficient(response, CrossCorrelationCostFunction.goalSignal);
+			};
+		}
+		
+		GoalSpectrum goal = CrossCorrelationCostFunction.goalSpectrum(base.getNumDimensions());
+		Spectrum baseSpectrum = new Spectrum(base, goal.fft, CrossCorrelationCostFunction.workspace(goal.fft));
+		int numBins = baseSpectrum.re.length;
+		double[] re = new double[numBins];
+		double[] im = new double[numBins];
+		
+		return new DeltaCost<Vector>() {
+			
+			@Override
+			public double costWithDelta(Vector delta) {
+				return this.cost(delta, new Spectrum(delta, goal.fft, CrossCorrelationCostFunction.workspace(goal.fft)));
+			}
+			
+			@Override
+			public double costWithPlan(Vector plan) {
+				return this.cost(plan, CrossCorrelationCostFunction.spectrum(plan, goal.fft));
+			}
+			
+			private double cost(Vector delta, Spectrum deltaSpectrum) {
+				for(int k = 0; k < numBins; k++) {
+					re[k] = baseSpectrum.re[k] + deltaSpectrum.re[k];
+					im[k] = baseSpectrum.im[k] + deltaSpectrum.im[k];
+				}
+				double mean = Vector.sum(base, delta) / base.getNumDimensions();
+				double std = Math.sqrt(Vector.variance(base, delta));
+				return crossCorrelationWithSliding(goal, re, im, mean, std, base.getNumDimensions());
+			}
+		};
+	}
+	
 	private static double crossCorrelationWithSliding(Vector response, Vector goal) {
-		Map<SignalType, Vector> normalized = CrossCorrelationCostFunction.normalize2(response, goal);
-		Complex[] otherF = Vector.forwardFourierTransform(normalized.get(SignalType.RESPONSE));
-		Complex[] goalF = Vector.forwardFourierTransform(normalized.get(SignalType.GOAL));
-		Complex[] crossCorrelationF = Vector.crossCorrelationInFrequencyDomain(goalF, otherF);
-		Vector result = Vector.convertWreal(crossCorrelationF);
-		return lossFunction(result.max());
+		GoalSpectrum goalSpectrum = CrossCorrelationCostFunction.goalSpectrum(response.getNumDimensions());
+		Spectrum spectrum = new Spectrum(response, goalSpectrum.fft, CrossCorrelationCostFunction.workspace(goalSpectrum.fft));
+		return crossCorrelationWithSliding(goalSpectrum, spectrum.re, spectrum.im, response.avg(), response.std(),
+				response.getNumDimensions());
+	}
+	
+	/**
+	 * Maximal cross-correlation of the normalized goal and response signals, as
+	 * computed by <code>Vector.forwardFourierTransform</code>, 
+	 * <code>Vector.crossCorrelationInFrequencyDomain</code> and 
+	 * <code>Vector.inverseFourierTransform</code> on the output of <code>normalize2</code>.
+	 * 
+	 * The response is normalized in the frequency domain: subtracting its mean
+	 * subtracts mean times the spectrum of the signal support, and the common scaling
+	 * 1/(response_std*goal_std) of both signals is applied to the result.
+	 * @param goal spectrum of the goal signal
+	 * @param re real part of the spectrum of the unnormalized response
+	 * @param im imaginary part of the spectrum of the unnormalized response
+	 * @param mean mean of the response
+	 * @param std standard deviation of the response
+	 * @param numDimensions dimensionality of the response
+	 * @return inverse of the maximal cross-correlation
+	 */
+	private static double crossCorrelationWithSliding(GoalSpectrum goal, double[] re, double[] im, double mean,
+			double std, int numDimensions) {
+		int n = goal.fft.getLength();
+		double[][] buffers = CrossCorrelationCostFunction.workspace(goal.fft);
+		double[] correlationRe = buffers[0];
+		double[] correlationIm = buffers[1];
+		
+		// conjugated goal times response, the spectrum of a real signal is conjugate symmetric
+		for(int k = 0; k < re.length; k++) {
+			double responseRe = re[k] - mean * goal.supportRe[k];
+			double responseIm = im[k] - mean * goal.supportIm[k];
+			correlationRe[k] = goal.re[k] * responseRe + goal.im[k] * responseIm;
+			correlationIm[k] = goal.re[k] * responseIm - goal.im[k] * responseRe;
+		}
+		for(int k = re.length; k < n; k++) {
+			correlationRe[k] = correlationRe[n - k];
+			correlationIm[k] = -correlationIm[n - k];
+		}
+		goal.fft.inverse(correlationRe, correlationIm);
+		
+		// unitary forward and inverse transforms scale by 1/sqrt(n) each
+		double scale = 1 / (std * goal.std);
+		scale = scale * scale / (n * Math.sqrt(n));
+		double maximum = Double.MIN_VALUE;
+		for(int i = 0; i < numDimensions; i++) {
+			double value = correlationRe[i] * scale;
+			if(value > maximum) {
+				maximum = value;
+			}
+		}
+		return lossFunction(maximum);
+	}
+	
+	private static GoalSpectrum goalSpectrum(int numDimensions) {
+		GoalSpectrum spectrum = CrossCorrelationCostFunction.goalSpectrum;
+		Vector goal = CrossCorrelationCostFunction.goalSignal;
+		int length = FourierTransform.paddedLength(numDimensions);
+		if(spectrum == null || spectrum.goal != goal || spectrum.fft.getLength() != length) {
+			spectrum = new GoalSpectrum(goal, new FourierTransform(length));
+			CrossCorrelationCostFunction.goalSpectrum = spectrum;
+		}
+		return spectrum;
+	}
+	
+	private static Spectrum spectrum(Vector plan, FourierTransform fft) {
+		Spectrum spectrum = CrossCorrelationCostFunction.planSpectra.getIfPresent(plan);
+		if(spectrum == null || spectrum.re.length != fft.getLength() / 2 + 1) {
+			spectrum = new Spectrum(plan, fft, CrossCorrelationCostFunction.workspace(fft));
+			CrossCorrelationCostFunction.planSpectra.put(plan, spectrum);
+		}
+		return spectrum;
+	}
+	
+	private static double[][] workspace(FourierTransform fft) {
+		double[][] buffers = CrossCorrelationCostFunction.workspace.get();
+		if(buffers == null || buffers[0].length != fft.getLength()) {
+			buffers = new double[2][fft.getLength()];
+			CrossCorrelationCostFunction.workspace.set(buffers);
+		}
+		return buffers;
+	}
+	
+	/**
+	 * Bins 0..n/2 of the spectrum of a zero-padded real signal.
+	 */
+	private static class Spectrum {
+		
+		final double[] re;
+		final double[] im;
+		
+		Spectrum(Vector signal, FourierTransform fft, double[][] buffers) {
+			this(signal.widen().getArray(), 0.0, fft, buffers);
+		}
+		
+		Spectrum(double[] signal, double shift, FourierTransform fft, double[][] buffers) {
+			double[] re = buffers[0];
+			double[] im = buffers[1];
+			Arrays.fill(re, 0.0);
+			Arrays.fill(im, 0.0);
+			for(int i = 0; i < Math.min(signal.length, re.length); i++) {
+				re[i] = signal[i] - shift;
+			}
+			fft.forward(re, im);
+			
+			this.re = Arrays.copyOf(re, re.length / 2 + 1);
+			this.im = Arrays.copyOf(im, im.length / 2 + 1);
+		}
+		
+		int weight() {
+			return this.re.length + this.im.length;
+		}
+	}
+	
+	/**
+	 * Spectrum of the goal signal without its mean, and of the support of the
+	 * signals, i.e. of a signal of ones.
+	 */
+	private static class GoalSpectrum extends Spectrum {
+		
+		final Vector goal;
+		final FourierTransform fft;
+		final double std;
+		final double[] supportRe;
+		final double[] supportIm;
+		
+		GoalSpectrum(Vector goal, FourierTransform fft) {
+			super(goal.getArray(), goal.avg(), fft, new double[2][fft.getLength()]);
+			this.goal = goal;
+			this.fft = fft;
+			this.std = goal.std();
+			
+			double[] ones = new double[goal.getNumDimensions()];
+			Arrays.fill(ones, 1.0);
+			Spectrum support = new Spectrum(ones, 0.0, fft, new double[2][fft.getLength()]);
+			this.supportRe = support.re;
+			this.supportIm = support.im;
+		}
 	}
 	
 	/**
@@ -15,7 +15,7 @@ import data.Vector;
  * 
  * @author Peter, Thomas Asikis
  */
-public class DotCostFunction implements DifferentiableCostFunction<Vector>, HasGoal {
+public class DotCostFunction implements DifferentiableCostFunction<Vector>, IncrementalCostFunction<Vector>, HasGoal {
     private Vector costVector;
     
     /**
@@ -38,6 +38,12 @@ public class DotCostFunction implements DifferentiableCostFunction<Vector>, HasG
         return costVector.dot(value);
     }
 
+    @Override
+    public DeltaCost<Vector> prepare(Vector base) {
+        Vector costVector = this.costVector;
+        return delta -> Vector.dot(costVector, base, delta);
+    }
+
     @Override
     public String toString() {
         return "dot product";
@@ -0,0 +1,51 @@
+package func;
+
+import data.DataType;
+
+/**
+ * A cost function that can score many candidates of the form <code>base + delta</code>
+ * without building each sum. This is the situation of plan selection: every
+ * candidate global response is the response of the other agents plus one plan.
+ *
+ * @param <V> the type of the data this cost function should handle
+ */
+public interface IncrementalCostFunction<V extends DataType<V>> extends CostFunction<V> {
+
+	/**
+	 * Prepares the evaluation of candidates that share the given base. The
+	 * returned evaluator keeps the state of the preparation, so that a cost
+	 * function instance can be shared by agents.
+	 * @param base the common part of all candidates, must not be modified while
+	 * the evaluator is in use
+	 * @return an evaluator of <code>calcCost(base + delta)</code>
+	 */
+	public DeltaCost<V> prepare(V base);
+
+	/**
+	 * Evaluates candidates of a common base. The costs equal those of
+	 * <code>calcCost</code> on the materialized sum up to rounding: they are exact
+	 * unless the implementation states otherwise, so callers must not rely on
+	 * bit-identical costs, e.g. to bound them.
+	 */
+	@FunctionalInterface
+	public interface DeltaCost<V> {
+
+		/**
+		 * @param delta the part of the candidate that differs from the base
+		 * @return the value of <code>calcCost(base + delta)</code>, up to rounding
+		 */
+		public double costWithDelta(V delta);
+
+		/**
+		 * Same as {@link #costWithDelta}, for a delta that is never modified, such
+		 * as the value of a plan, so that state derived from it may be kept across
+		 * evaluations.
+		 * @param plan the part of the candidate that differs from the base
+		 * @return the value of <code>calcCost(base + plan)</code>, up to rounding
+		 */
+		public default double costWithPlan(V plan) {
+			return this.costWithDelta(plan);
+		}
+	}
+
+}
@@ -25,13 +25,18 @@ import data.Vector;
  * 
  * @author Peter, Thomas Asikis
  */
-public class MaxCostFunction implements CostFunction<Vector> {
+public class MaxCostFunction implements IncrementalCostFunction<Vector> {
 
 	@Override
 	public double calcCost(Vector vector) {
 		return vector.max();
 	}
 
+	@Override
+	public DeltaCost<Vector> prepare(Vector base) {
+		return delta -> Vector.max(base, delta);
+	}
+
 	@Override
 	public String toString() {
 		return "max";
@@ -19,7 +19,8 @@ public interface PlanCostFunction<V extends DataType<V>> {
 	/**
 	 * This method takes as an input any plan of type V and calculates the
 	 * real number that represents the cost of the plan. This function is used during
-	 * the minimization.
+	 * the minimization. The cost may only depend on the plan, because it is
+	 * cached per plan, see {@link Plan#getStatistics(PlanCostFunction)}.
 	 * @param plan
 	 * @return
 	 */
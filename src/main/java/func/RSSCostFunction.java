@@ -1,6 +1,7 @@
 package func;
 
 
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,7 +16,7 @@ import data.Vector;
  * @author Jovan N., Thomas Asikis
  *
  */
-public class RSSCostFunction implements DifferentiableCostFunction<Vector>, HasGoal {
+public class RSSCostFunction implements DifferentiableCostFunction<Vector>, IncrementalCostFunction<Vector>, HasGoal {
 	
 
 	private enum SignalType {
@@ -44,6 +45,45 @@ public class RSSCostFunction implements DifferentiableCostFunction<Vector>, HasG
 		return Vector.residualSumOfSquares(responseNormalized, RSSCostFunction.goalNormalized);
 	}
 	
+	/**
+	 * The built-in normalizations are fused with the residual sum of squares.
+	 * Other normalizers are applied to the materialized response.
+	 */
+	@Override
+	public DeltaCost<Vector> prepare(Vector base) {
+		UnaryOperator<Vector> normalizer = Configuration.normalizer;
+		Vector goal = RSSCostFunction.goalNormalized;
+		int numDimensions = base.getNumDimensions();
+		
+		if(normalizer == Vector.standard_normalization) {
+			return delta -> {
+				double mean = Vector.sum(base, delta) / numDimensions;
+				double std = Math.sqrt(Vector.variance(base, delta));
+				return Vector.residualSumOfSquares(base, delta, mean, std + 1e-10, goal);
+			};
+		} else if(normalizer == Vector.min_max_normalization) {
+			return delta -> {
+				double min = Vector.min(base, delta);
+				double max = Vector.max(base, delta);
+				return Vector.residualSumOfSquares(base, delta, min, max - min, goal);
+			};
+		} else if(normalizer == Vector.unit_length_normalization) {
+			return delta -> {
+				double norm = Math.sqrt(Vector.normSqr(base, delta));
+				return Vector.residualSumOfSquares(base, delta, 0.0, norm + 1e-10, goal);
+			};
+		} else if(normalizer == Vector.no_normalization) {
+			return delta -> Vector.residualSumOfSquares(base, delta, goal);
+		}
+		
+		Vector response = base.cloneNew();
+		return delta -> {
+			response.set(base);
+			response.add(delta);
+			return Vector.residualSumOfSquares(normalizer.apply(response), goal);
+		};
+	}
+	
 	@Override
 	public Vector calcGradient(Vector value) {
 		//FIXME test amth and functionality to see that the gradient is properly calculated.
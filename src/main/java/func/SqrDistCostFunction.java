@@ -26,7 +26,7 @@ import data.Vector;
  *
  * @author peter
  */
-public class SqrDistCostFunction implements DifferentiableCostFunction<Vector>, HasGoal{
+public class SqrDistCostFunction implements DifferentiableCostFunction<Vector>, IncrementalCostFunction<Vector>, HasGoal{
 
     private Vector target;
 
@@ -52,6 +52,12 @@ public class SqrDistCostFunction implements DifferentiableCostFunction<Vector>,
         return v.sum();
     }
 
+    @Override
+    public DeltaCost<Vector> prepare(Vector base) {
+        Vector target = this.target;
+        return delta -> Vector.residualSumOfSquares(base, delta, target);
+    }
+
     @Override
     public Vector calcGradient(Vector vector) {
         Vector v = vector.cloneThis();
@@ -6,6 +6,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import agent.Agent;
+import agent.CandidateTreeSearch;
+import agent.ModifiableIeposAgent;
 import config.Configuration;
 import data.Vector;
 import dsutil.generic.RankPriority;
@@ -24,6 +26,7 @@ public class ModifiableTreeArchitecture implements Cloneable {
     public BalanceType 		balance;
     public int 				maxChildren;
     private Configuration	config;
+    private CandidateTreeSearch<Vector> search;
     
     public BiFunction<Integer, Agent, Double> rankGenerator = (idx, agent) -> (double) idx;
     
@@ -36,22 +39,48 @@ public class ModifiableTreeArchitecture implements Cloneable {
         this.config = config;
     }
     
+    @SuppressWarnings("unchecked")
     public void addPeerlets(Peer peer, Agent agent, int peerIndex, int numNodes) {
     	
+        if (this.config.candidateStructures > 1 && this.config.subtreeSwaps == 0 && agent instanceof ModifiableIeposAgent) {
+            if (this.search == null) {
+                this.search = new CandidateTreeSearch<>(this.config.candidateIterations, 
+                										this.config.candidateThreads, 
+                										this.config.reorganizationSeed);
+            }
+            this.search.addAgent((ModifiableIeposAgent<Vector>) agent);
+        }
+        
         if (peerIndex == 0) {
-            peer.addPeerlet(new ModifiableTreeServer(numNodes, 
+            ModifiableTreeServer server = new ModifiableTreeServer(numNodes, 
             										 priority, 
             										 rank, 
             										 type, 
             										 balance,  
-            										 new Random(this.config.reorganizationSeed)));
+            										 new Random(this.config.reorganizationSeed));
+            if (Configuration.treeGenerator.equals("native")) {
+                server.useNativeGenerator(maxChildren);
+            }
+            if (this.config.subtreeSwaps > 0) {
+                server.useSubtreeSwaps(this.config.subtreeSwaps);
+            }
+            if (this.config.batchedTreeViews) {
+                server.useBatchedTreeViews();
+            }
+            if (this.search != null) {
+                server.useCandidateSearch(this.search, this.config.candidateStructures);
+            }
+            peer.addPeerlet(server);
         }
         
-        peer.addPeerlet(new ModifiableTreeClient(Experiment.getSingleton().getAddressToBindTo(0), 
-        		                       			 new SimplePeerIdentifierGenerator(), 
-        		                       			 rankGenerator.apply(peerIndex, agent), 
-        		                       			 maxChildren+1)
-        		        );        
+        ModifiableTreeClient client = new ModifiableTreeClient(Experiment.getSingleton().getAddressToBindTo(0), 
+        		                       						   new SimplePeerIdentifierGenerator(), 
+        		                       						   rankGenerator.apply(peerIndex, agent), 
+        		                       						   maxChildren+1);
+        if (this.config.batchedTreeViews) {
+            client.useBatchedTreeViews();
+        }
+        peer.addPeerlet(client);
         peer.addPeerlet(new ModifiableTreeProvider());
         peer.addPeerlet(agent);
     }
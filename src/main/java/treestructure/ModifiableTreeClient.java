@@ -24,6 +24,10 @@ import tree.centralized.TreeViewRequest;
  *  - handling reply from the server
  *  - passes received information to implementer of TreeProviderInterface
  * 
+ * With batched tree views, the client requests its view only once, when the tree is built.
+ * After a reorganization, it waits for the <code>TreeViewBatch</code> of the server instead,
+ * forwards it to its children in the previous tree and takes its own view from it.
+ * 
  * @author jovan
  *
  */
@@ -43,6 +47,8 @@ public class ModifiableTreeClient extends BasePeerlet implements TreeMiddlewareI
     private NetworkAddress 				bootstrapServerAddress;
     private double 						rank;
     private int 						dMax;
+    private boolean 					batched;
+    private TreeViewReply 				pendingReply;		// view from a batch that arrived before it was awaited
     
     
     public ModifiableTreeClient(NetworkAddress bootstrapServerAddress, 
@@ -108,16 +114,58 @@ public class ModifiableTreeClient extends BasePeerlet implements TreeMiddlewareI
     	return this.state;
     }
     
+    /**
+     * After the tree is built, new Tree Views are awaited from a <code>TreeViewBatch</code>
+     * instead of being requested, see <code>ModifiableTreeServer.useBatchedTreeViews()</code>.
+     */
+    public void useBatchedTreeViews() {
+    	this.batched = true;
+    }
+    
     /**
      * Sends request for a new Tree View (parent and children).
-     * The request is sent to the TreeServer. 
+     * The request is sent to the TreeServer. With batched tree views, only the first
+     * view is requested; later views are awaited from the batch.
      */
     public void requestNewTreeView() {
+    	if (this.batched && this.state != ClientState.INIT) {
+    		this.awaitTreeViewBatch();
+    		return;
+    	}
     	TreeViewRequest requestMsg = new TreeViewRequest();
     	requestMsg.sourceDescriptor = this.localDescriptor;
     	this.sendTreeViewRequest(requestMsg);
     }
     
+    /**
+     * Requests the views of all peers of the reorganized tree from the TreeServer in one
+     * <code>TreeViewBatch</code>. Invoked only by the root.
+     */
+    public void requestTreeViewBatch() {
+    	this.getPeer().sendMessage(this.bootstrapServerAddress, new TreeViewBatchRequest());
+    }
+    
+    /**
+     * Waits for the own view from the next <code>TreeViewBatch</code>, or delivers it
+     * right away if the batch has already passed.
+     */
+    private void awaitTreeViewBatch() {
+    	this.state = ClientState.WAITING;
+    	if (this.pendingReply != null) {
+    		TreeViewReply reply = this.pendingReply;
+    		this.pendingReply = null;
+    		this.runPassiveState(reply);
+    	}
+    }
+    
+    /**
+     * Requests the TreeServer to swap subtrees of the current tree. Only the peers
+     * whose parent or children change receive a new Tree View.
+     */
+    public void requestSubtreeSwaps() {
+    	this.getPeer().sendMessage(this.bootstrapServerAddress, new SubtreeSwapRequest());
+    }
+    
     /**
      * Does actual sending of Request Message.
      * 
@@ -134,14 +182,40 @@ public class ModifiableTreeClient extends BasePeerlet implements TreeMiddlewareI
     
     @Override
     /**
-     * Only messages of <code>TreeViewReply</code> type are handled.
+     * Only messages of <code>TreeViewReply</code> and <code>TreeViewBatch</code> type are handled.
      */
     public void handleIncomingMessage(Message message) {
         if (message instanceof TreeViewReply) {
                 this.runPassiveState((TreeViewReply) message);
+        } else if (message instanceof TreeViewBatch) {
+                this.forwardTreeViewBatch((TreeViewBatch) message);
         }
     }
     
+    /**
+     * Forwards the batch to the children of this node in the previous tree, then delivers
+     * the own view if it is awaited. Otherwise, the agent has not finished its current
+     * iteration yet, and the view is kept until it is requested.
+     * 
+     * @param batch views of all peers of the reorganized tree
+     */
+    private void forwardTreeViewBatch(TreeViewBatch batch) {
+    	NetworkAddress address = this.getPeer().getNetworkAddress();
+    	if (!batch.contains(address)) {
+    		this.logger.log(Level.SEVERE, "NODE: " + this.getPeer().getIndexNumber() + " is not in the TreeViewBatch!");
+    		return;
+    	}
+    	for (int i = 0; i < batch.getNumNextHops(address); i++) {
+    		this.getPeer().sendMessage(batch.getNextHop(address, i), batch);
+    	}
+    	TreeViewReply reply = batch.getView(address);
+    	if (this.state == ClientState.WAITING) {
+    		this.runPassiveState(reply);
+    	} else {
+    		this.pendingReply = reply;
+    	}
+    }
+    
     /**
      * Handles reply from Tree Server. The reply should contain
      * new parent and new set of children for this node.
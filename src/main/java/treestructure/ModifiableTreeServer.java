@@ -1,28 +1,32 @@
 package treestructure;
 
-import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
 import java.util.Random;
-import java.util.Set;
+import java.util.stream.Collectors;
 
+import agent.CandidateTreeSearch;
 import dsutil.generic.RankPriority;
+import dsutil.generic.RankedFingerComparator;
 import dsutil.protopeer.FingerDescriptor;
 import dsutil.protopeer.services.topology.trees.DescriptorType;
 import dsutil.protopeer.services.topology.trees.TreeType;
 import protopeer.BasePeerlet;
 import protopeer.Peer;
 import protopeer.network.Message;
+import protopeer.network.NetworkAddress;
 import tree.BalanceType;
 import tree.centralized.TreeViewReply;
 import tree.centralized.TreeViewRequest;
-import tree.centralized.server.TreeTopologyGenerator;
-import tree.centralized.server.TreeViewFacilitator;
 
 /**
  * The class that computes and maintains tree topology. Main functionalities include:
@@ -31,6 +35,19 @@ import tree.centralized.server.TreeViewFacilitator;
  *  - broadcasting parents and children via <code>TreViewReply</code> messages to all 
  *    participating nodes.
  * 
+ * The topology is generated as by <code>TreeTopologyGenerator</code>, but laid out in a
+ * {@link TreeLayout} over the slots of the peers, i.e. the order of their first requests,
+ * and every peer is indexed by its network address. Answering a request of a reorganized
+ * peer therefore only looks up its vertex, instead of searching all views. With the
+ * native generator, see {@link #useNativeGenerator(int)}, the peers are not sorted by
+ * their descriptors either: the layout is generated from the permutation of the slots.
+ * With subtree swaps, see {@link #useSubtreeSwaps(int)}, the tree is not rebuilt at all:
+ * the server swaps subtrees of the current layout on request of the root. With batched
+ * tree views, see {@link #useBatchedTreeViews()}, the peers do not request their views
+ * after a reorganization: the root requests all of them at once. With a candidate search,
+ * see {@link #useCandidateSearch(CandidateTreeSearch, int)}, several trees are generated per
+ * reorganization and the best of them is kept.
+ * 
  * @author jovan
  *
  */
@@ -47,12 +64,27 @@ public class ModifiableTreeServer extends BasePeerlet {
     
     private Random								random;
     private LinkedHashSet<FingerDescriptor> 	peers;			// it maintains the insertion order!
-    private TreeTopologyGenerator 				generator;
+    private final RankPriority 					priority;
+    private final DescriptorType 				descrType;
+    private final TreeType 						treeType;
+    private final BalanceType 					balanceType;
     private ServerState 						state;
     private final int 							N;
     private int 								n;
     
-    private Set<Entry<FingerDescriptor,TreeViewFacilitator>> views;
+    private FingerDescriptor[] 					slots;			// peers in the order of their first requests
+    private Map<NetworkAddress, Integer> 		slotIndex;		// slot of each peer
+    private TreeLayout 							layout;			// agents of the layout are slots
+    private int 								nativeMaxChildren;
+    private int[] 								shuffled;		// slots in the order of the last shuffle
+    private int 								numSwaps;		// subtrees swapped per reorganization, 0 rebuilds the tree
+    private boolean 							batched;		// views are sent in one batch on request of the root
+    private TreeLayout 							activeLayout;	// layout of the views the peers have received
+    private CandidateTreeSearch<?> 				search;
+    private int 								numCandidates;	// trees evaluated per reorganization
+    private List<TreeViewRequest> 				pendingRequests	= new ArrayList<>();	// answered once all peers requested
+    
+    private static final int 					MAX_SWAP_ATTEMPTS = 16;	// random pairs tried per swap
     
     
     /**
@@ -62,14 +94,14 @@ public class ModifiableTreeServer extends BasePeerlet {
      * @param N 			the number of requests to wait for before starting building the
      * 						 tree topology. Essentially, this should be total number of nodes, no more no less.
      * @param priority 		higher or lower ranks preferred during the sorting. This
-     * 						 parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param descrType 	the descriptor type based on which the sorting is performed: 
      * 						 <code>RANK</code> or <code>NODE_DEGREE</code>. This parameter 
-     * 						 is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param treeType 		the type of tree to be built: <code>RANDOM</code>, <code>SORTED_HtL</code>
-     * 						 and <code>SORTED_LtH</code>. This parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 and <code>SORTED_LtH</code>. This parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param balanceType 	the balance of the tree to be built: <code>WEIGHT_BALANCED</code> or <code>LIST</code>. 
-     * 						 This parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 This parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param random		random number generator to be used for permuting the list.
      */
     public ModifiableTreeServer(int N, 
@@ -83,7 +115,10 @@ public class ModifiableTreeServer extends BasePeerlet {
         this.N = N;
         this.n = 0;
         this.peers = new LinkedHashSet<FingerDescriptor>();
-        this.generator = new TreeTopologyGenerator(priority, descrType, treeType, balanceType);
+        this.priority = priority;
+        this.descrType = descrType;
+        this.treeType = treeType;
+        this.balanceType = balanceType;
         this.random = random;
     }
     
@@ -94,14 +129,14 @@ public class ModifiableTreeServer extends BasePeerlet {
      * @param N 			the number of requests to wait for before starting building the
      * 						 tree topology. Essentially, this should be total number of nodes, no more no less.
      * @param priority 		higher or lower ranks preferred during the sorting. This
-     * 						 parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param descrType 	the descriptor type based on which the sorting is performed: 
      * 						 <code>RANK</code> or <code>NODE_DEGREE</code>. This parameter 
-     * 						 is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param treeType 		the type of tree to be built: <code>RANDOM</code>, <code>SORTED_HtL</code>
-     * 						 and <code>SORTED_LtH</code>. This parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 and <code>SORTED_LtH</code>. This parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param balanceType 	the balance of the tree to be built: <code>WEIGHT_BALANCED</code> or <code>LIST</code>. 
-     * 						 This parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 This parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param seed			seed value for random numbers generator to be used for permutations.
      */
     public ModifiableTreeServer(int N, 
@@ -115,7 +150,10 @@ public class ModifiableTreeServer extends BasePeerlet {
         this.N = N;
         this.n = 0;
         this.peers = new LinkedHashSet<FingerDescriptor>();
-        this.generator = new TreeTopologyGenerator(priority, descrType, treeType, balanceType);
+        this.priority = priority;
+        this.descrType = descrType;
+        this.treeType = treeType;
+        this.balanceType = balanceType;
         this.random = new Random(seed);
     }
     
@@ -126,12 +164,12 @@ public class ModifiableTreeServer extends BasePeerlet {
      * @param N 			the number of requests to wait for before starting building the
      * 						 tree topology
      * @param priority 		higher or lower ranks preferred during the sorting. This
-     * 						 parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param descrType 	the descriptor type based on which the sorting is performed: 
      * 						 <code>RANK</code> or <code>NODE_DEGREE</code>. This parameter 
-     * 						 is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 is interpreted as by the <code>TreeTopologyGenerator</code>.
      * @param treeType 		the type of tree to be built: <code>RANDOM</code>, <code>SORTED_HtL</code>
-     * 						 and <code>SORTED_LtH</code>. This parameter is fed in the <code>TreeTopologyGenerator</code>.
+     * 						 and <code>SORTED_LtH</code>. This parameter is interpreted as by the <code>TreeTopologyGenerator</code>.
      */
     public ModifiableTreeServer(int N, 
     		 					RankPriority priority, 
@@ -156,6 +194,55 @@ public class ModifiableTreeServer extends BasePeerlet {
     	return this.state;
     }
     
+    /**
+     * Generates the topology with {@link TreeLayout#generate(int[], int, RankPriority, TreeType, BalanceType)}
+     * from the permutation of the peers, instead of sorting their descriptors. The tree is the
+     * same, as long as the initial ranks of the peers are a permutation of 0..N-1 and the
+     * priority is <code>HIGH_RANK</code> or <code>LOW_RANK</code>; otherwise the descriptors
+     * are sorted.
+     * 
+     * @param maxChildren number of children of every inner node, all peers have the same degree
+     */
+    public void useNativeGenerator(int maxChildren) {
+    	this.nativeMaxChildren = maxChildren;
+    }
+    
+    /**
+     * Reorganizes the tree by swapping <code>numSwaps</code> random pairs of subtrees on
+     * every {@link SubtreeSwapRequest} of the root, instead of generating a new tree from
+     * the requests of all peers. The tree keeps its shape, and only the peers whose parent
+     * or children change receive a new view.
+     * 
+     * @param numSwaps number of pairs of subtrees swapped per reorganization
+     */
+    public void useSubtreeSwaps(int numSwaps) {
+    	this.numSwaps = numSwaps;
+    }
+    
+    /**
+     * Sends the views of a reorganized tree to all peers in one {@link TreeViewBatch} on a
+     * {@link TreeViewBatchRequest} of the root, instead of replying to the <code>TreeViewRequest</code>
+     * of every peer. The batch is sent to the root and forwarded down the previous tree, so it
+     * reaches all peers in as many hops as the tree is deep.
+     */
+    public void useBatchedTreeViews() {
+    	this.batched = true;
+    }
+    
+    /**
+     * Generates <code>numCandidates</code> trees per reorganization by shuffling the nodes
+     * repeatedly, and keeps the tree for which the search finds the lowest global cost. The
+     * requests of the peers are answered once all of them have arrived, because then all
+     * peers have completed the iteration from whose plan selections the candidates start.
+     * 
+     * @param search		evaluates the candidate trees
+     * @param numCandidates	number of trees evaluated per reorganization
+     */
+    public void useCandidateSearch(CandidateTreeSearch<?> search, int numCandidates) {
+    	this.search = search;
+    	this.numCandidates = numCandidates;
+    }
+    
     private void runActiveState(){
         this.state=ServerState.GATHERING_PEERS;
     }
@@ -166,11 +253,16 @@ public class ModifiableTreeServer extends BasePeerlet {
     
     @Override
     /**
-     * Handles only messages of type <code>TreeViewRequest</code>
+     * Handles only messages of type <code>TreeViewRequest</code>, <code>TreeViewBatchRequest</code>
+     * and <code>SubtreeSwapRequest</code>
      */
     public void handleIncomingMessage(Message message) {
         if (message instanceof TreeViewRequest) {
                 this.runPassiveState((TreeViewRequest) message);
+        } else if (message instanceof TreeViewBatchRequest) {
+                this.sendViewBatch();
+        } else if (message instanceof SubtreeSwapRequest) {
+                this.swapSubtrees();
         }
     }
     
@@ -214,10 +306,22 @@ public class ModifiableTreeServer extends BasePeerlet {
      * and then broadcasts TreeViews to all nodes.
      */
     private void generateTreeTopology() {
-    	this.views = this.generator.generateTopology(this.peers);
+    	this.slots = this.peers.toArray(new FingerDescriptor[this.peers.size()]);
+    	this.slotIndex = new HashMap<>();
+    	for (int slot = 0; slot < this.slots.length; slot++) {
+    		this.slotIndex.put(this.slots[slot].getNetworkAddress(), slot);
+    	}
+    	if (this.nativeMaxChildren > 0) {
+    		this.generateNativeLayout(this.initialRanks());
+    	} else {
+    		this.generateLayout();
+    	}
         this.broadcastViews();
+        this.activeLayout = this.layout;
         this.state = ServerState.COMPLETED;
-        this.shuffleNodes();
+        if (this.numSwaps == 0) {
+        	this.shuffleNodes();
+        }
         this.n = 0;
     }
     
@@ -225,10 +329,15 @@ public class ModifiableTreeServer extends BasePeerlet {
      * Shuffles the list of peers using random number generator and <code>Collections.shuffle()</code>.
      * Then, <code>DescriptorType.RANK</code> is updated according to index of the descriptor in the list.
      * Because of this, during topology generation, in which they are sorted according to their RANK, this
-     * permutation is maintained. Finally, it sets <code>this.views</code>.
+     * permutation is maintained. Finally, it generates the layout of the new topology.
      */
     public void shuffleNodes() {
     	this.state = ServerState.WAITING;
+    	if (this.nativeMaxChildren > 0) {
+    		this.shuffleSlots();
+    		this.state = ServerState.COMPLETED;
+    		return;
+    	}
     	ArrayList<FingerDescriptor> listForShuffling = new ArrayList<>();
     	this.peers.forEach(fd -> listForShuffling.add(fd));
     	Collections.shuffle(listForShuffling, this.random);
@@ -239,32 +348,175 @@ public class ModifiableTreeServer extends BasePeerlet {
     	});
     	this.logger.log(Level.INFO, "Nodes shuffled!");
     	try {
-    		this.views = this.generator.generateTopology(this.peers);
+    		this.generateLayout();
     	} catch(Exception e) {
     		e.printStackTrace();
     	}    	
     	this.state = ServerState.COMPLETED;
     }
     
+    /**
+     * Orders the peers as <code>TreeTopologyGenerator</code> does, either sorted by the
+     * descriptor type or shuffled, and connects them into a <code>TreeLayout</code>. The
+     * capacity of every peer is its <code>NODE_DEGREE</code> minus the link to its parent.
+     * Finally, it indexes the vertex of every peer by its network address.
+     */
+    private void generateLayout() {
+    	this.layout = ModifiableTreeServer.generateLayout(this.peers, this.slotIndex, this.priority, this.descrType,
+    			this.treeType, this.balanceType);
+    }
+    
+    /**
+     * Orders the given peers as <code>TreeTopologyGenerator</code> does and connects them
+     * into a <code>TreeLayout</code> whose agents are the slots of the peers.
+     */
+    static TreeLayout generateLayout(Set<FingerDescriptor> peers, Map<NetworkAddress, Integer> slotIndex,
+    		RankPriority priority, DescriptorType descrType, TreeType treeType, BalanceType balanceType) {
+    	List<FingerDescriptor> order = new ArrayList<>(peers);
+    	if (treeType == TreeType.RANDOM) {
+    		Collections.shuffle(order);
+    	} else if (treeType == TreeType.SORTED_HtL || treeType == TreeType.SORTED_LtH) {
+    		Collections.sort(order, new RankedFingerComparator(priority, descrType));
+    	}
+    	
+    	int[] agents = new int[order.size()];
+    	int[] capacities = new int[order.size()];
+    	for (int vertex = 0; vertex < order.size(); vertex++) {
+    		agents[vertex] = slotIndex.get(order.get(vertex).getNetworkAddress());
+    		capacities[vertex] = (Integer) order.get(vertex).getDescriptor(DescriptorType.NODE_DEGREE) - 1;
+    	}
+    	return TreeLayout.connect(agents, capacities, balanceType);
+    }
+    
+    /**
+     * @return the initial rank of every slot, or <code>null</code> if the ranks are not
+     * integers, so that the native generator does not apply
+     */
+    private int[] initialRanks() {
+    	int[] ranks = new int[this.slots.length];
+    	for (int slot = 0; slot < this.slots.length; slot++) {
+    		double rank = (Double) this.slots[slot].getDescriptor(DescriptorType.RANK);
+    		if (rank != Math.rint(rank)) {
+    			return null;
+    		}
+    		ranks[slot] = (int) rank;
+    	}
+    	return ranks;
+    }
+    
+    /**
+     * Generates the layout from the rank of every slot. If the native generator does not
+     * apply to the ranks, it falls back to sorting the descriptors for the rest of the run.
+     */
+    private void generateNativeLayout(int[] ranks) {
+    	if (ranks != null && this.descrType == DescriptorType.RANK
+    			&& (this.priority == RankPriority.HIGH_RANK || this.priority == RankPriority.LOW_RANK)) {
+    		try {
+    			this.layout = TreeLayout.generate(ranks, this.nativeMaxChildren, this.priority, this.treeType, this.balanceType);
+    			return;
+    		} catch (IllegalArgumentException e) {
+    			this.logger.log(Level.WARNING, e.getMessage());
+    		}
+    	}
+    	this.logger.log(Level.WARNING, "Native tree generator does not apply to the ranks of the peers, their descriptors are sorted.");
+    	this.nativeMaxChildren = 0;
+    	this.generateLayout();
+    }
+    
+    /**
+     * Same as the shuffle of the descriptors in {@link #shuffleNodes()}, on the slots: the
+     * previous order is shuffled with the same random number generator, and the rank of every
+     * peer becomes its index in the new order.
+     */
+    private void shuffleSlots() {
+    	if (this.shuffled == null) {
+    		this.shuffled = IntStream.range(0, this.slots.length).toArray();
+    	}
+    	TreeLayout.shuffle(this.shuffled, this.random);
+    	int[] ranks = new int[this.slots.length];
+    	for (int i = 0; i < this.shuffled.length; i++) {
+    		ranks[this.shuffled[i]] = i;
+    		this.slots[this.shuffled[i]].replaceDescriptor(DescriptorType.RANK, (double)i);
+    	}
+    	this.logger.log(Level.INFO, "Nodes shuffled!");
+    	this.generateNativeLayout(ranks);
+    }
+    
+    /**
+     * Sends the views of all peers in the tree generated by the last shuffle as one
+     * <code>TreeViewBatch</code>, routed along the tree the peers have used so far. Then
+     * the nodes are shuffled for the next reorganization, as after the last reply in
+     * {@link #handleSingleMessage(TreeViewRequest)}.
+     */
+    private void sendViewBatch() {
+    	if (this.state != ServerState.COMPLETED || !this.batched) {
+    		this.logger.log(Level.SEVERE, "Received Tree View Batch Request, but no batch can be sent.");
+    		return;
+    	}
+    	TreeViewBatch batch = new TreeViewBatch(this.slots, this.slotIndex, this.layout, this.activeLayout);
+    	this.getPeer().sendMessage(batch.getFirstHop(), batch);
+    	this.activeLayout = this.layout;
+    	this.shuffleNodes();
+    }
+    
+    /**
+     * Swaps <code>numSwaps</code> random pairs of subtrees of the current layout, see
+     * {@link TreeLayout#swapSubtrees(int, int)}. The roots of a pair are on the same level,
+     * below the children of the root, and have different parents. Finally, the peers whose
+     * parent or children have changed are sent their new views.
+     */
+    private void swapSubtrees() {
+    	if (this.state != ServerState.COMPLETED) {
+    		this.logger.log(Level.SEVERE, "Received Subtree Swap Request before the tree was generated.");
+    		return;
+    	}
+    	if (this.layout.getNumLevels() < 3) {
+    		this.logger.log(Level.WARNING, "The tree has less than 3 levels, no subtrees can be swapped.");
+    		return;
+    	}
+    	int first = this.layout.getLevelStart(2);
+    	Set<Integer> changed = new LinkedHashSet<>();					// slots whose views have changed
+    	int swapped = 0;
+    	for (int swap = 0; swap < this.numSwaps; swap++) {
+    		for (int attempt = 0; attempt < MAX_SWAP_ATTEMPTS; attempt++) {
+    			int u = first + this.random.nextInt(this.layout.getNumVertices() - first);
+    			int level = 2;
+    			while (u >= this.layout.getLevelEnd(level)) {
+    				level++;
+    			}
+    			int levelStart = this.layout.getLevelStart(level);
+    			int v = levelStart + this.random.nextInt(this.layout.getLevelEnd(level) - levelStart);
+    			if (this.layout.getParent(u) != this.layout.getParent(v) && this.layout.haveSameShape(u, v)) {
+    				this.layout.swapSubtrees(u, v);
+    				changed.add(this.layout.getAgent(u));
+    				changed.add(this.layout.getAgent(v));
+    				changed.add(this.layout.getAgent(this.layout.getParent(u)));
+    				changed.add(this.layout.getAgent(this.layout.getParent(v)));
+    				swapped++;
+    				break;
+    			}
+    		}
+    	}
+    	this.logger.log(Level.INFO, swapped + " pairs of subtrees swapped!");
+    	for (int slot : changed) {
+    		this.getPeer().sendMessage(this.slots[slot].getNetworkAddress(), this.createReplyMessage(this.layout.getVertex(slot)));
+    	}
+    }
+    
     /**
      * Sends reply containing parent and children to every node in the network.
-     * If views is <code>null</code>, nothing is sent to the nodes.
-     * 
-     * @param views set of pairs: Descriptor of the receiving agent and it's assigned parent and children
+     * If no layout has been generated, nothing is sent to the nodes.
      */
     private void broadcastViews() {
-    	if(this.views == null) {
-    		this.logger.log(Level.SEVERE, "View received from topology generator is null!");
+    	if(this.layout == null) {
+    		this.logger.log(Level.SEVERE, "Tree layout has not been generated!");
     		return;
     	}
-    	this.views.stream().map(entry -> {
-    						 return new SimpleEntry<FingerDescriptor, TreeViewReply>(entry.getKey(), 
-    								                                          		 this.createReplyMessage(entry));
-    					   })
-    	              .forEach(entry -> {
-    	            	  //this.logger.log(Level.FINER, "Reply sent from server to agent " + entry.getKey().getNetworkAddress());
-    	            	  this.getPeer().sendMessage(entry.getKey().getNetworkAddress(), entry.getValue());
-    	              });
+    	for (int vertex = 0; vertex < this.layout.getNumVertices(); vertex++) {
+    		FingerDescriptor peer = this.slots[this.layout.getAgent(vertex)];
+    		//this.logger.log(Level.FINER, "Reply sent from server to agent " + peer.getNetworkAddress());
+    		this.getPeer().sendMessage(peer.getNetworkAddress(), this.createReplyMessage(vertex));
+    	}
     }
     
     /**
@@ -282,33 +534,81 @@ public class ModifiableTreeServer extends BasePeerlet {
     		this.logger.log(Level.SEVERE, "TreeViewRequest sent from unknown node!");
     		return;
     	}
-		Entry<FingerDescriptor, TreeViewFacilitator> sendersEntry = 
-				this.views.stream().filter(entry -> entry.getKey().equals(sender))	// equals() of FingerDescriptors compares fingers only, not descriptors!
-						   		   .findFirst()										// generally, there should be one and only
-						   		   .orElse(null);
-		if(sendersEntry == null) {
-			this.logger.log(Level.SEVERE, "Filtering in handling single message returns null!");
+		Integer slot = this.slotIndex.get(sender.getNetworkAddress());
+		if(slot == null) {
+			this.logger.log(Level.SEVERE, "Sender of TreeViewRequest is not in the tree layout!");
 			return;
 		}
-		TreeViewReply reply = this.createReplyMessage(sendersEntry);
-		this.getPeer().sendMessage(sender.getNetworkAddress(), reply);
+		if(this.search != null) {
+			this.pendingRequests.add(request);
+		} else {
+			TreeViewReply reply = this.createReplyMessage(this.layout.getVertex(slot));
+			this.getPeer().sendMessage(sender.getNetworkAddress(), reply);
+		}
 		this.n++;
 		if(this.n == this.N) {
+			if(this.search != null) {
+				this.selectCandidateLayout();
+				this.answerPendingRequests();
+			}
 			this.shuffleNodes();
 			this.n = 0;
 		}
     }
     
     /**
-     * Creates <code>TreViewReply</code> message and sets parent and children from <code>entry</code>.
+     * Evaluates the tree generated by the last shuffle together with the trees of
+     * <code>numCandidates - 1</code> further shuffles, and keeps the best of them.
+     */
+    private void selectCandidateLayout() {
+    	List<TreeLayout> candidates = new ArrayList<>();
+    	candidates.add(this.layout);
+    	for (int i = 1; i < this.numCandidates; i++) {
+    		this.shuffleNodes();
+    		candidates.add(this.layout);
+    	}
+    	List<NetworkAddress> addresses = Arrays.stream(this.slots).map(FingerDescriptor::getNetworkAddress).collect(Collectors.toList());
+    	int best = this.search.selectBest(candidates, addresses);
+    	this.logger.log(Level.INFO, "Candidate tree " + best + " of " + candidates.size() + " selected!");
+    	this.layout = candidates.get(best);
+    }
+    
+    /**
+     * Replies to all requests received since the last reorganization, in their order.
+     */
+    private void answerPendingRequests() {
+    	for (TreeViewRequest request : this.pendingRequests) {
+    		NetworkAddress address = request.sourceDescriptor.getNetworkAddress();
+    		TreeViewReply reply = this.createReplyMessage(this.layout.getVertex(this.slotIndex.get(address)));
+    		this.getPeer().sendMessage(address, reply);
+    	}
+    	this.pendingRequests.clear();
+    }
+    
+    /**
+     * Creates <code>TreViewReply</code> message and sets parent and children of the peer at
+     * the given vertex of the layout.
      * 
-     * @param entry contains parent and children in the tree topology.
+     * @param vertex vertex of the receiving peer in the tree layout
      * @return <code>TreViewReply</code> message that is ready to be sent
      */
-    private TreeViewReply createReplyMessage(Entry<FingerDescriptor, TreeViewFacilitator> entry) {
+    private TreeViewReply createReplyMessage(int vertex) {
+    	return ModifiableTreeServer.createReplyMessage(this.layout, this.slots, vertex);
+    }
+    
+    /**
+     * Creates <code>TreViewReply</code> message for the peer at the given vertex of a layout
+     * whose agents are slots.
+     */
+    static TreeViewReply createReplyMessage(TreeLayout layout, FingerDescriptor[] slots, int vertex) {
     	TreeViewReply reply = new TreeViewReply();
-    	reply.parent = entry.getValue().getParent();
-    	reply.children = entry.getValue().getChildren();
+    	int parent = layout.getParent(vertex);
+    	int firstChild = layout.getFirstChild(vertex);
+    	reply.parent = parent < 0 ? null : slots[layout.getAgent(parent)];
+    	reply.children = new ArrayList<>();
+    	for (int child = firstChild; child < firstChild + layout.getNumChildren(vertex); child++) {
+    		reply.children.add(slots[layout.getAgent(child)]);
+    	}
     	return reply;
     }
 
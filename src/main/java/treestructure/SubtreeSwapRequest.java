@@ -0,0 +1,12 @@
+package treestructure;
+
+import protopeer.network.Message;
+
+/**
+ * Sent by the root to the <code>ModifiableTreeServer</code> to reorganize the tree by
+ * swapping subtrees, see {@link ModifiableTreeServer#useSubtreeSwaps(int)}. The server
+ * replies only to the agents whose parent or children change.
+ */
+public class SubtreeSwapRequest extends Message {
+
+}
@@ -0,0 +1,305 @@
+package treestructure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import dsutil.generic.RankPriority;
+import dsutil.protopeer.services.topology.trees.TreeType;
+import tree.BalanceType;
+
+/**
+ * Tree topology laid out in arrays, as an alternative to the parent and
+ * children fingers that the tree server sends to every agent.
+ *
+ * Vertices are numbered in breadth-first order: the root is vertex 0, the
+ * children of a vertex are consecutive and every child has a higher number
+ * than its parent. Iterating the vertices backwards therefore visits every
+ * subtree before its root, which is the order of the bottom-up phase, and
+ * iterating them forwards is the order of the top-down phase. The vertices of
+ * a level, i.e. of the same depth, are consecutive as well.
+ *
+ * The topology of a layout is fixed, but its agents can be rearranged by
+ * swapping subtrees, see {@link #swapSubtrees(int, int)}.
+ *
+ * @see ModifiableTreeServer
+ */
+public class TreeLayout {
+
+	private final int[]		agents;				// agent (peer index) at each vertex
+	private final int[]		vertices;			// vertex of each agent
+	private final int[]		parents;			// parent vertex, -1 at the root
+	private final int[]		firstChildren;		// vertex of the first child
+	private final int[]		numChildren;
+	private final int[]		levelStarts;		// first vertex of each level, followed by the number of vertices
+
+	private TreeLayout(int[] agents, int[] parents, int[] firstChildren, int[] numChildren) {
+		this.agents = agents;
+		this.parents = parents;
+		this.firstChildren = firstChildren;
+		this.numChildren = numChildren;
+		this.vertices = new int[agents.length];
+		for (int vertex = 0; vertex < agents.length; vertex++) {
+			this.vertices[agents[vertex]] = vertex;
+		}
+
+		List<Integer> starts = new ArrayList<>();
+		int[] depths = new int[agents.length];
+		for (int vertex = 0; vertex < agents.length; vertex++) {
+			depths[vertex] = parents[vertex] < 0 ? 0 : depths[parents[vertex]] + 1;
+			if (vertex == 0 || depths[vertex] != depths[vertex - 1]) {
+				starts.add(vertex);
+			}
+		}
+		starts.add(agents.length);
+		this.levelStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Generates the same topology as <code>TreeTopologyGenerator</code> of the
+	 * tree server does for agents that are ranked by their index, see
+	 * <code>ModifiableTreeArchitecture</code>: the agents are ordered by rank and
+	 * assigned level by level, every vertex taking the next
+	 * <code>maxChildren</code> agents as its children.
+	 *
+	 * @param numAgents		number of agents
+	 * @param maxChildren	number of children of every inner vertex
+	 * @param priority		whether the agent of highest or lowest rank is the root
+	 * @param type			<code>RANDOM</code> shuffles the agents instead of sorting them
+	 * @param balance		only <code>WEIGHT_BALANCED</code> is supported
+	 * @return the tree layout
+	 */
+	public static TreeLayout generate(int numAgents, int maxChildren, RankPriority priority, TreeType type, BalanceType balance) {
+		if (balance != BalanceType.WEIGHT_BALANCED) {
+			throw new IllegalArgumentException("Unsupported balance type: " + balance);
+		}
+		int[] ranks = new int[numAgents];
+		for (int i = 0; i < numAgents; i++) {
+			ranks[i] = i;
+		}
+		return generate(ranks, maxChildren, priority, type, balance);
+	}
+
+	/**
+	 * Generates the same topology as <code>TreeTopologyGenerator</code> does for
+	 * agents whose ranks are a permutation of 0..N-1, such as the ranks that the
+	 * tree server assigns when it shuffles the agents. Instead of sorting the
+	 * agents, the agent of rank r is placed at position r, or at position N-1-r if
+	 * the agent of highest rank is the root, so the tree is built in O(N).
+	 *
+	 * @param ranks			rank of each agent, a permutation of 0..N-1
+	 * @param maxChildren	number of children of every inner vertex
+	 * @param priority		whether the agent of highest or lowest rank is the root
+	 * @param type			<code>RANDOM</code> shuffles the agents instead of ordering them by rank
+	 * @param balance		<code>WEIGHT_BALANCED</code> or <code>LIST</code>
+	 * @return the tree layout
+	 */
+	public static TreeLayout generate(int[] ranks, int maxChildren, RankPriority priority, TreeType type, BalanceType balance) {
+		if (maxChildren < 1) {
+			throw new IllegalArgumentException("Number of children must be positive: " + maxChildren);
+		}
+
+		int numAgents = ranks.length;
+		int[] agents = new int[numAgents];
+		Arrays.fill(agents, -1);
+		for (int agent = 0; agent < numAgents; agent++) {
+			int rank = ranks[agent];
+			if (rank < 0 || rank >= numAgents) {
+				throw new IllegalArgumentException("Rank " + rank + " of agent " + agent + " is not in 0.." + (numAgents - 1));
+			}
+			int position = priority == RankPriority.HIGH_RANK ? numAgents - 1 - rank : rank;
+			if (agents[position] >= 0) {
+				throw new IllegalArgumentException("Agents " + agents[position] + " and " + agent + " have the same rank " + rank);
+			}
+			agents[position] = agent;
+		}
+		if (type == TreeType.RANDOM) {
+			shuffle(agents, new Random());
+		}
+
+		int[] capacities = new int[numAgents];
+		Arrays.fill(capacities, maxChildren);
+		return connect(agents, capacities, balance);
+	}
+
+	/**
+	 * Permutes the array as <code>Collections.shuffle</code> permutes a list of the
+	 * same elements with the same random number generator.
+	 */
+	public static void shuffle(int[] array, Random random) {
+		for (int i = array.length; i > 1; i--) {
+			int j = random.nextInt(i);
+			int swapped = array[i - 1];
+			array[i - 1] = array[j];
+			array[j] = swapped;
+		}
+	}
+
+	/**
+	 * Connects the ordered agents as <code>TreeTopologyGenerator</code> does: the
+	 * first agent is the root and the tree is built level by level, every vertex
+	 * of a level taking the next agents of the order as its children, up to its
+	 * capacity. With <code>LIST</code> balance, only the last vertex of a level
+	 * takes children.
+	 *
+	 * @param agents		agent (peer index) at each position of the order
+	 * @param capacities	maximum number of children of the vertex at each position
+	 * @param balance		<code>WEIGHT_BALANCED</code> or <code>LIST</code>
+	 * @return the tree layout, whose vertices are the positions of the order
+	 */
+	public static TreeLayout connect(int[] agents, int[] capacities, BalanceType balance) {
+		int numAgents = agents.length;
+		int[] parents = new int[numAgents];
+		int[] firstChildren = new int[numAgents];
+		int[] numChildren = new int[numAgents];
+		Arrays.fill(parents, -1);
+		Arrays.fill(firstChildren, numAgents);
+
+		int levelStart = 0;
+		int levelEnd = 0;							// inclusive, as the parents of the next level
+		int next = 1;								// position of the next child
+		while (next < numAgents && levelStart <= levelEnd) {
+			int nextLevelStart = next;
+			for (int vertex = levelStart; vertex <= levelEnd && next < numAgents; vertex++) {
+				firstChildren[vertex] = next;
+				numChildren[vertex] = Math.min(capacities[vertex], numAgents - next);
+				for (int i = 0; i < numChildren[vertex]; i++) {
+					parents[next++] = vertex;
+				}
+			}
+			if (next == nextLevelStart) {
+				break;
+			}
+			levelStart = balance == BalanceType.LIST ? next - 1 : nextLevelStart;
+			levelEnd = next - 1;
+		}
+		if (next < numAgents) {
+			throw new IllegalArgumentException("The capacities do not suffice to connect all " + numAgents + " agents.");
+		}
+		return new TreeLayout(agents, parents, firstChildren, numChildren);
+	}
+
+	/**
+	 * @return true if the subtrees rooted at the given vertices are disjoint and have the
+	 * same shape, i.e. their agents can be swapped
+	 */
+	public boolean haveSameShape(int u, int v) {
+		return this.correspondingVertices(u, v) != null;
+	}
+
+	/**
+	 * Exchanges the agents of the subtrees rooted at the given vertices: the agent at every
+	 * vertex of one subtree moves to the corresponding vertex of the other. Only the two
+	 * subtree roots change their parents, and only the two parents change their children;
+	 * all other agents keep their parent and children.
+	 *
+	 * @throws IllegalArgumentException if the subtrees overlap or differ in shape
+	 */
+	public void swapSubtrees(int u, int v) {
+		List<int[]> pairs = this.correspondingVertices(u, v);
+		if (pairs == null) {
+			throw new IllegalArgumentException("Subtrees at vertices " + u + " and " + v + " cannot be swapped.");
+		}
+		for (int[] pair : pairs) {
+			int agent = this.agents[pair[0]];
+			this.agents[pair[0]] = this.agents[pair[1]];
+			this.agents[pair[1]] = agent;
+			this.vertices[this.agents[pair[0]]] = pair[0];
+			this.vertices[this.agents[pair[1]]] = pair[1];
+		}
+	}
+
+	/**
+	 * @return the pairs of corresponding vertices of the two subtrees, or <code>null</code>
+	 * if they differ in shape. Subtrees of the same shape have the same size, so they
+	 * overlap only if their roots are the same.
+	 */
+	private List<int[]> correspondingVertices(int u, int v) {
+		if (u == v) {
+			return null;
+		}
+		List<int[]> pairs = new ArrayList<>();
+		Deque<int[]> queue = new ArrayDeque<>();
+		queue.add(new int[] {u, v});
+		while (!queue.isEmpty()) {
+			int[] pair = queue.poll();
+			if (this.numChildren[pair[0]] != this.numChildren[pair[1]]) {
+				return null;
+			}
+			pairs.add(pair);
+			for (int i = 0; i < this.numChildren[pair[0]]; i++) {
+				queue.add(new int[] {this.firstChildren[pair[0]] + i, this.firstChildren[pair[1]] + i});
+			}
+		}
+		return pairs;
+	}
+
+	public int getNumVertices() {
+		return this.agents.length;
+	}
+
+	public int getRoot() {
+		return 0;
+	}
+
+	/**
+	 * @return the index of the agent placed at the given vertex
+	 */
+	public int getAgent(int vertex) {
+		return this.agents[vertex];
+	}
+
+	/**
+	 * @return the vertex at which the given agent is placed
+	 */
+	public int getVertex(int agent) {
+		return this.vertices[agent];
+	}
+
+	/**
+	 * @return the parent vertex, or -1 for the root
+	 */
+	public int getParent(int vertex) {
+		return this.parents[vertex];
+	}
+
+	/**
+	 * @return the vertex of the first child; the children of a vertex are consecutive
+	 */
+	public int getFirstChild(int vertex) {
+		return this.firstChildren[vertex];
+	}
+
+	public int getNumChildren(int vertex) {
+		return this.numChildren[vertex];
+	}
+
+	public boolean isLeaf(int vertex) {
+		return this.numChildren[vertex] == 0;
+	}
+
+	/**
+	 * @return the number of levels, the root being level 0
+	 */
+	public int getNumLevels() {
+		return this.levelStarts.length - 1;
+	}
+
+	/**
+	 * @return the first vertex of the given level
+	 */
+	public int getLevelStart(int level) {
+		return this.levelStarts[level];
+	}
+
+	/**
+	 * @return the vertex after the last vertex of the given level
+	 */
+	public int getLevelEnd(int level) {
+		return this.levelStarts[level + 1];
+	}
+
+}
@@ -0,0 +1,68 @@
+package treestructure;
+
+import java.util.Map;
+
+import dsutil.protopeer.FingerDescriptor;
+import protopeer.network.Message;
+import protopeer.network.NetworkAddress;
+import tree.centralized.TreeViewReply;
+
+/**
+ * The views of all peers of a reorganized tree in a single message. The server sends
+ * it to the root of the previous tree, and every peer forwards it to its children in
+ * the previous tree before it takes its own view, so the views reach all peers in as
+ * many hops as the previous tree is deep. The message is not modified on the way, all
+ * peers share the same instance.
+ */
+public class TreeViewBatch extends Message {
+
+	private final FingerDescriptor[]			slots;			// peers in the order of their first requests
+	private final Map<NetworkAddress, Integer>	slotIndex;		// slot of each peer
+	private final TreeLayout					views;			// the reorganized tree, agents are slots
+	private final TreeLayout					route;			// the previous tree, agents are slots
+
+	TreeViewBatch(FingerDescriptor[] slots, Map<NetworkAddress, Integer> slotIndex, TreeLayout views, TreeLayout route) {
+		this.slots = slots;
+		this.slotIndex = slotIndex;
+		this.views = views;
+		this.route = route;
+	}
+
+	/**
+	 * @return true if the given peer is part of the tree
+	 */
+	boolean contains(NetworkAddress peer) {
+		return this.slotIndex.containsKey(peer);
+	}
+
+	/**
+	 * @return the view of the given peer in the reorganized tree
+	 */
+	TreeViewReply getView(NetworkAddress peer) {
+		int slot = this.slotIndex.get(peer);
+		return ModifiableTreeServer.createReplyMessage(this.views, this.slots, this.views.getVertex(slot));
+	}
+
+	/**
+	 * @return the peer to which the server sends the batch, i.e. the root of the previous tree
+	 */
+	NetworkAddress getFirstHop() {
+		return this.slots[this.route.getAgent(this.route.getRoot())].getNetworkAddress();
+	}
+
+	/**
+	 * @return the number of children of the given peer in the previous tree
+	 */
+	int getNumNextHops(NetworkAddress peer) {
+		return this.route.getNumChildren(this.route.getVertex(this.slotIndex.get(peer)));
+	}
+
+	/**
+	 * @return child i of the given peer in the previous tree, to which the batch is forwarded
+	 */
+	NetworkAddress getNextHop(NetworkAddress peer, int i) {
+		int vertex = this.route.getVertex(this.slotIndex.get(peer));
+		return this.slots[this.route.getAgent(this.route.getFirstChild(vertex) + i)].getNetworkAddress();
+	}
+
+}
@@ -0,0 +1,12 @@
+package treestructure;
+
+import protopeer.network.Message;
+
+/**
+ * Sent once by the root to the <code>ModifiableTreeServer</code> when the tree is
+ * reorganized with batched tree views, see {@link ModifiableTreeServer#useBatchedTreeViews()},
+ * instead of a <code>TreeViewRequest</code> of every peer.
+ */
+public class TreeViewBatchRequest extends Message {
+
+}
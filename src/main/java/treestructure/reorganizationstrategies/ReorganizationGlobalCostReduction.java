@@ -30,6 +30,13 @@ public class ReorganizationGlobalCostReduction<V extends DataType<V>> extends Re
 		this.globalCostFunc = agent.getGlobalCostFunction();
 	}
 	
+	@Override
+	public void resetCounter() {
+		super.resetCounter();
+		// global cost of the previous simulation must not trigger a reorganization
+		ReorganizationGlobalCostReduction.previousGlobalCost = 0;
+	}
+	
 	@Override
 	public void iterationAtRootEndedCallback() {
 		DataType globalResponse = this.agent.getGlobalResponse();
@@ -0,0 +1,456 @@
+package data;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels of the Vector API, which process as many values at once as the
+ * preferred species of the hardware holds. The remaining values are processed
+ * by scalar loops. Reductions accumulate one partial result per lane, which are
+ * added at the end. Floats are loaded at half the width and widened, so that
+ * they fill the same number of lanes.
+ *
+ * Only compiled for Java 17, into <code>META-INF/versions/17</code> of the
+ * multi-release JAR, and loaded by {@link VectorKernels#simd()}.
+ */
+class SimdKernels implements VectorKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Float> FLOAT_SPECIES = VectorSpecies.of(float.class,
+			VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+
+	@Override
+	public double sum(double[] a) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES, a, i));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			sum += a[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public double sum(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			sum += a[i] + b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public double dot(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = DoubleVector.fromArray(SPECIES, a, i).fma(DoubleVector.fromArray(SPECIES, b, i), acc);
+		}
+		double dot = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotSum(double[] c, double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector sum = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i));
+			acc = DoubleVector.fromArray(SPECIES, c, i).fma(sum, acc);
+		}
+		double dot = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += c[i] * (a[i] + b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotDiff(double[] c, double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector diff = DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i));
+			acc = DoubleVector.fromArray(SPECIES, c, i).fma(diff, acc);
+		}
+		double dot = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += c[i] * (a[i] - b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double normSqr(double[] a) {
+		return this.dot(a, a);
+	}
+
+	@Override
+	public double normSqr(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector state = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i));
+			acc = state.fma(state, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double state = a[i] + b[i];
+			sum += state * state;
+		}
+		return sum;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, double average) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector deviation = DoubleVector.fromArray(SPECIES, a, i).sub(average);
+			acc = deviation.fma(deviation, acc);
+		}
+		double sumSquare = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double deviation = a[i] - average;
+			sumSquare += deviation * deviation;
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, double[] b, double average) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector deviation = DoubleVector.fromArray(SPECIES, a, i)
+					.add(DoubleVector.fromArray(SPECIES, b, i)).sub(average);
+			acc = deviation.fma(deviation, acc);
+		}
+		double sumSquare = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double deviation = (a[i] + b[i]) - average;
+			sumSquare += deviation * deviation;
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public void add(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+		}
+		for (; i < a.length; i++) {
+			a[i] += b[i];
+		}
+	}
+
+	@Override
+	public double addAndSum(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector sum = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i));
+			sum.intoArray(a, i);
+			acc = acc.add(sum);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			a[i] += b[i];
+			sum += a[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public void subtract(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+		}
+		for (; i < a.length; i++) {
+			a[i] -= b[i];
+		}
+	}
+
+	@Override
+	public void multiply(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+		}
+		for (; i < a.length; i++) {
+			a[i] *= b[i];
+		}
+	}
+
+	@Override
+	public double max(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.MIN_VALUE);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector val = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i));
+			acc = acc.blend(val, val.compare(VectorOperators.GT, acc));
+		}
+		double maximum = Double.MIN_VALUE;
+		for (int lane = 0; lane < SPECIES.length(); lane++) {
+			if (acc.lane(lane) > maximum) {
+				maximum = acc.lane(lane);
+			}
+		}
+		for (; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val > maximum) {
+				maximum = val;
+			}
+		}
+		return maximum;
+	}
+
+	@Override
+	public double min(double[] a, double[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector val = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i));
+			acc = acc.blend(val, val.compare(VectorOperators.LT, acc));
+		}
+		double minimum = Double.MAX_VALUE;
+		for (int lane = 0; lane < SPECIES.length(); lane++) {
+			if (acc.lane(lane) < minimum) {
+				minimum = acc.lane(lane);
+			}
+		}
+		for (; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val < minimum) {
+				minimum = val;
+			}
+		}
+		return minimum;
+	}
+
+	@Override
+	public double residualSumOfSquares(double[] a, double[] b, double shift, double scale, double[] c) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector residual = DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).sub(shift).div(scale)
+					.sub(DoubleVector.fromArray(SPECIES, c, i));
+			acc = residual.fma(residual, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double residual = ((a[i] + b[i]) - shift) / scale - c[i];
+			sum += residual * residual;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the floats of <code>b</code> from offset <code>i</code> on, widened
+	 */
+	private static DoubleVector widen(float[] b, int i) {
+		return (DoubleVector) jdk.incubator.vector.FloatVector.fromArray(FLOAT_SPECIES, b, i)
+				.convertShape(VectorOperators.F2D, SPECIES, 0);
+	}
+
+	@Override
+	public double sum(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i)));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			sum += a[i] + b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public double dot(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = DoubleVector.fromArray(SPECIES, a, i).fma(widen(b, i), acc);
+		}
+		double dot = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	@Override
+	public double dotSum(double[] c, double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector sum = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i));
+			acc = DoubleVector.fromArray(SPECIES, c, i).fma(sum, acc);
+		}
+		double dot = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += c[i] * (a[i] + b[i]);
+		}
+		return dot;
+	}
+
+	@Override
+	public double normSqr(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector state = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i));
+			acc = state.fma(state, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double state = a[i] + b[i];
+			sum += state * state;
+		}
+		return sum;
+	}
+
+	@Override
+	public double sumSquaredDeviations(double[] a, float[] b, double average) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector deviation = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i)).sub(average);
+			acc = deviation.fma(deviation, acc);
+		}
+		double sumSquare = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double deviation = (a[i] + b[i]) - average;
+			sumSquare += deviation * deviation;
+		}
+		return sumSquare;
+	}
+
+	@Override
+	public void add(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i)).intoArray(a, i);
+		}
+		for (; i < a.length; i++) {
+			a[i] += b[i];
+		}
+	}
+
+	@Override
+	public void subtract(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).sub(widen(b, i)).intoArray(a, i);
+		}
+		for (; i < a.length; i++) {
+			a[i] -= b[i];
+		}
+	}
+
+	@Override
+	public double max(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.MIN_VALUE);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector val = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i));
+			acc = acc.blend(val, val.compare(VectorOperators.GT, acc));
+		}
+		double maximum = Double.MIN_VALUE;
+		for (int lane = 0; lane < SPECIES.length(); lane++) {
+			if (acc.lane(lane) > maximum) {
+				maximum = acc.lane(lane);
+			}
+		}
+		for (; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val > maximum) {
+				maximum = val;
+			}
+		}
+		return maximum;
+	}
+
+	@Override
+	public double min(double[] a, float[] b) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector val = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i));
+			acc = acc.blend(val, val.compare(VectorOperators.LT, acc));
+		}
+		double minimum = Double.MAX_VALUE;
+		for (int lane = 0; lane < SPECIES.length(); lane++) {
+			if (acc.lane(lane) < minimum) {
+				minimum = acc.lane(lane);
+			}
+		}
+		for (; i < a.length; i++) {
+			double val = a[i] + b[i];
+			if (val < minimum) {
+				minimum = val;
+			}
+		}
+		return minimum;
+	}
+
+	@Override
+	public double residualSumOfSquares(double[] a, float[] b, double shift, double scale, double[] c) {
+		int bound = SPECIES.loopBound(a.length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector residual = DoubleVector.fromArray(SPECIES, a, i).add(widen(b, i)).sub(shift).div(scale)
+					.sub(DoubleVector.fromArray(SPECIES, c, i));
+			acc = residual.fma(residual, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			double residual = ((a[i] + b[i]) - shift) / scale - c[i];
+			sum += residual * residual;
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,128 @@
+package agent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import data.FloatVector;
+import data.Vector;
+import func.CostFunction;
+import func.StdDevCostFunction;
+import func.VarCostFunction;
+
+/**
+ * The Gray-code search of {@link Optimization#argminCombinations} selects the same
+ * combination of child responses as the evaluation of all materialized combinations.
+ */
+public class CombinationSearchTest {
+
+    private static final int NUM_TRIALS = 300;
+    private static final int MAX_CHILDREN = 6;
+    private static final int NUM_AGENTS = 1000;
+
+    @Test
+    public void incrementalCostFunction() {
+        this.assertSameSelections(new VarCostFunction(), false, false);
+    }
+
+    @Test
+    public void costFunction() {
+        this.assertSameSelections(new StdDevCostFunction(), false, false);
+    }
+
+    @Test
+    public void tiedCombinations() {
+        this.assertSameSelections(new VarCostFunction(), false, true);
+    }
+
+    @Test
+    public void floatResponses() {
+        this.assertSameSelections(new VarCostFunction(), true, false);
+    }
+
+    private void assertSameSelections(CostFunction<Vector> costFunction, boolean floatResponses, boolean ties) {
+        Random random = new Random(11);
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int numChildren = 1 + random.nextInt(MAX_CHILDREN);
+            int planDim = 1 + random.nextInt(50);
+            double alpha = random.nextBoolean() ? 0.0 : 0.3 * random.nextDouble();
+            double beta = random.nextBoolean() ? 0.0 : 0.3 * random.nextDouble();
+
+            List<Vector> prevResponses = new ArrayList<>();
+            List<Vector> responses = new ArrayList<>();
+            double[] prevDiscomfortSums = new double[numChildren];
+            double[] discomfortSums = new double[numChildren];
+            double[] prevDiscomfortSumSqrs = new double[numChildren];
+            double[] discomfortSumSqrs = new double[numChildren];
+            for (int c = 0; c < numChildren; c++) {
+                Vector prevResponse = this.randomVector(random, planDim, floatResponses, ties);
+                // a child may propose the response it had, then both choices tie
+                Vector response = ties && random.nextBoolean() ? prevResponse.cloneThis()
+                        : this.randomVector(random, planDim, floatResponses, ties);
+                prevResponses.add(prevResponse);
+                responses.add(response);
+                prevDiscomfortSums[c] = ties ? random.nextInt(3) : random.nextDouble();
+                discomfortSums[c] = ties ? random.nextInt(3) : random.nextDouble();
+                prevDiscomfortSumSqrs[c] = prevDiscomfortSums[c] * prevDiscomfortSums[c];
+                discomfortSumSqrs[c] = discomfortSums[c] * discomfortSums[c];
+            }
+            Vector responseConst = random.nextInt(4) == 0 ? null
+                    : this.randomVector(random, planDim, floatResponses, ties);
+            double discomfortSumConst = 10 * random.nextDouble();
+            double discomfortSumSqrConst = 10 * random.nextDouble();
+
+            long seed = random.nextLong();
+            int exhaustive = this.exhaustiveSearch(new Optimization(new Random(seed)), costFunction, prevResponses,
+                    responses, prevDiscomfortSums, discomfortSums, prevDiscomfortSumSqrs, discomfortSumSqrs,
+                    responseConst, discomfortSumConst, discomfortSumSqrConst, alpha, beta);
+            int grayCode = new Optimization(new Random(seed)).argminCombinations(costFunction, prevResponses,
+                    responses, prevDiscomfortSums, discomfortSums, prevDiscomfortSumSqrs, discomfortSumSqrs,
+                    responseConst, discomfortSumConst, discomfortSumSqrConst, alpha, beta, NUM_AGENTS);
+            assertEquals("trial " + trial, exhaustive, grayCode);
+        }
+    }
+
+    /**
+     * Materializes all combinations, as the agents did before the Gray-code search.
+     */
+    private int exhaustiveSearch(Optimization optimization, CostFunction<Vector> costFunction,
+            List<Vector> prevResponses, List<Vector> responses, double[] prevDiscomfortSums,
+            double[] discomfortSums, double[] prevDiscomfortSumSqrs, double[] discomfortSumSqrs,
+            Vector responseConst, double discomfortSumConst, double discomfortSumSqrConst, double alpha,
+            double beta) {
+        List<List<Vector>> choicesPerChild = new ArrayList<>();
+        List<List<Double>> discomfortSumsPerChild = new ArrayList<>();
+        List<List<Double>> discomfortSumSqrsPerChild = new ArrayList<>();
+        for (int c = 0; c < responses.size(); c++) {
+            choicesPerChild.add(Arrays.asList(prevResponses.get(c), responses.get(c)));
+            discomfortSumsPerChild.add(Arrays.asList(prevDiscomfortSums[c], discomfortSums[c]));
+            discomfortSumSqrsPerChild.add(Arrays.asList(prevDiscomfortSumSqrs[c], discomfortSumSqrs[c]));
+        }
+
+        int selected = optimization.argmin(costFunction, optimization.calcAllCombinations(choicesPerChild),
+                optimization.calculateAllCombinationsForDiscomfortScores(discomfortSumsPerChild),
+                optimization.calculateAllCombinationsForDiscomfortScores(discomfortSumSqrsPerChild),
+                responseConst, discomfortSumConst, discomfortSumSqrConst, alpha, beta, NUM_AGENTS);
+
+        // the index of a materialized combination is its selection bitmask
+        List<Integer> selections = optimization.combinationToSelections(selected, choicesPerChild);
+        for (int c = 0; c < responses.size(); c++) {
+            assertEquals(selections.get(c) == 1, Optimization.isAccepted(selected, c));
+        }
+        return selected;
+    }
+
+    private Vector randomVector(Random random, int planDim, boolean floatVector, boolean integers) {
+        double[] values = new double[planDim];
+        for (int i = 0; i < planDim; i++) {
+            values[i] = integers ? random.nextInt(3) : random.nextGaussian();
+        }
+        return floatVector ? new FloatVector(values) : new Vector(values);
+    }
+
+}
@@ -0,0 +1,141 @@
+package agent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import config.Configuration;
+import data.FloatVector;
+import data.Plan;
+import data.Vector;
+import func.IndexCostFunction;
+import func.PlanCostFunction;
+import func.VarCostFunction;
+
+/**
+ * Plan selection with <code>prunePlans</code> selects the same plans as the
+ * evaluation of all plans, on candidates whose variances tie or differ in the last
+ * bits only.
+ */
+public class PrunedOptimizationTest {
+
+    private static final int NUM_TRIALS = 200;
+    private static final int NUM_AGENTS = 1000;
+
+    @After
+    public void tearDown() {
+        Configuration.prunePlans = false;
+    }
+
+    @Test
+    public void permutedPlans() {
+        this.assertSameSelections(false, 0.0, 0.0, (random, planDim, numPlans) -> {
+            double[] values = this.randomValues(random, planDim, 1.0);
+            List<double[]> plans = new ArrayList<>();
+            for (int p = 0; p < numPlans; p++) {
+                plans.add(this.permutation(random, values));
+            }
+            return plans;
+        });
+    }
+
+    @Test
+    public void perturbedPlans() {
+        this.assertSameSelections(false, 0.0, 0.0, this::perturbedPlans);
+    }
+
+    @Test
+    public void perturbedPlansMultiObjective() {
+        this.assertSameSelections(false, 0.2, 0.3, this::perturbedPlans);
+    }
+
+    @Test
+    public void perturbedFloatPlans() {
+        this.assertSameSelections(true, 0.0, 0.0, this::perturbedPlans);
+    }
+
+    private List<double[]> perturbedPlans(Random random, int planDim, int numPlans) {
+        double[] values = this.randomValues(random, planDim, 1.0);
+        List<double[]> plans = new ArrayList<>();
+        for (int p = 0; p < numPlans; p++) {
+            double[] plan = values.clone();
+            int i = random.nextInt(planDim);
+            plan[i] = random.nextBoolean() ? Math.nextUp(plan[i]) : Math.nextDown(plan[i]);
+            plans.add(plan);
+        }
+        return plans;
+    }
+
+    private void assertSameSelections(boolean floatPlans, double alpha, double beta, PlanGenerator generator) {
+        Random random = new Random(7);
+        PlanCostFunction<Vector> localCostFunction = new IndexCostFunction();
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int planDim = 1 + random.nextInt(200);
+            int numPlans = 2 + random.nextInt(30);
+
+            // a large offset and a base that is flat up to a few ulps, so that the
+            // variance of every candidate cancels most of its digits
+            double offset = Math.scalb(1.0, random.nextInt(40));
+            double[] baseValues = new double[planDim];
+            for (int i = 0; i < planDim; i++) {
+                baseValues[i] = offset + (random.nextBoolean() ? 0.0 : Math.ulp(offset) * random.nextInt(4));
+            }
+            Vector base = new Vector(baseValues);
+
+            List<Plan<Vector>> plans = new ArrayList<>();
+            List<double[]> values = generator.generate(random, planDim, numPlans);
+            for (int p = 0; p < values.size(); p++) {
+                Vector value = floatPlans ? new FloatVector(values.get(p)) : new Vector(values.get(p));
+                Plan<Vector> plan = new Plan<>(value);
+                plan.setIndex(floatPlans ? 0 : p % 2);
+                plans.add(plan);
+            }
+
+            long seed = random.nextLong();
+            int exhaustive = this.select(false, plans, base, alpha, beta, seed, localCostFunction);
+            int pruned = this.select(true, plans, base, alpha, beta, seed, localCostFunction);
+            assertEquals("trial " + trial, exhaustive, pruned);
+        }
+    }
+
+    private int select(boolean prunePlans, List<Plan<Vector>> plans, Vector base, double alpha, double beta,
+            long seed, PlanCostFunction<Vector> localCostFunction) {
+        Configuration.prunePlans = prunePlans;
+        VarCostFunction costFunction = new VarCostFunction();
+        MultiObjectiveIEPOSAgent<Vector> agent = new MultiObjectiveIEPOSAgent<>(1, plans, costFunction,
+                localCostFunction, null, 0);
+        agent.iteration = 1;
+        Optimization optimization = new Optimization(new Random(seed));
+        return optimization.argmin(costFunction, localCostFunction, plans, base, alpha, beta,
+                0.5 * NUM_AGENTS, 0.5 * NUM_AGENTS, NUM_AGENTS, agent);
+    }
+
+    private double[] randomValues(Random random, int planDim, double scale) {
+        double[] values = new double[planDim];
+        for (int i = 0; i < planDim; i++) {
+            values[i] = scale * random.nextGaussian();
+        }
+        return values;
+    }
+
+    private double[] permutation(Random random, double[] values) {
+        double[] permuted = values.clone();
+        for (int i = permuted.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double value = permuted[i];
+            permuted[i] = permuted[j];
+            permuted[j] = value;
+        }
+        return permuted;
+    }
+
+    private interface PlanGenerator {
+        List<double[]> generate(Random random, int planDim, int numPlans);
+    }
+
+}
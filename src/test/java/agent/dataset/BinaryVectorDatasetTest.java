@@ -0,0 +1,133 @@
+package agent.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import config.Configuration;
+import data.Plan;
+import data.Vector;
+
+/**
+ * A dataset converted to <code>plans.bin</code> yields the same plans as the
+ * text files it was converted from.
+ */
+public class BinaryVectorDatasetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final int numPlans = Configuration.numPlans;
+    private final String planPrecision = Configuration.planPrecision;
+
+    @After
+    public void tearDown() {
+        Configuration.numPlans = this.numPlans;
+        Configuration.planPrecision = this.planPrecision;
+    }
+
+    @Test
+    public void randomDataset() throws IOException {
+        Random random = new Random(5);
+        File datasetDir = this.folder.newFolder();
+        int numAgents = 7;
+        int planDim = 13;
+        for (int agentId = 0; agentId < numAgents; agentId++) {
+            // agents with fewer plans than the others are padded in the binary file
+            int numAgentPlans = agentId == 3 ? 4 : 9;
+            List<String> lines = new ArrayList<>();
+            for (int p = 0; p < numAgentPlans; p++) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(random.nextDouble()).append(':');
+                for (int i = 0; i < planDim; i++) {
+                    sb.append(i == 0 ? "" : ",").append(this.randomValue(random));
+                }
+                lines.add(sb.toString());
+            }
+            Files.write(datasetDir.toPath().resolve("agent_" + agentId + ".plans"), lines, StandardCharsets.UTF_8);
+        }
+
+        BinaryVectorDataset.convert(datasetDir.getPath());
+        BinaryVectorDataset binaryDataset = new BinaryVectorDataset(datasetDir.getPath());
+        assertEquals(numAgents, binaryDataset.getNumAgents());
+        assertEquals(9, binaryDataset.getNumPlans());
+        assertEquals(4, binaryDataset.getNumPlans(3));
+        assertEquals(planDim, binaryDataset.getPlanDim());
+
+        for (int maxPlans : new int[] { 4, 9 }) {
+            Configuration.numPlans = maxPlans;
+            this.assertSamePlans(datasetDir.getPath(), numAgents);
+        }
+    }
+
+    @Test
+    public void bundledDataset() throws IOException {
+        Path datasetDir = this.folder.newFolder().toPath();
+        File[] files = Paths.get("datasets", "gaussian").toFile().listFiles();
+        assertTrue(files != null && files.length > 0);
+        for (File file : files) {
+            Files.copy(file.toPath(), datasetDir.resolve(file.getName()));
+        }
+
+        BinaryVectorDataset.convert(datasetDir.toString());
+        Configuration.numPlans = new BinaryVectorDataset(datasetDir.toString()).getNumPlans();
+        int numAgents = new FileVectorDataset(datasetDir.toString()).getNumAgents();
+        this.assertSamePlans(datasetDir.toString(), numAgents);
+
+        Configuration.planPrecision = "float";
+        this.assertSamePlans(datasetDir.toString(), numAgents);
+    }
+
+    private void assertSamePlans(String datasetDir, int numAgents) {
+        FileVectorDataset textDataset = new FileVectorDataset(datasetDir);
+        BinaryVectorDataset binaryDataset = new BinaryVectorDataset(datasetDir);
+        for (int agentId = 0; agentId < numAgents; agentId++) {
+            List<Plan<Vector>> expected = textDataset.getPlans(agentId);
+            List<Plan<Vector>> actual = binaryDataset.getPlans(agentId);
+            assertEquals("agent " + agentId, expected.size(), actual.size());
+            for (int p = 0; p < expected.size(); p++) {
+                String message = "agent " + agentId + ", plan " + p;
+                Plan<Vector> expectedPlan = expected.get(p);
+                Plan<Vector> actualPlan = actual.get(p);
+                assertEquals(message, expectedPlan.getIndex(), actualPlan.getIndex());
+                assertEquals(message, expectedPlan.getScore(), actualPlan.getScore(), 0.0);
+
+                Vector expectedValue = expectedPlan.getValue();
+                Vector actualValue = actualPlan.getValue();
+                assertEquals(message, expectedValue.getClass(), actualValue.getClass());
+                assertEquals(message, expectedValue.getNumDimensions(), actualValue.getNumDimensions());
+                for (int i = 0; i < expectedValue.getNumDimensions(); i++) {
+                    assertEquals(message, expectedValue.getValue(i), actualValue.getValue(i), 0.0);
+                }
+            }
+        }
+    }
+
+    private double randomValue(Random random) {
+        switch (random.nextInt(4)) {
+        case 0:
+            return 0.0;
+        case 1:
+            return random.nextInt(1000);
+        case 2:
+            return Math.scalb(random.nextGaussian(), random.nextInt(200) - 100);
+        default:
+            return random.nextGaussian();
+        }
+    }
+
+}
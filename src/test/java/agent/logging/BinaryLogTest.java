@@ -0,0 +1,118 @@
+package agent.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Records written by {@link BinaryLogSink} are read back unchanged by
+ * {@link BinaryLogReader}.
+ */
+public class BinaryLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void float64RoundTrip() throws IOException {
+		Random random = new Random(13);
+		double[] special = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+				Double.MIN_VALUE, Double.MAX_VALUE };
+		// enough records to flush the buffer of the sink several times
+		int numValues = 37;
+		List<double[]> records = new ArrayList<>();
+		for (int r = 0; r < 5000; r++) {
+			double[] values = new double[numValues];
+			for (int j = 0; j < numValues; j++) {
+				values[j] = random.nextInt(10) == 0 ? special[random.nextInt(special.length)]
+						: Math.scalb(random.nextGaussian(), random.nextInt(100) - 50);
+			}
+			records.add(values);
+		}
+
+		File file = this.folder.newFile();
+		BinaryLogSink sink = BinaryLogSink.float64(file.getPath(), numValues);
+		this.write(sink, records);
+		this.assertRecords(new BinaryLogReader(file.getPath()), BinaryLogSink.FLOAT64, records);
+	}
+
+	@Test
+	public void packedRoundTrip() throws IOException {
+		Random random = new Random(17);
+		for (int maxValue : new int[] { 0, 1, 2, 6, 7, 11, 62, 63, 1000, Integer.MAX_VALUE }) {
+			for (int numValues : new int[] { 1, 5, 63, 64, 65, 300 }) {
+				List<double[]> records = new ArrayList<>();
+				for (int r = 0; r < 50; r++) {
+					double[] values = new double[numValues];
+					for (int j = 0; j < numValues; j++) {
+						// the bounds -1 and maxValue are the most likely to be truncated
+						switch (random.nextInt(4)) {
+						case 0:
+							values[j] = -1;
+							break;
+						case 1:
+							values[j] = maxValue;
+							break;
+						default:
+							values[j] = random.nextInt(maxValue + 2 > 0 ? maxValue + 2 : Integer.MAX_VALUE) - 1;
+						}
+					}
+					records.add(values);
+				}
+
+				File file = this.folder.newFile();
+				BinaryLogSink sink = BinaryLogSink.packed(file.getPath(), numValues, maxValue);
+				this.write(sink, records);
+				this.assertRecords(new BinaryLogReader(file.getPath()), BinaryLogSink.PACKED, records);
+			}
+		}
+	}
+
+	@Test
+	public void packedRejectsValuesOutOfRange() throws IOException {
+		// values from -1 to 6 take 3 bits
+		for (double value : new double[] { -2, 7, 0.5 }) {
+			BinaryLogSink sink = BinaryLogSink.packed(this.folder.newFile().getPath(), 3, 6);
+			try {
+				sink.write(0, 0, new double[] { 0, value, 6 });
+				fail("packed " + value);
+			} catch (IllegalArgumentException e) {
+				// expected
+			} finally {
+				sink.close();
+			}
+		}
+	}
+
+	private void write(BinaryLogSink sink, List<double[]> records) {
+		for (int r = 0; r < records.size(); r++) {
+			sink.write(r % 3, r, records.get(r));
+		}
+		sink.close();
+	}
+
+	private void assertRecords(BinaryLogReader reader, int encoding, List<double[]> records) {
+		assertEquals(encoding, reader.getEncoding());
+		assertEquals(records.size(), reader.getNumRecords());
+		assertEquals(records.get(0).length, reader.getNumValues());
+		for (int r = 0; r < records.size(); r++) {
+			assertEquals(r % 3, reader.getRun(r));
+			assertEquals(r, reader.getIteration(r));
+			double[] values = reader.getValues(r);
+			for (int j = 0; j < values.length; j++) {
+				assertEquals("record " + r + ", value " + j, Double.doubleToLongBits(records.get(r)[j]),
+						Double.doubleToLongBits(values[j]));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package experiment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import agent.logging.BinaryLogReader;
+
+/**
+ * Runs the packaged JAR with binary logs and checks that the exported logs are
+ * the CSV files of a run with text logs.
+ */
+public class BinaryLogIT {
+
+	private static final Map<String, String> BINARY_LOGS = new TreeMap<>();
+
+	static {
+		BINARY_LOGS.put("selected-plans.bin", "selected-plans.csv");
+		BINARY_LOGS.put("global-response.bin", "global-response.csv");
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void exportedLogsEqualTextLogs() throws Exception {
+		Path text = EposJar.run(this.folder, "numSimulations=2");
+		this.assertExportedLogs(text, EposJar.run(this.folder, "numSimulations=2", "binaryLogs=true"));
+	}
+
+	@Test
+	public void exportedStreamedLogsEqualTextLogs() throws Exception {
+		Path text = EposJar.run(this.folder, "numSimulations=2");
+		this.assertExportedLogs(text,
+				EposJar.run(this.folder, "numSimulations=2", "binaryLogs=true", "streamLogs=true"));
+	}
+
+	private void assertExportedLogs(Path text, Path binary) throws Exception {
+		// the binary logs replace their CSV files, the other files are unchanged
+		List<Path> expectedFiles = new ArrayList<>();
+		for (Path file : EposJar.outputFiles(text)) {
+			if (!BINARY_LOGS.containsValue(file.toString())) {
+				expectedFiles.add(file);
+			}
+		}
+		for (String log : BINARY_LOGS.keySet()) {
+			expectedFiles.add(text.getFileSystem().getPath(log));
+		}
+		expectedFiles.sort(null);
+		assertEquals(expectedFiles, EposJar.outputFiles(binary));
+
+		for (Path file : EposJar.outputFiles(binary)) {
+			String csv = BINARY_LOGS.get(file.toString());
+			if (csv == null) {
+				assertArrayEquals(file.toString(), Files.readAllBytes(text.resolve(file)),
+						Files.readAllBytes(binary.resolve(file)));
+			} else {
+				Path exported = this.folder.newFile().toPath();
+				new BinaryLogReader(binary.resolve(file).toString()).exportCsv(exported.toString());
+				assertArrayEquals(csv, Files.readAllBytes(text.resolve(csv)), Files.readAllBytes(exported));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package experiment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR with several candidate trees per reorganization, which
+ * are evaluated on one thread and on several threads.
+ */
+public class CandidateSearchIT {
+
+	private static final String[] PROPERTIES = { "numSimulations=2", "numIterations=20", "strategy=periodically",
+			"periodically.reorganizationPeriod=3", "strategy.candidateStructures=3" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sameOutputWithConcurrentCandidates() throws Exception {
+		EposJar.assertSameOutput(this.run(1), this.run(4));
+	}
+
+	/**
+	 * The agents continue from the plans selected in the best candidate tree, whose
+	 * replicas started from the plans selected before, so the global cost after a
+	 * reorganization is not higher than before, up to the rounding of the sums in
+	 * another tree.
+	 */
+	@Test
+	public void costNeverRisesAtReorganization() throws Exception {
+		Path output = this.run(2);
+		List<String> costs = Files.readAllLines(output.resolve("global-cost.csv"), StandardCharsets.UTF_8);
+		List<String> reorganizations = Files.readAllLines(output.resolve("num-reorganizations.csv"),
+				StandardCharsets.UTF_8);
+		assertEquals(21, costs.size());
+		assertEquals(costs.size(), reorganizations.size());
+
+		int numReorganizations = 0;
+		for (int line = 2; line < costs.size(); line++) {
+			String[] previousCosts = costs.get(line - 1).split(",");
+			String[] currentCosts = costs.get(line).split(",");
+			String[] previousCounts = reorganizations.get(line - 1).split(",");
+			String[] currentCounts = reorganizations.get(line).split(",");
+			// the columns after the mean and the standard deviation are the runs
+			for (int run = 3; run < currentCosts.length; run++) {
+				if (Double.parseDouble(currentCounts[run - 2]) == Double.parseDouble(previousCounts[run - 2])) {
+					continue;
+				}
+				numReorganizations++;
+				double previous = Double.parseDouble(previousCosts[run]);
+				double current = Double.parseDouble(currentCosts[run]);
+				assertTrue("iteration " + currentCosts[0] + ", " + current + " > " + previous,
+						current <= previous + 1e-12 * Math.abs(previous));
+			}
+		}
+		assertTrue(numReorganizations > 0);
+	}
+
+	private Path run(int numThreads) throws Exception {
+		String[] properties = new String[PROPERTIES.length + 1];
+		System.arraycopy(PROPERTIES, 0, properties, 0, PROPERTIES.length);
+		properties[PROPERTIES.length] = "strategy.candidateThreads=" + numThreads;
+		return EposJar.run(this.folder, properties);
+	}
+
+}
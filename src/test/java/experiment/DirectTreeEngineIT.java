@@ -0,0 +1,34 @@
+package experiment;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR with the ProtoPeer and the direct engine and compares
+ * the output files byte for byte.
+ */
+public class DirectTreeEngineIT {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sameOutputAsProtoPeer() throws Exception {
+		for (String costFunction : new String[] { "VAR", "RSS", "XCORR" }) {
+			EposJar.assertSameOutput(
+					EposJar.run(this.folder, "numSimulations=2", "globalCostFunction=" + costFunction,
+							"engine=protopeer"),
+					EposJar.run(this.folder, "numSimulations=2", "globalCostFunction=" + costFunction,
+							"engine=direct"));
+		}
+	}
+
+	@Test
+	public void sameOutputWithConcurrentLevels() throws Exception {
+		EposJar.assertSameOutput(
+				EposJar.run(this.folder, "numChildren=3", "engine=direct", "numEngineThreads=1"),
+				EposJar.run(this.folder, "numChildren=3", "engine=direct", "numEngineThreads=4"));
+	}
+
+}
@@ -0,0 +1,91 @@
+package experiment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR with a tree that stops after the first iterations and
+ * checks that the outputs are padded with the final state to all iterations.
+ */
+public class EarlyTerminationIT {
+
+	private static final String[] TERMINATION = { "terminationTolerance=1e12", "terminationPatience=1" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void outputsArePadded() throws Exception {
+		Path full = EposJar.run(this.folder, "numSimulations=2");
+		Path stopped = EposJar.run(this.folder, "numSimulations=2", TERMINATION[0], TERMINATION[1]);
+
+		// every file keeps one row per iteration
+		List<Path> files = EposJar.outputFiles(full);
+		assertEquals(files, EposJar.outputFiles(stopped));
+		for (Path file : files) {
+			assertEquals(file.toString(), this.readRows(full.resolve(file)).size(),
+					this.readRows(stopped.resolve(file)).size());
+		}
+
+		// the global cost is the same up to the stop and constant afterwards
+		List<String> fullCosts = this.readRows(full.resolve("global-cost.csv"));
+		List<String> stoppedCosts = this.readRows(stopped.resolve("global-cost.csv"));
+		int lastIteration = stoppedCosts.size() - 1;
+		int stop = lastIteration;
+		while (stop > 0 && this.columns(stoppedCosts.get(stop), 1).equals(this.columns(stoppedCosts.get(stop - 1), 1))) {
+			stop--;
+		}
+		assertTrue("constant from iteration " + stop, stop < lastIteration);
+		assertEquals(fullCosts.subList(0, stop + 1), stoppedCosts.subList(0, stop + 1));
+
+		// the agents keep their selections after the stop
+		List<String> selections = this.readRows(stopped.resolve("selected-plans.csv"));
+		Map<String, List<String>> lastSelections = new HashMap<>();
+		for (String row : selections) {
+			if (Integer.parseInt(this.columns(row, 0).get(1)) == lastIteration) {
+				lastSelections.put(this.columns(row, 0).get(0), this.columns(row, 2));
+			}
+		}
+		assertEquals(2, lastSelections.size());
+		for (String row : selections) {
+			List<String> columns = this.columns(row, 0);
+			if (Integer.parseInt(columns.get(1)) >= stop) {
+				assertEquals(row, lastSelections.get(columns.get(0)), this.columns(row, 2));
+			}
+		}
+	}
+
+	@Test
+	public void sameOutputAsProtoPeer() throws Exception {
+		EposJar.assertSameOutput(
+				EposJar.run(this.folder, TERMINATION[0], TERMINATION[1], "engine=protopeer"),
+				EposJar.run(this.folder, TERMINATION[0], TERMINATION[1], "engine=direct"));
+	}
+
+	/**
+	 * @return the rows of a CSV file without its header
+	 */
+	private List<String> readRows(Path file) throws IOException {
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		return lines.subList(1, lines.size());
+	}
+
+	private List<String> columns(String row, int first) {
+		List<String> columns = Arrays.asList(row.split(","));
+		return columns.subList(first, columns.size());
+	}
+
+}
@@ -0,0 +1,106 @@
+package experiment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR of the integration tests on the gaussian dataset, with
+ * the configuration files of the project and a few agents and iterations.
+ */
+final class EposJar {
+
+	private static final String USED_CONF = "used_conf.txt";
+
+	private EposJar() {
+	}
+
+	/**
+	 * Runs the JAR in a new working directory. The given properties override
+	 * those of <code>conf/epos.properties</code>.
+	 *
+	 * @return the output directory of the run
+	 */
+	static Path run(TemporaryFolder folder, String... properties) throws IOException, InterruptedException {
+		Path workingDirectory = folder.newFolder().toPath();
+		EposJar.copy(Paths.get("conf"), workingDirectory.resolve("conf"));
+		EposJar.copy(Paths.get(System.getProperty("epos.datasets"), "gaussian"),
+				workingDirectory.resolve("datasets").resolve("gaussian"));
+
+		Path conf = workingDirectory.resolve("conf").resolve("epos.properties");
+		List<String> lines = new ArrayList<>(Files.readAllLines(conf, StandardCharsets.UTF_8));
+		lines.add("numIterations=10");
+		lines.add("numAgents=11");
+		lines.add("numPlans=10");
+		lines.add("logger.VisualizerLogger=false");
+		for (String property : properties) {
+			lines.add(property);
+		}
+		Files.write(conf, lines, StandardCharsets.UTF_8);
+
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		Process process = new ProcessBuilder(java, "-Djava.awt.headless=true", "-jar",
+				System.getProperty("epos.jar"), conf.toString())
+				.directory(workingDirectory.toFile())
+				.redirectErrorStream(true)
+				.redirectOutput(workingDirectory.resolve("epos.log").toFile())
+				.start();
+		assertEquals("exit code, see " + workingDirectory.resolve("epos.log"), 0, process.waitFor());
+
+		try (Stream<Path> outputs = Files.list(workingDirectory.resolve("output"))) {
+			List<Path> directories = outputs.collect(Collectors.toList());
+			assertEquals(1, directories.size());
+			return directories.get(0);
+		}
+	}
+
+	/**
+	 * Asserts that both runs wrote the same files with the same bytes, apart from
+	 * the copy of the configuration.
+	 */
+	static void assertSameOutput(Path expected, Path actual) throws IOException {
+		List<Path> files = EposJar.outputFiles(expected);
+		assertTrue(!files.isEmpty());
+		assertEquals(files, EposJar.outputFiles(actual));
+		for (Path file : files) {
+			assertArrayEquals(file.toString(), Files.readAllBytes(expected.resolve(file)),
+					Files.readAllBytes(actual.resolve(file)));
+		}
+	}
+
+	/**
+	 * @return the output files of a run relative to its output directory, sorted
+	 */
+	static List<Path> outputFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile)
+					.map(directory::relativize)
+					.filter(file -> !file.getFileName().toString().equals(USED_CONF))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static void copy(Path source, Path target) throws IOException {
+		Files.createDirectories(target);
+		try (Stream<Path> files = Files.list(source)) {
+			for (Path file : files.collect(Collectors.toList())) {
+				Files.copy(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+}
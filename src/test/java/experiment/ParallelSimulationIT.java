@@ -0,0 +1,43 @@
+package experiment;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR with several simulations, sequentially and on a thread
+ * pool, and compares the output files byte for byte.
+ */
+public class ParallelSimulationIT {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sameOutputAsSequential() throws Exception {
+		this.assertSameOutput("strategy=never");
+	}
+
+	@Test
+	public void sameOutputAsSequentialWithReorganization() throws Exception {
+		this.assertSameOutput("strategy=periodically", "periodically.reorganizationPeriod=3",
+				"strategy.candidateStructures=3");
+	}
+
+	private void assertSameOutput(String... properties) throws Exception {
+		EposJar.assertSameOutput(this.run(1, properties), this.run(3, properties));
+	}
+
+	private Path run(int numSimulationThreads, String... properties) throws Exception {
+		List<String> simulationProperties = new ArrayList<>(
+				Arrays.asList("numSimulations=4", "numSimulationThreads=" + numSimulationThreads));
+		simulationProperties.addAll(Arrays.asList(properties));
+		return EposJar.run(this.folder, simulationProperties.toArray(new String[0]));
+	}
+
+}
@@ -0,0 +1,76 @@
+package experiment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the packaged JAR with several subtree swaps per reorganization and checks
+ * that the global response of every iteration is the sum of the selected plans.
+ */
+public class SubtreeSwapIT {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void globalResponseIsSumOfSelectedPlans() throws Exception {
+		this.assertConsistentGlobalResponse("strategy.subtreeSwaps=2");
+	}
+
+	@Test
+	public void globalResponseIsSumOfSelectedPlansWithMoreChildren() throws Exception {
+		this.assertConsistentGlobalResponse("strategy.subtreeSwaps=3", "numChildren=3",
+				"periodically.reorganizationPeriod=2");
+	}
+
+	private void assertConsistentGlobalResponse(String... properties) throws Exception {
+		String[] runProperties = new String[properties.length + 3];
+		runProperties[0] = "numSimulations=1";
+		runProperties[1] = "numIterations=20";
+		runProperties[2] = "strategy=periodically";
+		System.arraycopy(properties, 0, runProperties, 3, properties.length);
+		Path output = EposJar.run(this.folder, runProperties);
+
+		List<String> selectedPlans = Files.readAllLines(output.resolve("selected-plans.csv"), StandardCharsets.UTF_8);
+		List<String> globalResponses = Files.readAllLines(output.resolve("global-response.csv"), StandardCharsets.UTF_8);
+		assertEquals(21, selectedPlans.size());
+		assertEquals(selectedPlans.size(), globalResponses.size());
+		for (int line = 1; line < selectedPlans.size(); line++) {
+			String[] planIndexes = selectedPlans.get(line).split(",");
+			String[] globalResponse = globalResponses.get(line).split(",");
+			double[] sum = new double[globalResponse.length - 2];
+			// the agents are not shuffled in the first simulation
+			for (int agent = 0; agent < planIndexes.length - 2; agent++) {
+				double[] plan = this.readPlan(agent, Integer.parseInt(planIndexes[agent + 2]));
+				for (int i = 0; i < sum.length; i++) {
+					sum[i] += plan[i];
+				}
+			}
+			for (int i = 0; i < sum.length; i++) {
+				assertEquals("iteration " + globalResponse[1] + ", dimension " + i, sum[i],
+						Double.parseDouble(globalResponse[i + 2]), 1e-9);
+			}
+		}
+	}
+
+	private double[] readPlan(int agent, int index) throws IOException {
+		Path plans = Paths.get(System.getProperty("epos.datasets"), "gaussian", "agent_" + agent + ".plans");
+		String[] values = Files.readAllLines(plans, StandardCharsets.UTF_8).get(index).split(":")[1].split(",");
+		double[] plan = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			plan[i] = Double.parseDouble(values[i]);
+		}
+		return plan;
+	}
+
+}
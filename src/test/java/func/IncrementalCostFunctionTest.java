@@ -0,0 +1,111 @@
+package func;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import config.Configuration;
+import data.FloatVector;
+import data.Vector;
+import func.IncrementalCostFunction.DeltaCost;
+
+/**
+ * The evaluators of the incremental cost functions return the cost of
+ * <code>base + delta</code> as computed by <code>calcCost</code> on the sum.
+ */
+public class IncrementalCostFunctionTest {
+
+    private static final int NUM_TRIALS = 200;
+
+    @After
+    public void tearDown() {
+        Configuration.goalSignalSupplier = null;
+        Configuration.normalizer = Vector.standard_normalization;
+        CrossCorrelationCostFunction.shouldSlide = false;
+    }
+
+    @Test
+    public void variance() {
+        this.assertSameCosts(new VarCostFunction(), 0.0);
+    }
+
+    @Test
+    public void max() {
+        this.assertSameCosts(new MaxCostFunction(), 0.0);
+    }
+
+    @Test
+    public void dot() {
+        this.assertSameCosts(new DotCostFunction(), 0.0);
+    }
+
+    @Test
+    public void squaredDistance() {
+        this.assertSameCosts(new SqrDistCostFunction(), 0.0);
+    }
+
+    @Test
+    public void residualSumOfSquares() {
+        UnaryOperator<Vector> identity = v -> v.cloneThis();
+        for (UnaryOperator<Vector> normalizer : new UnaryOperator[] { Vector.standard_normalization,
+                Vector.min_max_normalization, Vector.unit_length_normalization, Vector.no_normalization, identity }) {
+            Configuration.normalizer = normalizer;
+            this.assertSameCosts(new RSSCostFunction(), 0.0);
+        }
+    }
+
+    @Test
+    public void crossCorrelation() {
+        this.assertSameCosts(new CrossCorrelationCostFunction(), 0.0);
+    }
+
+    /**
+     * The spectrum of the sum is the sum of the spectra up to rounding, so the
+     * cost with sliding is only exact up to a few ulps of the coefficient.
+     */
+    @Test
+    public void crossCorrelationWithSliding() {
+        CrossCorrelationCostFunction.shouldSlide = true;
+        this.assertSameCosts(new CrossCorrelationCostFunction(), 1e-12);
+    }
+
+    private void assertSameCosts(IncrementalCostFunction<Vector> costFunction, double tolerance) {
+        Random random = new Random(3);
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int planDim = 2 + random.nextInt(100);
+            Vector goal = this.randomVector(random, planDim, false);
+            Configuration.goalSignalSupplier = () -> goal.cloneThis();
+            if (costFunction instanceof HasGoal) {
+                ((HasGoal) costFunction).populateGoalSignal();
+            }
+
+            Vector base = this.randomVector(random, planDim, false);
+            DeltaCost<Vector> deltaCost = costFunction.prepare(base);
+            for (int d = 0; d < 5; d++) {
+                Vector delta = this.randomVector(random, planDim, random.nextBoolean());
+                Vector response = base.cloneThis();
+                response.add(delta);
+                double expected = costFunction.calcCost(response);
+
+                String message = costFunction + ", trial " + trial;
+                assertEquals(message, expected, deltaCost.costWithDelta(delta), tolerance);
+                assertEquals(message, expected, deltaCost.costWithPlan(delta), tolerance);
+                // cached state of the plan is reused on the second evaluation
+                assertEquals(message, expected, deltaCost.costWithPlan(delta), tolerance);
+            }
+        }
+    }
+
+    private Vector randomVector(Random random, int planDim, boolean floatVector) {
+        double[] values = new double[planDim];
+        for (int i = 0; i < planDim; i++) {
+            values[i] = 10 * random.nextGaussian();
+        }
+        return floatVector ? new FloatVector(values) : new Vector(values);
+    }
+
+}
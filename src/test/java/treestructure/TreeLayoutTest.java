@@ -0,0 +1,174 @@
+package treestructure;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import dsutil.generic.RankPriority;
+import dsutil.protopeer.FingerDescriptor;
+import dsutil.protopeer.services.topology.trees.DescriptorType;
+import dsutil.protopeer.services.topology.trees.TreeType;
+import protopeer.Finger;
+import protopeer.network.IntegerNetworkAddress;
+import protopeer.network.NetworkAddress;
+import tree.BalanceType;
+import tree.centralized.TreeViewReply;
+import tree.centralized.server.TreeTopologyGenerator;
+import tree.centralized.server.TreeViewFacilitator;
+
+/**
+ * The tree server lays out the same trees as <code>TreeTopologyGenerator</code>:
+ * every agent gets the same parent and the same children in the same order.
+ */
+public class TreeLayoutTest {
+
+	private static final int[] NUM_AGENTS = { 1, 2, 3, 7, 16, 50, 201 };
+
+	@Test
+	public void generateMatchesTreeTopologyGenerator() {
+		Random random = new Random(7);
+		for (RankPriority priority : new RankPriority[] { RankPriority.HIGH_RANK, RankPriority.LOW_RANK }) {
+			TreeType type = priority == RankPriority.HIGH_RANK ? TreeType.SORTED_HtL : TreeType.SORTED_LtH;
+			for (BalanceType balance : new BalanceType[] { BalanceType.WEIGHT_BALANCED, BalanceType.LIST }) {
+				for (int maxChildren = 1; maxChildren <= 4; maxChildren++) {
+					for (int numAgents : NUM_AGENTS) {
+						List<Integer> shuffled = IntStream.range(0, numAgents).boxed().collect(Collectors.toList());
+						Collections.shuffle(shuffled, random);
+						int[] ranks = shuffled.stream().mapToInt(Integer::intValue).toArray();
+						int[] degrees = new int[numAgents];
+						double[] descriptorRanks = new double[numAgents];
+						for (int agent = 0; agent < numAgents; agent++) {
+							degrees[agent] = maxChildren + 1;
+							descriptorRanks[agent] = ranks[agent];
+						}
+
+						TreeLayout layout = TreeLayout.generate(ranks, maxChildren, priority, type, balance);
+						String message = priority + ", " + balance + ", " + maxChildren + " children, " + numAgents + " agents";
+						this.assertSameTree(message, layout, this.descriptors(descriptorRanks, degrees), priority, type, balance);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void sortedLayoutMatchesTreeTopologyGenerator() {
+		Random random = new Random(13);
+		for (RankPriority priority : new RankPriority[] { RankPriority.HIGH_RANK, RankPriority.LOW_RANK }) {
+			TreeType type = priority == RankPriority.HIGH_RANK ? TreeType.SORTED_HtL : TreeType.SORTED_LtH;
+			for (BalanceType balance : new BalanceType[] { BalanceType.WEIGHT_BALANCED, BalanceType.LIST }) {
+				for (boolean sameDegrees : new boolean[] { true, false }) {
+					for (int numAgents : NUM_AGENTS) {
+						// ranks of any value and, unless all are the same, node degrees of 2 to 5
+						double[] ranks = new double[numAgents];
+						int[] degrees = new int[numAgents];
+						for (int agent = 0; agent < numAgents; agent++) {
+							ranks[agent] = 100 * random.nextDouble();
+							degrees[agent] = sameDegrees ? 3 : 2 + random.nextInt(4);
+						}
+						FingerDescriptor[] slots = this.descriptors(ranks, degrees);
+						Set<FingerDescriptor> peers = new LinkedHashSet<>();
+						Map<NetworkAddress, Integer> slotIndex = new HashMap<>();
+						for (int slot = 0; slot < numAgents; slot++) {
+							peers.add(slots[slot]);
+							slotIndex.put(slots[slot].getNetworkAddress(), slot);
+						}
+
+						TreeLayout layout = ModifiableTreeServer.generateLayout(peers, slotIndex, priority,
+								DescriptorType.RANK, type, balance);
+						String message = priority + ", " + balance + (sameDegrees ? ", same" : ", random")
+								+ " degrees, " + numAgents + " agents";
+						this.assertSameTree(message, layout, slots, priority, type, balance);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shuffleMatchesCollectionsShuffle() {
+		for (int length : new int[] { 0, 1, 2, 5, 100 }) {
+			long seed = 31L * length;
+			int[] array = IntStream.range(0, length).toArray();
+			List<Integer> list = IntStream.range(0, length).boxed().collect(Collectors.toList());
+			Random arrayRandom = new Random(seed);
+			Random listRandom = new Random(seed);
+			// repeated shuffles continue from the previous order, as in the tree server
+			for (int shuffle = 0; shuffle < 3; shuffle++) {
+				TreeLayout.shuffle(array, arrayRandom);
+				Collections.shuffle(list, listRandom);
+				assertArrayEquals("length " + length, list.stream().mapToInt(Integer::intValue).toArray(), array);
+			}
+		}
+	}
+
+	/**
+	 * @return the descriptor of every agent, as the tree clients send them
+	 */
+	private FingerDescriptor[] descriptors(double[] ranks, int[] degrees) {
+		FingerDescriptor[] slots = new FingerDescriptor[ranks.length];
+		for (int agent = 0; agent < ranks.length; agent++) {
+			slots[agent] = new FingerDescriptor(new Finger(new IntegerNetworkAddress(agent), null));
+			slots[agent].addDescriptor(DescriptorType.RANK, ranks[agent]);
+			slots[agent].addDescriptor(DescriptorType.NODE_DEGREE, degrees[agent]);
+		}
+		return slots;
+	}
+
+	/**
+	 * Asserts that the views of the layout, whose agents are the given slots, are the
+	 * views that <code>TreeTopologyGenerator</code> generates for the descriptors of
+	 * the slots, as the tree server sends them.
+	 */
+	private void assertSameTree(String message, TreeLayout layout, FingerDescriptor[] slots,
+			RankPriority priority, TreeType type, BalanceType balance) {
+		int numAgents = slots.length;
+		Set<FingerDescriptor> peers = new LinkedHashSet<>();
+		for (FingerDescriptor slot : slots) {
+			peers.add(slot);
+		}
+		Map<NetworkAddress, TreeViewFacilitator> views = new HashMap<>();
+		TreeTopologyGenerator generator = new TreeTopologyGenerator(priority, DescriptorType.RANK, type, balance);
+		for (Entry<FingerDescriptor, TreeViewFacilitator> view : generator.generateTopology(peers)) {
+			views.put(view.getKey().getNetworkAddress(), view.getValue());
+		}
+
+		assertEquals(message, numAgents, layout.getNumVertices());
+		assertEquals(message, numAgents, views.size());
+		for (int agent = 0; agent < numAgents; agent++) {
+			TreeViewFacilitator expected = views.get(slots[agent].getNetworkAddress());
+			TreeViewReply actual = ModifiableTreeServer.createReplyMessage(layout, slots, layout.getVertex(agent));
+			String agentMessage = message + ", agent " + agent;
+			assertEquals(agentMessage, this.addressOf(expected.getParent()), this.addressOf(actual.parent));
+			assertEquals(agentMessage, this.addressesOf(expected.getChildren()), this.addressesOf(actual.children));
+		}
+	}
+
+	private NetworkAddress addressOf(FingerDescriptor descriptor) {
+		return descriptor == null ? null : descriptor.getNetworkAddress();
+	}
+
+	private List<NetworkAddress> addressesOf(List<FingerDescriptor> descriptors) {
+		List<NetworkAddress> addresses = new ArrayList<>();
+		if (descriptors != null) {
+			for (FingerDescriptor descriptor : descriptors) {
+				addresses.add(descriptor.getNetworkAddress());
+			}
+		}
+		return addresses;
+	}
+
+}